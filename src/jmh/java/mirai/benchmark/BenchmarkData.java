@@ -0,0 +1,65 @@
+package mirai.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import mirai.tasks.Deadline;
+import mirai.tasks.Event;
+import mirai.tasks.Task;
+import mirai.tasks.ToDo;
+
+/**
+ * A utility class to build the same realistic task lists for every benchmark run.
+ */
+public class BenchmarkData {
+    private static final String[] WORDS = {
+        "read", "book", "return", "library", "submit", "homework", "meeting", "project", "call", "mom",
+        "buy", "groceries", "review", "report", "gym", "lecture", "tutorial", "laundry", "dentist", "plan"
+    };
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 31, 9, 0);
+
+    /**
+     * Returns a list of to-dos, deadlines and events in equal parts, with descriptions of three to five words and
+     * every fourth task done. The same size always gives the same tasks.
+     * @param size The number of tasks
+     * @return the tasks
+     */
+    public static List<Task> createTasks(int size) {
+        List<Task> tasks = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            String description = createDescription(i);
+            LocalDateTime time = BASE_TIME.plusHours(i % 10000);
+
+            Task task = switch (i % 3) {
+            case 0 -> new ToDo(description);
+            case 1 -> new Deadline(description, time);
+            default -> new Event(description, time, time.plusHours(2));
+            };
+
+            if (i % 4 == 0) {
+                task.markAsDone(time);
+            }
+            tasks.add(task);
+        }
+
+        return tasks;
+    }
+
+    /**
+     * Returns a description built from the vocabulary, ending with a number so that most descriptions are unique.
+     * @param seed The seed choosing the words
+     * @return the description
+     */
+    public static String createDescription(int seed) {
+        StringBuilder description = new StringBuilder();
+        int wordCount = 3 + seed % 3;
+
+        for (int i = 0; i < wordCount; i++) {
+            description.append(WORDS[(seed * 7 + i * 13) % WORDS.length]).append(' ');
+        }
+
+        return description.append(seed).toString();
+    }
+}
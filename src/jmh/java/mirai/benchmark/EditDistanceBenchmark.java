@@ -0,0 +1,63 @@
+package mirai.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mirai.tasks.Task;
+import mirai.tasks.ToDo;
+import mirai.utility.Utility;
+
+/**
+ * Benchmarks the edit distance between two words, and the closeness of a task to a keyword built on top of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EditDistanceBenchmark {
+    @Param({"book", "tutorial", "internationalisation"})
+    public String word;
+
+    @Param({"retrun libary"})
+    public String keyword;
+
+    private String otherWord;
+    private Task task;
+
+    /**
+     * Picks a word of the same length that differs from the benchmarked word in about half of its letters.
+     */
+    @Setup
+    public void setUp() {
+        StringBuilder other = new StringBuilder(this.word);
+        for (int i = 0; i < other.length(); i += 2) {
+            other.setCharAt(i, (char) ('a' + (other.charAt(i) - 'a' + 1) % 26));
+        }
+
+        this.otherWord = other.toString();
+        this.task = new ToDo(BenchmarkData.createDescription(this.word.length()) + " " + this.word);
+    }
+
+    @Benchmark
+    public double getEditDistance() {
+        return Utility.getEditDistance(this.word, this.otherWord);
+    }
+
+    @Benchmark
+    public double computeCloseness() {
+        return this.task.computeCloseness(this.keyword);
+    }
+}
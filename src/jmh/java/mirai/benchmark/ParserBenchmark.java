@@ -0,0 +1,89 @@
+package mirai.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mirai.utility.MiraiException;
+import mirai.utility.ParsedCommand;
+import mirai.utility.Parser;
+import mirai.utility.Storage;
+import mirai.utility.TaskList;
+
+/**
+ * Benchmarks a whole command, from tokenizing the command line to the response, for task lists from a thousand to a
+ * million tasks. <code>mark</code> and <code>unmark</code> alternate so that every invocation changes the list and
+ * appends to the storage file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"list", "find book", "flexfind retrun libary", "mark 2"})
+    public String commandLine;
+
+    private Path folder;
+    private Parser parser;
+    private Storage storage;
+    private TaskList tasks;
+    private String undoLine;
+    private boolean isUndoNext;
+
+    /**
+     * Builds the task list and its storage file.
+     * @throws IOException if the storage file cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.folder = Files.createTempDirectory("mirai-benchmark");
+        this.storage = new Storage(this.folder.resolve("mirai.txt").toString());
+        this.tasks = new TaskList(BenchmarkData.createTasks(this.size));
+        this.storage.relogAllTasks(this.tasks.getTaskList());
+        this.parser = new Parser();
+        this.undoLine = this.commandLine.startsWith("mark") ? "un" + this.commandLine : this.commandLine;
+    }
+
+    /**
+     * Deletes the storage file.
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(this.folder)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(this.folder);
+    }
+
+    @Benchmark
+    public String parseAndExecute() throws MiraiException {
+        String line = this.isUndoNext ? this.undoLine : this.commandLine;
+        this.isUndoNext = !this.isUndoNext;
+
+        ParsedCommand command = ParsedCommand.of(line);
+        return this.parser.parse(command).execute(command, this.tasks, this.storage);
+    }
+}
@@ -0,0 +1,58 @@
+package mirai.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mirai.tasks.Task;
+import mirai.utility.TaskList;
+
+/**
+ * Benchmarks searching task lists from a thousand to a million tasks, by substring and by closeness.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"book", "retrun libary"})
+    public String keyword;
+
+    private TaskList tasks;
+
+    @Setup
+    public void setUp() {
+        this.tasks = new TaskList(BenchmarkData.createTasks(this.size));
+    }
+
+    @Benchmark
+    public TaskList filterBasedOnKeyword() {
+        return this.tasks.filterBasedOnKeyword(this.keyword);
+    }
+
+    @Benchmark
+    public TaskList sortSearchResults() {
+        return this.tasks.sortSearchResults(this.keyword);
+    }
+
+    @Benchmark
+    public List<Task> findClosest() {
+        return this.tasks.findClosest(this.keyword, 200);
+    }
+}
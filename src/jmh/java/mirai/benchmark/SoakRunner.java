@@ -0,0 +1,248 @@
+package mirai.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+
+import mirai.ui.Mirai;
+import mirai.utility.Histogram;
+import mirai.utility.Message;
+import mirai.utility.TaskList;
+
+/**
+ * The SoakRunner class replays a command trace through <code>Mirai.getResponse</code> for a long time, to find
+ * problems that only show up after hours, such as memory leaks, growing GC pauses and latencies that creep up.<br><br>
+ *
+ * Each pass replays the whole trace on a fresh copy of the storage file, so the data file is never changed and the
+ * trace always finds the tasks it expects. Passes are repeated until the duration is up. At every interval, the
+ * runner reports the latency percentiles of the interval, the heap held by objects that survived a GC, and the GC
+ * count and time of the interval. At the end, it compares the first and the last interval to show any drift.<br><br>
+ *
+ * Usage: <code>SoakRunner --data storage-file --trace trace-file [--minutes n] [--interval-seconds n]
+ * [--csv file]</code>
+ */
+public class SoakRunner {
+    private static final String CSV_HEADER =
+            "elapsed_s,pass,tasks,commands,errors,p50_ms,p99_ms,max_ms,heap_mb,retained_mb,gc_count,gc_ms";
+
+    private final Path dataFile;
+    private final List<String> trace;
+    private final PrintWriter csv;
+    private final Path workDirectory;
+
+    private Histogram intervalLatencies;
+    private long intervalCommands;
+    private long intervalErrors;
+    private long lastGcCount;
+    private long lastGcTime;
+    private Interval firstInterval;
+    private Interval lastInterval;
+
+    /**
+     * The measurements of one interval, kept to compare the start of the run with its end.
+     */
+    private record Interval(long p50, long p99, long retainedHeap) {
+    }
+
+    /**
+     * Initialises a runner.
+     * @param dataFile The storage file each pass starts from
+     * @param trace The commands of one pass
+     * @param csv Where a line of measurements is written at every interval, or null
+     * @throws IOException if the working directory cannot be created
+     */
+    public SoakRunner(Path dataFile, List<String> trace, PrintWriter csv) throws IOException {
+        this.dataFile = dataFile;
+        this.trace = trace;
+        this.csv = csv;
+        this.workDirectory = Files.createTempDirectory("mirai-soak");
+        this.intervalLatencies = new Histogram();
+    }
+
+    /**
+     * Runs a soak test from the command line.
+     * @param args The options described in the class documentation
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        String data = null;
+        String trace = null;
+        String csvPath = null;
+        long minutes = 60;
+        long intervalSeconds = 60;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--data" -> data = args[i + 1];
+            case "--trace" -> trace = args[i + 1];
+            case "--minutes" -> minutes = Long.parseLong(args[i + 1]);
+            case "--interval-seconds" -> intervalSeconds = Long.parseLong(args[i + 1]);
+            case "--csv" -> csvPath = args[i + 1];
+            default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if (data == null || trace == null) {
+            throw new IllegalArgumentException("Give the storage file with --data and the trace with --trace");
+        }
+
+        List<String> commands = Files.readAllLines(Path.of(trace), StandardCharsets.UTF_8);
+        commands.removeIf(line -> line.isBlank() || line.startsWith("#"));
+
+        PrintWriter csv = csvPath == null
+                ? null
+                : new PrintWriter(Files.newBufferedWriter(Path.of(csvPath), StandardCharsets.UTF_8), true);
+        try {
+            SoakRunner runner = new SoakRunner(Path.of(data), commands, csv);
+            runner.run(Duration.ofMinutes(minutes), Duration.ofSeconds(intervalSeconds));
+        } finally {
+            if (csv != null) {
+                csv.close();
+            }
+        }
+    }
+
+    /**
+     * Replays the trace, pass after pass, until the duration is up.
+     * @param duration How long to run
+     * @param interval The time between two reports
+     * @throws IOException if the storage file cannot be copied
+     */
+    public void run(Duration duration, Duration interval) throws IOException {
+        long durationNanos = duration.toNanos();
+        long intervalNanos = interval.toNanos();
+        long start = System.nanoTime();
+        long nextReport = start + intervalNanos;
+        long now = start;
+        int pass = 0;
+
+        this.readGc();
+        System.out.println(CSV_HEADER);
+        if (this.csv != null) {
+            this.csv.println(CSV_HEADER);
+        }
+
+        while (now - start < durationNanos) {
+            pass++;
+            Path workFile = this.workDirectory.resolve("mirai.txt");
+            Files.copy(this.dataFile, workFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(this.workDirectory.resolve("mirai.archive.txt"));
+            Mirai mirai = new Mirai(workFile.toString());
+
+            for (String command : this.trace) {
+                long commandStart = System.nanoTime();
+                String response = mirai.getResponse(command);
+                now = System.nanoTime();
+
+                this.intervalLatencies.record(now - commandStart);
+                this.intervalCommands++;
+                if (response.startsWith(Message.ERROR)) {
+                    this.intervalErrors++;
+                }
+
+                if (now >= nextReport) {
+                    this.report((now - start) / 1_000_000_000L, pass, mirai.query(TaskList::getSize));
+                    nextReport += intervalNanos;
+                }
+                if (now - start >= durationNanos) {
+                    break;
+                }
+            }
+        }
+
+        this.reportDrift();
+    }
+
+    /**
+     * Reports the measurements of the interval that just ended, and starts a new interval.
+     */
+    private void report(long elapsedSeconds, int pass, int taskCount) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long retainedHeap = getRetainedHeap();
+        long gcCount = this.lastGcCount;
+        long gcTime = this.lastGcTime;
+        this.readGc();
+
+        long p50 = this.intervalLatencies.getValueAtPercentile(0.5);
+        long p99 = this.intervalLatencies.getValueAtPercentile(0.99);
+        String line = elapsedSeconds + "," + pass + "," + taskCount + "," + this.intervalCommands + ","
+                + this.intervalErrors + "," + toMillis(p50) + "," + toMillis(p99) + ","
+                + toMillis(this.intervalLatencies.getMax()) + "," + heap.getUsed() / (1 << 20) + ","
+                + retainedHeap / (1 << 20) + "," + (this.lastGcCount - gcCount) + "," + (this.lastGcTime - gcTime);
+
+        System.out.println(line);
+        if (this.csv != null) {
+            this.csv.println(line);
+        }
+
+        Interval interval = new Interval(p50, p99, retainedHeap);
+        if (this.firstInterval == null) {
+            this.firstInterval = interval;
+        }
+        this.lastInterval = interval;
+
+        this.intervalLatencies = new Histogram();
+        this.intervalCommands = 0;
+        this.intervalErrors = 0;
+    }
+
+    /**
+     * Reports how much the latencies and the heap changed between the first and the last interval.
+     */
+    private void reportDrift() {
+        if (this.firstInterval == null || this.firstInterval == this.lastInterval) {
+            System.out.println("The run was too short to measure drift; give a longer --minutes.");
+            return;
+        }
+
+        System.out.printf("Drift from the first to the last interval: p50 %s -> %s ms, p99 %s -> %s ms, "
+                        + "retained heap %d -> %d MB%n",
+                toMillis(this.firstInterval.p50()), toMillis(this.lastInterval.p50()),
+                toMillis(this.firstInterval.p99()), toMillis(this.lastInterval.p99()),
+                this.firstInterval.retainedHeap() / (1 << 20), this.lastInterval.retainedHeap() / (1 << 20));
+    }
+
+    private void readGc() {
+        long count = 0;
+        long time = 0;
+
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            time += Math.max(0, collector.getCollectionTime());
+        }
+
+        this.lastGcCount = count;
+        this.lastGcTime = time;
+    }
+
+    /**
+     * Returns the heap in use outside the eden space, which holds the objects that survived at least one GC. Unlike
+     * the whole heap in use, this only keeps growing if objects are kept alive, so a steady rise points to a leak.
+     * @return the heap in use outside the eden space, in bytes
+     */
+    private static long getRetainedHeap() {
+        long used = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && !pool.getName().contains("Eden")) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+
+        return used;
+    }
+
+    private static String toMillis(long nanos) {
+        return String.valueOf(nanos / 1000 / 1000.0);
+    }
+}
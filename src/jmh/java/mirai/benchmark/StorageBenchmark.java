@@ -0,0 +1,94 @@
+package mirai.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mirai.tasks.Task;
+import mirai.tasks.ToDo;
+import mirai.utility.Storage;
+
+/**
+ * Benchmarks reading and writing the storage file, for task lists from a thousand to a million tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Path folder;
+    private Storage storage;
+    private List<Task> tasks;
+    private Task newTask;
+
+    /**
+     * Writes a storage file holding the tasks.
+     * @throws IOException if the file cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.folder = Files.createTempDirectory("mirai-benchmark");
+        this.storage = new Storage(this.folder.resolve("mirai.txt").toString());
+        this.tasks = BenchmarkData.createTasks(this.size);
+        this.newTask = new ToDo("read book");
+        this.storage.relogAllTasks(this.tasks);
+    }
+
+    /**
+     * Restores the storage file, since <code>logNewTask</code> keeps appending to it.
+     */
+    @Setup(Level.Iteration)
+    public void resetFile() {
+        this.storage.relogAllTasks(this.tasks);
+    }
+
+    /**
+     * Deletes the storage file.
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(this.folder)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(this.folder);
+    }
+
+    @Benchmark
+    public List<Task> load() throws IOException {
+        return this.storage.load();
+    }
+
+    @Benchmark
+    public void relogAllTasks() {
+        this.storage.relogAllTasks(this.tasks);
+    }
+
+    @Benchmark
+    public void logNewTask() {
+        this.storage.logNewTask(this.newTask);
+    }
+}
@@ -0,0 +1,349 @@
+package mirai.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import mirai.tasks.Deadline;
+import mirai.tasks.Event;
+import mirai.tasks.Task;
+import mirai.tasks.ToDo;
+import mirai.utility.Storage;
+
+/**
+ * The WorkloadGenerator class generates synthetic storage files and replayable command traces, to test Mirai at
+ * production scale. The same options and seed always give the same output.<br><br>
+ *
+ * The storage file holds a tunable mix of to-dos, deadlines and events, whose descriptions are drawn from a synthetic
+ * vocabulary with a few common words and many rare ones. The trace holds one command per line, in a tunable mix of
+ * adds, marks, deletes, searches, listings and undos. Every index in the trace refers to a task that exists at that
+ * point, as long as the trace is replayed on the storage file generated with it.<br><br>
+ *
+ * Usage: <code>WorkloadGenerator --out data/mirai.txt [--tasks n] [--mix todo:deadline:event] [--vocabulary n]
+ * [--words min-max] [--done fraction] [--trace file] [--commands n]
+ * [--trace-mix add:mark:delete:find:flexfind:list:undo] [--seed n]</code>
+ */
+public class WorkloadGenerator {
+    private static final String[] SYLLABLES = {
+        "ka", "ri", "mo", "te", "su", "na", "lo", "pe", "shi", "ya", "ro", "mi", "zu", "ke", "ha", "no"
+    };
+    private static final DateTimeFormatter USER_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HHmm");
+
+    private final Random random;
+    private final String[] vocabulary;
+    private int minWords = 3;
+    private int maxWords = 6;
+    private int[] taskMix = {50, 30, 20};
+    private double doneRatio = 0.25;
+    private int[] traceMix = {30, 20, 10, 20, 5, 10, 5};
+    /** The done state of every task in the list, as the trace being generated changes it */
+    private final List<Boolean> simulatedList;
+    /** The edits the trace can undo, most recent first, in the same form as <code>simulatedList</code> changes */
+    private final Deque<int[]> simulatedHistory;
+    private final LocalDateTime now;
+
+    /**
+     * Initialises a generator.
+     * @param seed The seed of the random choices
+     * @param vocabularySize The number of distinct words in descriptions
+     */
+    public WorkloadGenerator(long seed, int vocabularySize) {
+        this.random = new Random(seed);
+        this.vocabulary = createVocabulary(vocabularySize);
+        this.simulatedList = new ArrayList<>();
+        this.simulatedHistory = new ArrayDeque<>();
+        this.now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    /**
+     * Generates a storage file, and optionally a trace, from the command line.
+     * @param args The options described in the class documentation
+     * @throws IOException if a file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        String out = null;
+        String trace = null;
+        int taskCount = 10000;
+        int commandCount = 100000;
+        int vocabularySize = 2000;
+        long seed = 42;
+        String mix = null;
+        String words = null;
+        String traceMix = null;
+        double doneRatio = 0.25;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--out" -> out = args[i + 1];
+            case "--trace" -> trace = args[i + 1];
+            case "--tasks" -> taskCount = Integer.parseInt(args[i + 1]);
+            case "--commands" -> commandCount = Integer.parseInt(args[i + 1]);
+            case "--vocabulary" -> vocabularySize = Integer.parseInt(args[i + 1]);
+            case "--seed" -> seed = Long.parseLong(args[i + 1]);
+            case "--mix" -> mix = args[i + 1];
+            case "--words" -> words = args[i + 1];
+            case "--trace-mix" -> traceMix = args[i + 1];
+            case "--done" -> doneRatio = Double.parseDouble(args[i + 1]);
+            default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if (out == null) {
+            throw new IllegalArgumentException("Give the storage file to generate with --out");
+        }
+
+        WorkloadGenerator generator = new WorkloadGenerator(seed, vocabularySize);
+        generator.doneRatio = doneRatio;
+        if (mix != null) {
+            generator.taskMix = parseWeights(mix, 3);
+        }
+        if (traceMix != null) {
+            generator.traceMix = parseWeights(traceMix, 7);
+        }
+        if (words != null) {
+            String[] range = words.split("-");
+            generator.minWords = Integer.parseInt(range[0]);
+            generator.maxWords = Integer.parseInt(range[range.length - 1]);
+        }
+
+        generator.writeTasks(Path.of(out), taskCount);
+        System.out.println("Wrote " + taskCount + " tasks to " + out);
+
+        if (trace != null) {
+            generator.writeTrace(Path.of(trace), commandCount);
+            System.out.println("Wrote " + commandCount + " commands to " + trace);
+        }
+    }
+
+    private static int[] parseWeights(String weights, int count) {
+        String[] parts = weights.split(":");
+        if (parts.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " weights separated by ':' in " + weights);
+        }
+
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = Integer.parseInt(parts[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Builds words from syllables, so that the vocabulary can be as large as needed.
+     * @param size The number of words
+     * @return the words
+     */
+    private static String[] createVocabulary(int size) {
+        String[] words = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int value = i;
+            do {
+                word.append(SYLLABLES[value % SYLLABLES.length]);
+                value /= SYLLABLES.length;
+            } while (value > 0);
+            words[i] = word.toString();
+        }
+
+        return words;
+    }
+
+    /**
+     * Picks a word, favouring the start of the vocabulary so that a few words are common and most are rare.
+     * @return the word
+     */
+    private String pickWord() {
+        double skewed = Math.pow(this.random.nextDouble(), 3);
+        return this.vocabulary[(int) (skewed * this.vocabulary.length)];
+    }
+
+    private String createDescription() {
+        int wordCount = this.minWords + this.random.nextInt(this.maxWords - this.minWords + 1);
+        StringBuilder description = new StringBuilder(this.pickWord());
+
+        for (int i = 1; i < wordCount; i++) {
+            description.append(' ').append(this.pickWord());
+        }
+
+        return description.toString();
+    }
+
+    private int pickWeighted(int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+
+        int choice = this.random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            choice -= weights[i];
+            if (choice < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Returns a time within a few months around now, on the minute.
+     * @return the time
+     */
+    private LocalDateTime pickTime() {
+        return this.now.plusMinutes(this.random.nextInt(180 * 24 * 60) - 60 * 24 * 60);
+    }
+
+    /**
+     * Writes a storage file of tasks, and remembers the tasks so that a trace can be generated for them.
+     * @param file The storage file
+     * @param taskCount The number of tasks
+     */
+    public void writeTasks(Path file, int taskCount) {
+        List<Task> tasks = new ArrayList<>(taskCount);
+
+        for (int i = 0; i < taskCount; i++) {
+            String description = this.createDescription();
+            LocalDateTime time = this.pickTime();
+
+            Task task = switch (this.pickWeighted(this.taskMix)) {
+            case 0 -> new ToDo(description);
+            case 1 -> new Deadline(description, time);
+            default -> new Event(description, time, time.plusMinutes(30 + this.random.nextInt(240)));
+            };
+
+            // done within the last week, so that nothing is archived when the file is loaded
+            boolean isDone = this.random.nextDouble() < this.doneRatio;
+            if (isDone) {
+                task.markAsDone(this.now.minusMinutes(this.random.nextInt(7 * 24 * 60)));
+            }
+
+            tasks.add(task);
+            this.simulatedList.add(isDone);
+        }
+
+        file.toAbsolutePath().getParent().toFile().mkdirs();
+        new Storage(file.toString()).relogAllTasks(tasks);
+    }
+
+    /**
+     * Writes a trace of commands to replay on the tasks written last.
+     * @param file The trace file
+     * @param commandCount The number of commands
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTrace(Path file, int commandCount) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < commandCount; i++) {
+                writer.write(this.createCommand());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Picks the next command of the trace, and applies its effect to the simulated list.
+     * @return the command line
+     */
+    private String createCommand() {
+        int size = this.simulatedList.size();
+        int kind = this.pickWeighted(this.traceMix);
+
+        // commands needing a task fall back to adding one when the list is empty
+        if (size == 0 && (kind == 1 || kind == 2)) {
+            kind = 0;
+        }
+
+        switch (kind) {
+        case 1 -> {
+            int index = this.random.nextInt(size);
+            boolean isDone = this.simulatedList.get(index);
+            this.simulatedList.set(index, !isDone);
+            this.simulatedHistory.push(new int[] {isDone ? 'u' : 'm', index});
+            return (isDone ? "unmark " : "mark ") + (index + 1);
+        }
+        case 2 -> {
+            int index = this.random.nextInt(size);
+            boolean isDone = this.simulatedList.remove(index);
+            this.simulatedHistory.push(new int[] {'d', index, isDone ? 1 : 0});
+            return "delete " + (index + 1);
+        }
+        case 3 -> {
+            return "find " + this.pickWord();
+        }
+        case 4 -> {
+            return "flexfind " + this.withTypo(this.pickWord()) + " " + this.pickWord();
+        }
+        case 5 -> {
+            int pages = Math.max(1, (size + 49) / 50);
+            return "list --page " + (1 + this.random.nextInt(pages)) + " --size 50";
+        }
+        case 6 -> {
+            this.undoSimulated();
+            return "undo";
+        }
+        default -> {
+            return this.createAddCommand();
+        }
+        }
+    }
+
+    private String createAddCommand() {
+        String description = this.createDescription();
+        LocalDateTime time = this.pickTime();
+
+        this.simulatedList.add(false);
+        this.simulatedHistory.push(new int[] {'a', this.simulatedList.size() - 1});
+
+        return switch (this.pickWeighted(this.taskMix)) {
+        case 0 -> "todo " + description;
+        case 1 -> "deadline " + description + " /by " + USER_FORMAT.format(time);
+        default -> "event " + description + " /from " + USER_FORMAT.format(time)
+                + " /to " + USER_FORMAT.format(time.plusMinutes(30 + this.random.nextInt(240)));
+        };
+    }
+
+    /**
+     * Reverts the most recent edit of the simulated list, as <code>undo</code> would.
+     */
+    private void undoSimulated() {
+        int[] edit = this.simulatedHistory.poll();
+        if (edit == null) {
+            return;
+        }
+
+        switch (edit[0]) {
+        case 'a' -> this.simulatedList.remove(edit[1]);
+        case 'd' -> this.simulatedList.add(edit[1], edit[2] == 1);
+        case 'm' -> this.simulatedList.set(edit[1], false);
+        default -> this.simulatedList.set(edit[1], true);
+        }
+    }
+
+    /**
+     * Swaps two neighbouring letters of a word, as a user typing quickly would.
+     * @param word The word
+     * @return the misspelt word
+     */
+    private String withTypo(String word) {
+        if (word.length() < 2) {
+            return word;
+        }
+
+        int i = this.random.nextInt(word.length() - 1);
+        char[] letters = word.toCharArray();
+        char letter = letters[i];
+        letters[i] = letters[i + 1];
+        letters[i + 1] = letter;
+        return new String(letters);
+    }
+}
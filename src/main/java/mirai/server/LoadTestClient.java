@@ -0,0 +1,127 @@
+package mirai.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mirai.utility.LatencyRecorder;
+
+/**
+ * The LoadTestClient class sends many requests to a running <code>MiraiServer</code> from several workers at once,
+ * then reports the throughput and the latency percentiles of the server.<br><br>
+ *
+ * With <code>--command</code>, every request posts the command line to <code>/command</code>. Otherwise, every
+ * request gets <code>--path</code>, which is <code>/list</code> by default.<br><br>
+ *
+ * Usage: <code>java -cp mirai.jar mirai.server.LoadTestClient [--url url] [--requests n] [--concurrency n]
+ * [--command command-line | --path path]</code>
+ */
+public class LoadTestClient {
+    private static final String DEFAULT_URL = "http://127.0.0.1:" + MiraiServer.DEFAULT_PORT;
+    private static final int DEFAULT_REQUESTS = 10000;
+    private static final int DEFAULT_CONCURRENCY = 16;
+
+    private final HttpClient client;
+    private final HttpRequest request;
+    private final LatencyRecorder latencies;
+    private final AtomicInteger failures;
+
+    /**
+     * Initialises a client that sends the same request over and over.
+     * @param request The request
+     */
+    public LoadTestClient(HttpRequest request) {
+        this.client = HttpClient.newHttpClient();
+        this.request = request;
+        this.latencies = new LatencyRecorder();
+        this.failures = new AtomicInteger();
+    }
+
+    /**
+     * Runs a load test from the command line.
+     * @param args The options described in the class documentation
+     * @throws Exception if a worker is interrupted or fails
+     */
+    public static void main(String[] args) throws Exception {
+        String url = DEFAULT_URL;
+        int requests = DEFAULT_REQUESTS;
+        int concurrency = DEFAULT_CONCURRENCY;
+        String commandLine = null;
+        String path = "/list";
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--url" -> url = args[i + 1];
+            case "--requests" -> requests = Integer.parseInt(args[i + 1]);
+            case "--concurrency" -> concurrency = Integer.parseInt(args[i + 1]);
+            case "--command" -> commandLine = args[i + 1];
+            case "--path" -> path = args[i + 1];
+            default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        HttpRequest request = commandLine == null
+                ? HttpRequest.newBuilder(URI.create(url + path)).GET().build()
+                : HttpRequest.newBuilder(URI.create(url + "/command"))
+                        .POST(HttpRequest.BodyPublishers.ofString(commandLine))
+                        .build();
+
+        LoadTestClient client = new LoadTestClient(request);
+        long elapsedTime = client.run(requests, concurrency);
+        client.latencies.report(System.out, "requests", elapsedTime);
+        if (client.failures.get() > 0) {
+            System.out.println(client.failures.get() + " requests did not succeed.");
+        }
+    }
+
+    /**
+     * Sends the request a number of times, spread over a number of workers.
+     * @param requests The total number of requests
+     * @param concurrency The number of workers sending requests at the same time
+     * @return the wall-clock time of the run, in nanoseconds
+     * @throws Exception if a worker is interrupted or fails
+     */
+    public long run(int requests, int concurrency) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger remaining = new AtomicInteger(requests);
+        List<Future<?>> results = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            results.add(workers.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    this.send();
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            workers.shutdown();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private void send() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = this.client.send(this.request, HttpResponse.BodyHandlers.ofString());
+        this.latencies.record(System.nanoTime() - start);
+
+        if (response.statusCode() != 200) {
+            this.failures.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package mirai.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import mirai.tasks.Task;
+import mirai.ui.Mirai;
+import mirai.utility.TaskList;
+
+/**
+ * The MiraiServer class exposes a Mirai chatbot over HTTP on the loopback interface, so that scripts and other tools
+ * can talk to a running Mirai. The server supports the following endpoints:
+ * <ul>
+ *     <li><code>POST /command</code>: runs the command line in the request body, and returns Mirai's response as
+ *     plain text, exactly as the GUI would show it.</li>
+ *     <li><code>GET /list</code>: returns all tasks as a JSON array.</li>
+ *     <li><code>GET /find?q=[keyword]</code>: returns the tasks containing the keyword as a JSON array.</li>
+ * </ul>
+ * The JSON format of a task is described in <code>TaskJson</code>.<br><br>
+ *
+ * Each request is handled on its own virtual thread when the Java runtime supports them, and on a pooled thread
+ * otherwise. Commands are carried out one at a time, while <code>/list</code> and <code>/find</code> run side by
+ * side.<br><br>
+ *
+ * Only local programs are served: requests carrying an <code>Origin</code> header, which browsers add to requests
+ * made by web pages, and requests naming a host other than the loopback interface are refused, so that a web page
+ * cannot drive Mirai. The <code>export</code> and <code>import</code> commands, which read and write arbitrary files,
+ * are not available over HTTP.<br><br>
+ *
+ * Usage: <code>java -cp mirai.jar mirai.server.MiraiServer [--data storage-file] [--port port]</code>
+ */
+public class MiraiServer {
+    public static final int DEFAULT_PORT = 7070;
+
+    private static final String DEFAULT_FILE_PATH = "./data/mirai.txt";
+    private static final String TEXT = "text/plain; charset=utf-8";
+    private static final String JSON = "application/json; charset=utf-8";
+    /** How many connections may wait to be accepted, which matters when many clients connect at once */
+    private static final int BACKLOG = 1024;
+    /** How long stopping the server waits for the requests in progress, in seconds */
+    private static final int STOP_DELAY = 5;
+    /** The host names of the loopback interface a request may be addressed to */
+    private static final Set<String> LOOPBACK_HOSTS = Set.of("127.0.0.1", "localhost", "[::1]");
+    /** The commands that read or write files named by the client */
+    private static final Set<String> LOCAL_ONLY_COMMANDS = Set.of("export", "import");
+
+    private final Mirai mirai;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Initialises a server on the loopback interface. The server does not accept requests until it is started.
+     * @param mirai The chatbot to expose
+     * @param port The port to listen on, or 0 to pick any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public MiraiServer(Mirai mirai, int port) throws IOException {
+        this.mirai = mirai;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = newExecutor();
+
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/command", this.handle(this::runCommand));
+        this.server.createContext("/list", this.handle(this::listTasks));
+        this.server.createContext("/find", this.handle(this::findTasks));
+    }
+
+    /**
+     * Starts the server from the command line.
+     * @param args The optional <code>--data [storage file]</code> and <code>--port [port]</code> options
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        String filePath = DEFAULT_FILE_PATH;
+        int port = DEFAULT_PORT;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--data" -> filePath = args[i + 1];
+            case "--port" -> port = Integer.parseInt(args[i + 1]);
+            default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        MiraiServer server = new MiraiServer(new Mirai(filePath), port);
+        server.start();
+        System.out.println("Mirai is listening on http://127.0.0.1:" + server.getPort());
+    }
+
+    /**
+     * Returns an executor running each task on a new virtual thread. Virtual threads are only available from Java 21,
+     * so a cached thread pool is used on older runtimes.
+     * @return the executor
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Stops accepting requests, and waits up to <code>STOP_DELAY</code> seconds for the requests in progress to finish.
+     */
+    public void stop() {
+        this.server.stop(STOP_DELAY);
+        this.executor.shutdown();
+
+        try {
+            this.executor.awaitTermination(STOP_DELAY, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * The Endpoint interface encapsulates the work done for one kind of request.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+        /**
+         * Handles a request.
+         * @param exchange The request and its response
+         * @throws IOException if the request cannot be read or the response cannot be sent
+         */
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Wraps an endpoint so that it only serves local programs, and every request gets a response, even if the
+     * endpoint fails.
+     * @param endpoint The endpoint
+     * @return the handler for the server
+     */
+    private HttpHandler handle(Endpoint endpoint) {
+        return exchange -> {
+            try {
+                if (!isLocal(exchange)) {
+                    send(exchange, 403, TEXT, "Mirai only serves programs running on this computer.");
+                    return;
+                }
+                endpoint.handle(exchange);
+            } catch (RuntimeException e) {
+                send(exchange, 500, TEXT, "Mirai ran into a problem: " + e);
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private void runCommand(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            send(exchange, 405, TEXT, "Send the command line in the body of a POST request.");
+            return;
+        }
+
+        String commandLine = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        // every command of a message counts, not only the first
+        if (Mirai.getKeywords(commandLine).stream().anyMatch(LOCAL_ONLY_COMMANDS::contains)) {
+            send(exchange, 403, TEXT, "Files can only be exported and imported from Mirai itself.");
+            return;
+        }
+
+        send(exchange, 200, TEXT, this.mirai.getResponse(commandLine.strip()));
+    }
+
+    private void listTasks(HttpExchange exchange) throws IOException {
+        send(exchange, 200, JSON, this.mirai.query(tasks -> toJson(tasks, null)));
+    }
+
+    private void findTasks(HttpExchange exchange) throws IOException {
+        String keyword = getQueryParameter(exchange, "q");
+        if (keyword == null) {
+            send(exchange, 400, TEXT, "Give the keyword as the q parameter, such as /find?q=book.");
+            return;
+        }
+
+        send(exchange, 200, JSON, this.mirai.query(tasks -> toJson(tasks, keyword)));
+    }
+
+    /**
+     * Writes the tasks containing a keyword as a JSON array, keeping their indexes in the list.
+     * @param tasks The list of tasks
+     * @param keyword The keyword, or null to write all tasks
+     * @return the JSON array
+     */
+    private static String toJson(TaskList tasks, String keyword) {
+        StringBuilder json = new StringBuilder("[");
+
+        for (int i = 0; i < tasks.getSize(); i++) {
+            Task task = tasks.getTask(i);
+            if (keyword != null && !task.contains(keyword)) {
+                continue;
+            }
+
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            TaskJson.appendTask(json, i + 1, task);
+        }
+
+        return json.append(']').toString();
+    }
+
+    /**
+     * Returns whether a request comes from a local program rather than a web page. Browsers add an
+     * <code>Origin</code> header to the requests web pages make, and a page reaching the server through a host name
+     * it controls still names that host in the <code>Host</code> header.
+     * @param exchange The request
+     * @return <code>true</code> if the request has no origin and is addressed to the loopback interface,
+     *     <code>false</code> otherwise
+     */
+    private static boolean isLocal(HttpExchange exchange) {
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            return false;
+        }
+
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null) {
+            return false;
+        }
+
+        int portIndex = host.lastIndexOf(':');
+        if (portIndex > host.lastIndexOf(']')) {
+            host = host.substring(0, portIndex);
+        }
+        return LOOPBACK_HOSTS.contains(host.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns a parameter of the request's query string.
+     * @param exchange The request
+     * @param name The name of the parameter
+     * @return the decoded value of the parameter, or null if it is absent
+     */
+    private static String getQueryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+
+        for (String parameter : query.split("&")) {
+            int separatorIndex = parameter.indexOf('=');
+            if (separatorIndex != -1 && parameter.substring(0, separatorIndex).equals(name)) {
+                return URLDecoder.decode(parameter.substring(separatorIndex + 1), StandardCharsets.UTF_8);
+            }
+        }
+
+        return null;
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package mirai.server;
+
+import java.time.LocalDateTime;
+
+import mirai.tasks.Deadline;
+import mirai.tasks.Event;
+import mirai.tasks.Recurring;
+import mirai.tasks.Task;
+
+/**
+ * A utility class to write tasks as JSON, for tools that talk to Mirai through the server.<br><br>
+ *
+ * Every task is written as an object with its 1-based <code>index</code> in the list, its <code>type</code>
+ * (<code>todo</code>, <code>deadline</code>, <code>event</code> or <code>recurring</code>), whether it is
+ * <code>done</code> and its <code>description</code>, followed by the fields of its type. Date-times are written in
+ * the ISO-8601 format, such as <code>2025-01-31T15:59</code>.
+ */
+public class TaskJson {
+    /**
+     * Appends a task as a JSON object.
+     * @param json The JSON being written
+     * @param index The 1-based index of the task in the list
+     * @param task The task
+     */
+    public static void appendTask(StringBuilder json, int index, Task task) {
+        json.append("{\"index\":").append(index).append(",\"type\":");
+
+        if (task instanceof Deadline deadline) {
+            json.append("\"deadline\"");
+            appendCommonFields(json, task);
+            appendField(json, "by", deadline.getDeadline());
+        } else if (task instanceof Event event) {
+            json.append("\"event\"");
+            appendCommonFields(json, task);
+            appendField(json, "from", event.getStartTime());
+            appendField(json, "to", event.getEndTime());
+        } else if (task instanceof Recurring recurring) {
+            json.append("\"recurring\"");
+            appendCommonFields(json, task);
+            appendField(json, "from", recurring.getStart());
+            json.append(",\"every\":\"").append(recurring.getFrequency()).append('"');
+            appendField(json, "until", recurring.getUntil());
+        } else {
+            json.append("\"todo\"");
+            appendCommonFields(json, task);
+        }
+
+        json.append('}');
+    }
+
+    private static void appendCommonFields(StringBuilder json, Task task) {
+        json.append(",\"done\":").append(task.isDone()).append(",\"description\":");
+        appendString(json, task.getDescription());
+    }
+
+    private static void appendField(StringBuilder json, String name, LocalDateTime dateTime) {
+        json.append(",\"").append(name).append("\":");
+        if (dateTime == null) {
+            json.append("null");
+        } else {
+            json.append('"').append(dateTime).append('"');
+        }
+    }
+
+    /**
+     * Appends a string as a JSON string literal, escaping the characters that JSON does not allow as they are.
+     * @param json The JSON being written
+     * @param s The string
+     */
+    public static void appendString(StringBuilder json, String s) {
+        json.append('"');
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '"' -> json.append("\\\"");
+            case '\\' -> json.append("\\\\");
+            case '\n' -> json.append("\\n");
+            case '\r' -> json.append("\\r");
+            case '\t' -> json.append("\\t");
+            default -> {
+                if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            }
+        }
+
+        json.append('"');
+    }
+}
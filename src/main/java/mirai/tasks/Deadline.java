@@ -1,7 +1,9 @@
 package mirai.tasks;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+
+import mirai.utility.DateTime;
 
 /**
  * Encapsulates a task with a deadline.
@@ -19,18 +21,22 @@ public class Deadline extends Task {
         this.deadline = deadline;
     }
 
+    public LocalDateTime getDeadline() {
+        return this.deadline;
+    }
+
     @Override
-    public String toString() {
-        return String.format("[D]%s (by: %s)",
-                super.toString(),
-                this.deadline.format(DateTimeFormatter.ofPattern("MMM dd YYYY, HHmm")));
+    public void writeDisplay(StringBuilder out) {
+        out.append("[D]");
+        super.writeDisplay(out);
+        out.append(" (by: ");
+        DateTime.writeDisplay(out, this.deadline);
+        out.append(')');
     }
 
     @Override
-    public String toNoteForm() {
-        return String.format("D | %d | %s | %s",
-                this.isDone ? 1 : 0,
-                this.description,
-                this.deadline);
+    public void writeNoteForm(Appendable out) throws IOException {
+        out.append("D | ").append(this.isDone ? '1' : '0').append(" | ").append(this.description).append(" | ");
+        DateTime.writeStored(out, this.deadline);
     }
 }
@@ -0,0 +1,54 @@
+package mirai.tasks;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A pool of task descriptions.<br><br>
+ *
+ * Task lists tend to repeat the same descriptions ("standup", "pay rent", ...), so every task stores the canonical
+ * copy handed out by this pool instead of its own String. The pool only holds its descriptions weakly, so a
+ * description is dropped by the garbage collector once no task refers to it anymore, wherever the task ended up.
+ */
+public class DescriptionPool {
+    /** Each canonical description, mapped to a weak reference to itself so that the value does not keep it alive */
+    private static final Map<String, WeakReference<String>> pool = new WeakHashMap<>();
+
+    /**
+     * Returns the canonical copy of a description.
+     * @param description The description
+     * @return the pooled String equal to the description
+     */
+    public static synchronized String acquire(String description) {
+        if (description == null) {
+            return null;
+        }
+
+        WeakReference<String> reference = pool.get(description);
+        String canonical = reference == null ? null : reference.get();
+        if (canonical == null) {
+            pool.put(description, new WeakReference<>(description));
+            canonical = description;
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns the number of distinct descriptions currently held by the pool, including descriptions no longer used
+     * that the garbage collector has not dropped yet.
+     * @return the number of pooled descriptions
+     */
+    public static synchronized int getSize() {
+        return pool.size();
+    }
+
+    /**
+     * Returns whether a description is currently held by the pool.
+     * @param description The description
+     * @return <code>true</code> if the description is pooled, <code>false</code> otherwise
+     */
+    static synchronized boolean contains(String description) {
+        return pool.containsKey(description);
+    }
+}
@@ -1,7 +1,9 @@
 package mirai.tasks;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+
+import mirai.utility.DateTime;
 
 /**
  * Encapsulates a task that starts at a specific date/time and ends at a specific date/time.
@@ -22,21 +24,40 @@ public class Event extends Task {
         this.endTime = endTime;
     }
 
+    public LocalDateTime getStartTime() {
+        return this.startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return this.endTime;
+    }
+
+    /**
+     * Checks if the event overlaps with another event, i.e. one of them starts before the other ends.
+     * @param other The other event
+     * @return <code>true</code> if the events overlap, <code>false</code> otherwise
+     */
+    public boolean overlapsWith(Event other) {
+        return this.startTime.isBefore(other.endTime) && other.startTime.isBefore(this.endTime);
+    }
+
     @Override
-    public String toString() {
-        return String.format("[E]%s (from: %s, to: %s)",
-                super.toString(),
-                this.startTime.format(DateTimeFormatter.ofPattern("MMM dd YYYY, HHmm")),
-                this.endTime.format(DateTimeFormatter.ofPattern("MMM dd YYYY, HHmm")));
+    public void writeDisplay(StringBuilder out) {
+        out.append("[E]");
+        super.writeDisplay(out);
+        out.append(" (from: ");
+        DateTime.writeDisplay(out, this.startTime);
+        out.append(", to: ");
+        DateTime.writeDisplay(out, this.endTime);
+        out.append(')');
     }
 
     @Override
-    public String toNoteForm() {
-        return String.format("E | %d | %s | %s | %s",
-                this.isDone ? 1 : 0,
-                this.description,
-                this.startTime,
-                this.endTime);
+    public void writeNoteForm(Appendable out) throws IOException {
+        out.append("E | ").append(this.isDone ? '1' : '0').append(" | ").append(this.description).append(" | ");
+        DateTime.writeStored(out, this.startTime);
+        out.append(" | ");
+        DateTime.writeStored(out, this.endTime);
     }
 
 }
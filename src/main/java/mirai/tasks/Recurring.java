@@ -0,0 +1,306 @@
+package mirai.tasks;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import mirai.utility.DateTime;
+
+/**
+ * Encapsulates a task that repeats every day or every week.<br><br>
+ *
+ * Only the recurrence rule is stored. Occurrences are generated lazily when a time window is asked for, so a rule
+ * costs the same whether it repeats ten times or ten thousand times. Single occurrences can be cancelled or moved
+ * to another time without affecting the rest of the rule.
+ */
+public class Recurring extends Task {
+    protected LocalDateTime start;
+    protected Frequency frequency;
+    /** The time after which there are no more occurrences, null if the task repeats forever */
+    protected LocalDateTime until;
+    /** The occurrences that were moved, by their scheduled date. A null value means the occurrence is cancelled */
+    protected final Map<LocalDate, LocalDateTime> exceptions;
+
+    /** An enumeration-type describing how often a recurring task repeats */
+    public enum Frequency {
+        DAILY(1, "day"), WEEKLY(7, "week");
+
+        private final int days;
+        private final String unit;
+
+        Frequency(int days, String unit) {
+            this.days = days;
+            this.unit = unit;
+        }
+
+        public String getUnit() {
+            return this.unit;
+        }
+
+        /**
+         * Returns the frequency matching a unit such as <code>day</code> or <code>week</code>.
+         * @param unit The unit
+         * @return the frequency, or null if the unit is not supported
+         */
+        public static Frequency fromUnit(String unit) {
+            for (Frequency frequency : values()) {
+                if (frequency.unit.equalsIgnoreCase(unit)) {
+                    return frequency;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Initialises a recurring task.
+     * @param description The description of the recurring task
+     * @param start The time of the first occurrence
+     * @param frequency How often the task repeats
+     * @param until The time after which the task stops repeating, or null to repeat forever
+     */
+    public Recurring(String description, LocalDateTime start, Frequency frequency, LocalDateTime until) {
+        super(description);
+        this.start = start;
+        this.frequency = frequency;
+        this.until = until;
+        this.exceptions = new TreeMap<>();
+    }
+
+    public LocalDateTime getStart() {
+        return this.start;
+    }
+
+    public Frequency getFrequency() {
+        return this.frequency;
+    }
+
+    public LocalDateTime getUntil() {
+        return this.until;
+    }
+
+    /**
+     * Cancels the occurrence scheduled on a given date.
+     * @param date The date of the occurrence
+     * @return <code>true</code> if an occurrence is scheduled on the date, <code>false</code> otherwise
+     */
+    public boolean cancelOccurrence(LocalDate date) {
+        if (!this.isScheduledOn(date)) {
+            return false;
+        }
+
+        this.exceptions.put(date, null);
+        return true;
+    }
+
+    /**
+     * Moves the occurrence scheduled on a given date to another time.
+     * @param date The date of the occurrence
+     * @param newTime The new time of the occurrence
+     * @return <code>true</code> if an occurrence is scheduled on the date, <code>false</code> otherwise
+     */
+    public boolean rescheduleOccurrence(LocalDate date, LocalDateTime newTime) {
+        if (!this.isScheduledOn(date)) {
+            return false;
+        }
+
+        this.exceptions.put(date, newTime);
+        return true;
+    }
+
+    /**
+     * Returns the occurrences that were cancelled or moved.
+     * @return a copy of the exceptions, mapping each scheduled date to its new time, or to null if cancelled
+     */
+    public Map<LocalDate, LocalDateTime> getExceptions() {
+        return new TreeMap<>(this.exceptions);
+    }
+
+    /**
+     * Replaces the occurrences that were cancelled or moved, e.g. to restore an earlier copy.
+     * @param exceptions The exceptions, mapping each scheduled date to its new time, or to null if cancelled
+     */
+    public void setExceptions(Map<LocalDate, LocalDateTime> exceptions) {
+        this.exceptions.clear();
+        this.exceptions.putAll(exceptions);
+    }
+
+    /**
+     * Checks whether the rule schedules an occurrence on a given date, ignoring cancellations and moves.
+     * @param date The date
+     * @return <code>true</code> if an occurrence is scheduled on the date, <code>false</code> otherwise
+     */
+    private boolean isScheduledOn(LocalDate date) {
+        long days = ChronoUnit.DAYS.between(this.start.toLocalDate(), date);
+        LocalDateTime scheduledTime = date.atTime(this.start.toLocalTime());
+
+        return days >= 0
+                && days % this.frequency.days == 0
+                && (this.until == null || !scheduledTime.isAfter(this.until));
+    }
+
+    /**
+     * Returns the scheduled time of the first occurrence at or after a given time, ignoring cancellations and moves.
+     * @param from The time to search from
+     * @return the scheduled time, or null if the rule has no more occurrences
+     */
+    private LocalDateTime getScheduledTimeFrom(LocalDateTime from) {
+        LocalDateTime scheduledTime = this.start;
+
+        if (from.isAfter(this.start)) {
+            long steps = ChronoUnit.DAYS.between(this.start, from) / this.frequency.days;
+            scheduledTime = this.start.plusDays(steps * this.frequency.days);
+            if (scheduledTime.isBefore(from)) {
+                scheduledTime = scheduledTime.plusDays(this.frequency.days);
+            }
+        }
+
+        return this.until != null && scheduledTime.isAfter(this.until) ? null : scheduledTime;
+    }
+
+    /**
+     * Returns the occurrences within a time window, in chronological order. Occurrences are computed one at a time
+     * as the iterator advances, so no more work is done than the caller asks for.
+     * @param from The start of the window (inclusive)
+     * @param to The end of the window (exclusive)
+     * @return an iterator over the times of the occurrences
+     */
+    public Iterator<LocalDateTime> getOccurrences(LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> movedTimes = new ArrayList<>();
+        for (LocalDateTime movedTime : this.exceptions.values()) {
+            if (movedTime != null && !movedTime.isBefore(from) && movedTime.isBefore(to)) {
+                movedTimes.add(movedTime);
+            }
+        }
+        Collections.sort(movedTimes);
+
+        return new OccurrenceIterator(this.getScheduledTimeFrom(from), to, movedTimes.iterator());
+    }
+
+    /**
+     * Returns the first occurrence at or after a given time.
+     * @param from The time to search from
+     * @return the time of the occurrence, or null if there are no more occurrences
+     */
+    public LocalDateTime getNextOccurrence(LocalDateTime from) {
+        Iterator<LocalDateTime> occurrences = this.getOccurrences(from, LocalDateTime.MAX);
+        return occurrences.hasNext() ? occurrences.next() : null;
+    }
+
+    /**
+     * An iterator merging the scheduled occurrences of the rule with the occurrences that were moved into the
+     * window, skipping every scheduled occurrence that was cancelled or moved away.
+     */
+    private class OccurrenceIterator implements Iterator<LocalDateTime> {
+        private final LocalDateTime to;
+        private final Iterator<LocalDateTime> movedTimes;
+        private LocalDateTime nextScheduledTime;
+        private LocalDateTime nextMovedTime;
+
+        private OccurrenceIterator(LocalDateTime firstScheduledTime, LocalDateTime to,
+                Iterator<LocalDateTime> movedTimes) {
+            this.to = to;
+            this.movedTimes = movedTimes;
+            this.nextScheduledTime = this.skipExceptions(firstScheduledTime);
+            this.nextMovedTime = movedTimes.hasNext() ? movedTimes.next() : null;
+        }
+
+        private LocalDateTime skipExceptions(LocalDateTime scheduledTime) {
+            while (scheduledTime != null && scheduledTime.isBefore(this.to)
+                    && exceptions.containsKey(scheduledTime.toLocalDate())) {
+                scheduledTime = this.advance(scheduledTime);
+            }
+
+            return scheduledTime != null && scheduledTime.isBefore(this.to) ? scheduledTime : null;
+        }
+
+        private LocalDateTime advance(LocalDateTime scheduledTime) {
+            LocalDateTime nextTime = scheduledTime.plusDays(frequency.days);
+            return until != null && nextTime.isAfter(until) ? null : nextTime;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextScheduledTime != null || this.nextMovedTime != null;
+        }
+
+        @Override
+        public LocalDateTime next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            if (this.nextMovedTime != null
+                    && (this.nextScheduledTime == null || this.nextMovedTime.isBefore(this.nextScheduledTime))) {
+                LocalDateTime result = this.nextMovedTime;
+                this.nextMovedTime = this.movedTimes.hasNext() ? this.movedTimes.next() : null;
+                return result;
+            }
+
+            LocalDateTime result = this.nextScheduledTime;
+            this.nextScheduledTime = this.skipExceptions(this.advance(result));
+            return result;
+        }
+    }
+
+    @Override
+    public void writeDisplay(StringBuilder out) {
+        LocalDateTime nextOccurrence = this.getNextOccurrence(LocalDateTime.now());
+
+        out.append("[R]");
+        super.writeDisplay(out);
+        out.append(" (every ").append(this.frequency.unit).append(" from: ");
+        DateTime.writeDisplay(out, this.start);
+        if (this.until != null) {
+            out.append(", until: ");
+            DateTime.writeDisplay(out, this.until);
+        }
+        out.append(", next: ");
+        if (nextOccurrence == null) {
+            out.append("none");
+        } else {
+            DateTime.writeDisplay(out, nextOccurrence);
+        }
+        out.append(')');
+    }
+
+    @Override
+    public void writeNoteForm(Appendable out) throws IOException {
+        out.append("R | ").append(this.isDone ? '1' : '0').append(" | ").append(this.description).append(" | ");
+        DateTime.writeStored(out, this.start);
+        out.append(" | ").append(this.frequency.name()).append(" | ");
+        if (this.until == null) {
+            out.append('-');
+        } else {
+            DateTime.writeStored(out, this.until);
+        }
+        out.append(" | ");
+
+        if (this.exceptions.isEmpty()) {
+            out.append('-');
+            return;
+        }
+
+        boolean isFirst = true;
+        for (Map.Entry<LocalDate, LocalDateTime> exception : this.exceptions.entrySet()) {
+            if (!isFirst) {
+                out.append(',');
+            }
+            isFirst = false;
+
+            DateTime.writeStored(out, exception.getKey());
+            out.append('=');
+            if (exception.getValue() != null) {
+                DateTime.writeStored(out, exception.getValue());
+            }
+        }
+    }
+}
@@ -1,23 +1,56 @@
 package mirai.tasks;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
 import mirai.utility.Utility;
 
 /**
- * Encapsulates a task that can be done or not done.
+ * Encapsulates a task that can be done or not done.<br><br>
+ *
+ * A task is shown to the user with <code>writeDisplay</code> and stored with <code>writeNoteForm</code>, which both
+ * write straight into the text being built. <code>toString</code> and <code>toNoteForm</code> are built on top of
+ * them, for callers that need a string of their own.
  */
 public abstract class Task {
     protected String description;
     protected boolean isDone;
+    /** The time at which the task was marked as done, null if the task is not done */
+    protected LocalDateTime doneTime;
+    /** The identifier naming the task on every replica of the list, null if the list is not replicated */
+    private String id;
 
     /**
      * Initialises a task.
      * @param description The task description
      */
     public Task(String description) {
-        this.description = description;
+        this.description = DescriptionPool.acquire(description);
         this.isDone = false;
     }
 
+    public String getDescription() {
+        return this.description;
+    }
+
+    /**
+     * Returns the identifier naming the task on every replica of the list.
+     * @return the identifier, null if the task has none
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Sets the identifier naming the task on every replica of the list. It never changes once set.
+     * @param id The identifier
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
     /**
      * Returns the status icon of the task.
      * @return <code>X</code> if done, blank if undone
@@ -26,11 +59,36 @@ public abstract class Task {
         return (isDone ? "X" : " ");
     }
 
+    /**
+     * Returns whether the task is done.
+     * @return <code>true</code> if done, <code>false</code> otherwise
+     */
+    public boolean isDone() {
+        return this.isDone;
+    }
+
+    /**
+     * Returns the time at which the task was marked as done.
+     * @return the time the task was done, null if the task is not done
+     */
+    public LocalDateTime getDoneTime() {
+        return this.doneTime;
+    }
+
     /**
      * Marks the task as done.
      */
     public void markAsDone() {
+        this.markAsDone(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Marks the task as done at a specific time.
+     * @param doneTime The time at which the task was done
+     */
+    public void markAsDone(LocalDateTime doneTime) {
         this.isDone = true;
+        this.doneTime = doneTime;
     }
 
     /**
@@ -38,11 +96,22 @@ public abstract class Task {
      */
     public void markAsUndone() {
         this.isDone = false;
+        this.doneTime = null;
     }
 
     @Override
     public String toString() {
-        return String.format("[%s] %s", this.getStatusIcon(), this.description);
+        StringBuilder display = new StringBuilder();
+        this.writeDisplay(display);
+        return display.toString();
+    }
+
+    /**
+     * Appends the task as it is shown to the user. Subclasses add their type and their dates around this.
+     * @param out The text being built
+     */
+    public void writeDisplay(StringBuilder out) {
+        out.append('[').append(this.isDone ? 'X' : ' ').append("] ").append(this.description);
     }
 
     /**
@@ -58,7 +127,23 @@ public abstract class Task {
      * Converts the task into a note form to store in a file.
      * @return A string representation of the task, store-able in a file
      */
-    public abstract String toNoteForm();
+    public String toNoteForm() {
+        StringBuilder noteForm = new StringBuilder();
+        try {
+            this.writeNoteForm(noteForm);
+        } catch (IOException e) {
+            // appending to a StringBuilder never fails
+            throw new UncheckedIOException(e);
+        }
+        return noteForm.toString();
+    }
+
+    /**
+     * Writes the task in its note form, such as <code>T | 1 | read book</code>, to store in a file.
+     * @param out Where the note form is written
+     * @throws IOException if the note form cannot be written
+     */
+    public abstract void writeNoteForm(Appendable out) throws IOException;
 
     /**
      * Computes the closeness of the task's description to the user's keyword.<br>
@@ -1,5 +1,7 @@
 package mirai.tasks;
 
+import java.io.IOException;
+
 /**
  * Encapsulates a task without any date/time attached.
  */
@@ -13,14 +15,13 @@ public class ToDo extends Task {
     }
 
     @Override
-    public String toString() {
-        return String.format("[T]%s", super.toString());
+    public void writeDisplay(StringBuilder out) {
+        out.append("[T]");
+        super.writeDisplay(out);
     }
 
     @Override
-    public String toNoteForm() {
-        return String.format("T | %d | %s",
-                this.isDone ? 1 : 0,
-                this.description);
+    public void writeNoteForm(Appendable out) throws IOException {
+        out.append("T | ").append(this.isDone ? '1' : '0').append(" | ").append(this.description);
     }
 }
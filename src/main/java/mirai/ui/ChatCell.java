@@ -0,0 +1,63 @@
+package mirai.ui;
+
+import javafx.scene.control.Button;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.image.Image;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+
+/**
+ * The ChatCell class shows one message of the conversation as a dialog box. The list view only creates enough cells to
+ * fill the screen and reuses them as the user scrolls, so each cell builds its dialog boxes once and only changes
+ * their text afterwards. A pending message is shown with a spinner and a button to cancel the command.
+ */
+public class ChatCell extends ListCell<ChatMessage> {
+    /** The horizontal space kept free for the scroll bar */
+    private static final double SCROLL_BAR_WIDTH = 14;
+    private static final double SPINNER_SIZE = 20;
+
+    private final DialogBox userDialog;
+    private final DialogBox miraiDialog;
+    private final DialogBox pendingDialog;
+
+    /**
+     * Initialises an empty cell.
+     * @param userImage The user's profile picture
+     * @param miraiImage Mirai's profile picture
+     */
+    public ChatCell(Image userImage, Image miraiImage) {
+        this.userDialog = DialogBox.getUserDialog("", userImage);
+        this.miraiDialog = DialogBox.getMiraiDialog("", miraiImage);
+        this.pendingDialog = DialogBox.getMiraiDialog("", miraiImage);
+
+        ProgressIndicator spinner = new ProgressIndicator();
+        spinner.setPrefSize(SPINNER_SIZE, SPINNER_SIZE);
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(event -> this.getItem().cancel());
+        this.pendingDialog.setGraphic(new HBox(SPINNER_SIZE / 2, spinner, cancelButton));
+
+        // the dialog boxes follow the width of the list, so long messages wrap instead of scrolling sideways
+        for (DialogBox dialogBox : new DialogBox[] {this.userDialog, this.miraiDialog, this.pendingDialog}) {
+            dialogBox.prefWidthProperty().bind(this.widthProperty().subtract(SCROLL_BAR_WIDTH));
+            dialogBox.setMaxWidth(Region.USE_PREF_SIZE);
+        }
+        this.setPrefWidth(0);
+    }
+
+    @Override
+    protected void updateItem(ChatMessage message, boolean isEmpty) {
+        super.updateItem(message, isEmpty);
+
+        if (isEmpty || message == null) {
+            this.setGraphic(null);
+            return;
+        }
+
+        DialogBox dialogBox = message.isPending()
+                ? this.pendingDialog
+                : message.getSender() == ChatMessage.Sender.USER ? this.userDialog : this.miraiDialog;
+        dialogBox.setText(message.getText());
+        this.setGraphic(dialogBox);
+    }
+}
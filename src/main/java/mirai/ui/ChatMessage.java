@@ -0,0 +1,66 @@
+package mirai.ui;
+
+/**
+ * The ChatMessage class encapsulates one message of the conversation shown in the GUI, either from the user or from
+ * Mirai. The whole conversation is kept as these light messages, while dialog boxes are only created for the messages
+ * on screen.<br><br>
+ *
+ * While Mirai works on a command, its reply is stood in for by a pending message, which the user can cancel.
+ */
+public class ChatMessage {
+    /** The side of the conversation a message comes from */
+    public enum Sender {
+        USER, MIRAI
+    }
+
+    private final String text;
+    private final Sender sender;
+    /** The action cancelling the command this message waits for, null if the message is not pending */
+    private final Runnable onCancel;
+
+    /**
+     * Initialises a message.
+     * @param text The text of the message
+     * @param sender Who sent the message
+     */
+    public ChatMessage(String text, Sender sender) {
+        this(text, sender, null);
+    }
+
+    private ChatMessage(String text, Sender sender, Runnable onCancel) {
+        this.text = text;
+        this.sender = sender;
+        this.onCancel = onCancel;
+    }
+
+    /**
+     * Creates a message from Mirai standing in for the reply to a command still being carried out.
+     * @param text The text shown while waiting
+     * @param onCancel The action cancelling the command
+     * @return the pending message
+     */
+    public static ChatMessage pending(String text, Runnable onCancel) {
+        return new ChatMessage(text, Sender.MIRAI, onCancel);
+    }
+
+    public boolean isPending() {
+        return this.onCancel != null;
+    }
+
+    /**
+     * Cancels the command this message waits for, if the message is pending.
+     */
+    public void cancel() {
+        if (this.onCancel != null) {
+            this.onCancel.run();
+        }
+    }
+
+    public String getText() {
+        return this.text;
+    }
+
+    public Sender getSender() {
+        return this.sender;
+    }
+}
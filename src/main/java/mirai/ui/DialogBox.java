@@ -1,22 +1,34 @@
 package mirai.ui;
 
-import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
 
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.HBox;
-import javafx.scene.shape.Circle;
+import javafx.scene.layout.Region;
 
 /**
- * The DialogBox class encapsulates a box of dialog containing the user's image and text message.
+ * The DialogBox class encapsulates a box of dialog containing the user's image and text message.<br><br>
+ *
+ * Dialog boxes are built directly in code rather than loaded from FXML, and share one circular copy of each profile
+ * picture, so showing a message costs no more than creating its few nodes.
  */
 public class DialogBox extends HBox {
-    @FXML
+    private static final double PICTURE_SIZE = 60;
+    /** The circular copy of every profile picture, made on first use. Only used from the JavaFX thread */
+    private static final Map<Image, Image> ROUND_PICTURES = new WeakHashMap<>();
+
     protected Label dialog;
-    @FXML
     protected ImageView displayPicture;
 
     /** An enumeration-type that signals to the DialogBox the source of the message */
@@ -25,28 +37,98 @@ public class DialogBox extends HBox {
     }
 
     protected DialogBox(String text, Image img, Subject subject) {
-        try {
-            String resource = subject == Subject.USER
-                    ? "/view/UserDialogBox.fxml"
-                    : subject == Subject.MIRAI
-                    ? "/view/MiraiDialogBox.fxml"
-                    : "/view/DialogBox.fxml";
-
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource(resource));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
+        dialog = new Label(text);
+        dialog.setWrapText(true);
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        dialog.getStyleClass().add("user-dialog-box-text");
+
+        displayPicture = new ImageView();
+        showRoundPicture(img);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setPreserveRatio(true);
+        displayPicture.setPickOnBounds(true);
+
+        // the user's messages are on the right, with the picture after the text, and Mirai's are on the left
+        if (subject == Subject.USER) {
+            this.setAlignment(Pos.TOP_RIGHT);
+            this.getChildren().addAll(dialog, displayPicture);
+        } else {
+            this.setAlignment(Pos.TOP_LEFT);
+            this.getChildren().addAll(displayPicture, dialog);
         }
 
-        dialog.setText(text);
-        dialog.getStyleClass().add("user-dialog-box-text");
+        this.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        this.setPrefWidth(400);
+        this.setPadding(new Insets(15, 5, 15, 5));
+    }
+
+    /**
+     * Shows the circular copy of a picture, waiting for the picture to finish loading in the background if needed.
+     * @param picture The picture
+     */
+    private void showRoundPicture(Image picture) {
+        if (picture.getProgress() >= 1) {
+            displayPicture.setImage(ROUND_PICTURES.computeIfAbsent(picture, DialogBox::toRoundPicture));
+            return;
+        }
+
+        picture.progressProperty().addListener(new ChangeListener<>() {
+            @Override
+            public void changed(ObservableValue<? extends Number> progress, Number oldValue, Number newValue) {
+                if (newValue.doubleValue() >= 1) {
+                    progress.removeListener(this);
+                    showRoundPicture(picture);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a copy of a picture with everything outside the largest centred circle made transparent, so the
+     * picture is shown round without clipping every image view that shows it.
+     * @param picture The picture, which must be fully loaded
+     * @return the round picture, or the picture itself if its pixels cannot be read
+     */
+    private static Image toRoundPicture(Image picture) {
+        PixelReader reader = picture.getPixelReader();
+        int width = (int) picture.getWidth();
+        int height = (int) picture.getHeight();
+        if (reader == null || width == 0 || height == 0) {
+            return picture;
+        }
+
+        double radius = Math.min(width, height) / 2.0;
+        WritableImage roundPicture = new WritableImage(width, height);
+        PixelWriter writer = roundPicture.getPixelWriter();
+
+        for (int y = 0; y < height; y++) {
+            double dy = y + 0.5 - height / 2.0;
+            for (int x = 0; x < width; x++) {
+                double dx = x + 0.5 - width / 2.0;
+                if (dx * dx + dy * dy <= radius * radius) {
+                    writer.setArgb(x, y, reader.getArgb(x, y));
+                }
+            }
+        }
+
+        return roundPicture;
+    }
 
-        displayPicture.setImage(img);
+    /**
+     * Changes the message shown, so that the dialog box can be reused for another message of the same subject.
+     * @param text The new message
+     */
+    public void setText(String text) {
+        dialog.setText(text);
+    }
 
-        // make the profile image circular
-        displayPicture.setClip(new Circle(30, 30, 30));
+    /**
+     * Shows a node, such as a progress indicator, next to the message.
+     * @param graphic The node, or null to show the message alone
+     */
+    public void setGraphic(Node graphic) {
+        dialog.setGraphic(graphic);
     }
 
     /**
@@ -0,0 +1,107 @@
+package mirai.ui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import mirai.utility.LatencyRecorder;
+
+/**
+ * The Headless class runs the Mirai chatbot without a GUI, for scripts, bulk imports and machines with no display.
+ * <br><br>
+ *
+ * Commands are read one per line from a script file, or from the standard input if no script is given, and Mirai's
+ * responses are written to the standard output. Blank lines and lines starting with <code>#</code> are skipped, and
+ * <code>bye</code> stops the run. When the run ends, the throughput and the latency percentiles are reported on the
+ * standard error, so they never mix with the responses.<br><br>
+ *
+ * Usage: <code>java -cp mirai.jar mirai.ui.Headless [--data storage-file] [script-file]</code>
+ */
+public class Headless {
+    private static final String DEFAULT_FILE_PATH = "./data/mirai.txt";
+
+    private final Mirai mirai;
+    private final LatencyRecorder latencies;
+    /** The wall-clock time of the run, including reading the input and writing the responses */
+    private long elapsedTime;
+    private boolean isExiting;
+
+    /**
+     * Initialises a headless run of the chatbot.
+     * @param mirai The chatbot
+     */
+    public Headless(Mirai mirai) {
+        this.mirai = mirai;
+        this.latencies = new LatencyRecorder();
+        this.mirai.setOnExit(() -> this.isExiting = true);
+    }
+
+    /**
+     * Starts the chatbot without a GUI.
+     * @param args The optional <code>--data [storage file]</code> option, followed by the optional script file
+     * @throws IOException if the script cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        String filePath = DEFAULT_FILE_PATH;
+        String scriptPath = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--data") && i + 1 < args.length) {
+                filePath = args[++i];
+            } else {
+                scriptPath = args[i];
+            }
+        }
+
+        Headless headless = new Headless(new Mirai(filePath));
+
+        try (BufferedReader input = scriptPath == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(scriptPath), StandardCharsets.UTF_8)) {
+            PrintWriter output = new PrintWriter(System.out, false, StandardCharsets.UTF_8);
+            headless.run(input, output);
+            output.flush();
+        }
+
+        headless.report(System.err);
+    }
+
+    /**
+     * Runs every command from the input until the input ends or the user says <code>bye</code>.
+     * @param input The commands, one per line
+     * @param output Where Mirai's responses are written
+     * @throws IOException if the input cannot be read
+     */
+    public void run(BufferedReader input, PrintWriter output) throws IOException {
+        long runStart = System.nanoTime();
+        String line;
+
+        while (!this.isExiting && (line = input.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            String response = this.mirai.getResponse(line);
+            this.latencies.record(System.nanoTime() - start);
+
+            output.println(response);
+            output.println();
+        }
+
+        this.elapsedTime += System.nanoTime() - runStart;
+    }
+
+    /**
+     * Reports the number of commands run, the throughput and the latency percentiles.
+     * @param out Where the report is written
+     */
+    public void report(PrintStream out) {
+        this.latencies.report(out, "commands", this.elapsedTime);
+    }
+}
@@ -2,17 +2,23 @@ package mirai.ui;
 
 import java.io.IOException;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 /**
  * The Main class encapsulates a JavaFX application, in this case the Mirai chatbot application.
  */
 public class Main extends Application {
-    private Mirai mirai = new Mirai("./data/mirai.txt");
+    private static final String FILE_PATH = "./data/mirai.txt";
+    /** Whether to close once started, to record the classes needed at startup in an AppCDS archive */
+    private static final boolean IS_EXITING_AFTER_STARTUP = Boolean.getBoolean("mirai.exitAfterStartup");
 
     /**
      * Starts the application.
@@ -28,8 +34,22 @@ public class Main extends Application {
             stage.setScene(scene);
             stage.setTitle("Mirai");
             stage.setResizable(false);
-            fxmlLoader.<MainWindow>getController().setMirai(mirai); // inject the Mirai instance
             stage.show();
+
+            // the tasks are loaded after the window is shown, so a long list does not delay the first frame
+            Task<Mirai> loading = fxmlLoader.<MainWindow>getController().loadMirai(FILE_PATH, () -> {
+                // commands run in the background, so the window is closed from the JavaFX thread
+                Platform.runLater(() -> {
+                    // leave the goodbye message on screen for 2 seconds before closing
+                    PauseTransition delayClosure = new PauseTransition(Duration.seconds(2));
+                    delayClosure.setOnFinished(event -> Platform.exit());
+                    delayClosure.play();
+                });
+            });
+
+            if (IS_EXITING_AFTER_STARTUP) {
+                loading.setOnSucceeded(event -> Platform.exit());
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
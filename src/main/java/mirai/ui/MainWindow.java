@@ -1,64 +1,152 @@
 package mirai.ui;
 
+import java.time.Clock;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
 import mirai.utility.Message;
+import mirai.utility.ReminderScheduler;
 
 /**
- * Controller for the main GUI.
+ * Controller for the main GUI.<br><br>
+ *
+ * Commands are carried out one after another on a background thread, so the window stays responsive while Mirai
+ * searches or saves. Each reply takes the place of a pending message, so replies always appear in the order the
+ * commands were sent.<br><br>
+ *
+ * Mirai also posts reminders of upcoming deadlines and events to the conversation on its own, as they fall due.
  */
 public class MainWindow extends AnchorPane {
     @FXML
-    private ScrollPane scrollPane;
+    private ListView<ChatMessage> transcript;
     @FXML
-    private VBox dialogContainer;
+    private TaskTable taskTable;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
 
+    /** The chatbot, only used from the command thread, which also loads it */
     private Mirai mirai;
+    /** The whole conversation, of which only the messages on screen are shown as dialog boxes */
+    private final ObservableList<ChatMessage> messages = FXCollections.observableArrayList();
+    /** The thread carrying out the commands, in the order they were sent */
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mirai-commands");
+        thread.setDaemon(true);
+        return thread;
+    });
 
+    /** The reminders of the tasks in the current list, shown as messages from Mirai */
+    private final ReminderScheduler reminders = new ReminderScheduler(ReminderScheduler.DEFAULT_LEAD_TIMES,
+            Clock.systemDefaultZone(), reminder -> Platform.runLater(() -> showReminder(reminder)));
+
+    // the pictures load in the background, so the window does not wait for them
     private Image userImage = new Image(
-            Objects.requireNonNull(this.getClass().getResourceAsStream("/images/DaUser.png")));
+            Objects.requireNonNull(this.getClass().getResource("/images/DaUser.png")).toExternalForm(), true);
     private Image miraiImage = new Image(
-            Objects.requireNonNull(this.getClass().getResourceAsStream("/images/DaDuke.png")));
+            Objects.requireNonNull(this.getClass().getResource("/images/DaDuke.png")).toExternalForm(), true);
 
     /** Initialize the chatbot interface. */
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
-        dialogContainer.getChildren().add(
-                DialogBox.getMiraiDialog(Message.GREETING, miraiImage)
-        );
+        transcript.setItems(messages);
+        transcript.setCellFactory(listView -> new ChatCell(userImage, miraiImage));
+        messages.add(new ChatMessage(Message.GREETING, ChatMessage.Sender.MIRAI));
 
-        dialogContainer.getStyleClass().add("dialog-container");
+        transcript.getStyleClass().add("dialog-container");
     }
 
-    /** Injects the Mirai instance */
-    public void setMirai(Mirai m) {
-        this.mirai = m;
+    /**
+     * Loads the chatbot in the background, so the window can be shown before the tasks are read. Commands sent in the
+     * meantime wait, in order, until the chatbot is ready.
+     * @param filePath The path of the file storing the list of tasks
+     * @param onExit The action to run when the user ends the conversation with <code>bye</code>
+     * @return the loading, which succeeds once the chatbot is ready
+     */
+    public Task<Mirai> loadMirai(String filePath, Runnable onExit) {
+        Task<Mirai> loading = new Task<>() {
+            @Override
+            protected Mirai call() {
+                mirai = new Mirai(filePath);
+                mirai.setOnExit(onExit);
+                mirai.addListener(taskTable);
+                mirai.addListener(reminders);
+                return mirai;
+            }
+        };
+
+        // the command thread runs the loading first, so no command can run before it
+        commandExecutor.submit(loading);
+        return loading;
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Mirai's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Adds the user's input and a pending reply to the transcript, then carries out the command in the background.
+     * The pending reply is replaced by Mirai's response once it is ready. Clears the user input after processing.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = mirai.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getMiraiDialog(response, miraiImage)
-        );
+        // the command is never interrupted, as that could cut a write to the storage file short
+        AtomicBoolean isCancelRequested = new AtomicBoolean();
+        Task<String> command = new Task<>() {
+            @Override
+            protected String call() {
+                if (isCancelRequested.get()) {
+                    return Message.CANCELLED;
+                }
+                return mirai.getResponse(input, isCancelRequested::get);
+            }
+        };
+        ChatMessage pendingReply = ChatMessage.pending(Message.WORKING, () -> isCancelRequested.set(true));
+
+        command.setOnSucceeded(event -> showReply(pendingReply, command.getValue()));
+        command.setOnFailed(event -> showReply(pendingReply, Message.ERROR + command.getException().getMessage()));
+
+        messages.addAll(new ChatMessage(input, ChatMessage.Sender.USER), pendingReply);
+        transcript.scrollTo(messages.size() - 1);
         userInput.clear();
+
+        commandExecutor.submit(command);
+    }
+
+    /**
+     * Replaces a pending reply with Mirai's response.
+     * @param pendingReply The pending reply
+     * @param response Mirai's response
+     */
+    private void showReply(ChatMessage pendingReply, String response) {
+        // pending replies are near the end of the transcript, so search from there
+        int index = messages.lastIndexOf(pendingReply);
+        if (index == -1) {
+            return;
+        }
+
+        messages.set(index, new ChatMessage(response, ChatMessage.Sender.MIRAI));
+        if (index == messages.size() - 1) {
+            transcript.scrollTo(index);
+        }
+    }
+
+    /**
+     * Adds a reminder to the end of the transcript and scrolls to it.
+     * @param reminder The reminder
+     */
+    private void showReminder(String reminder) {
+        messages.add(new ChatMessage(reminder, ChatMessage.Sender.MIRAI));
+        transcript.scrollTo(messages.size() - 1);
     }
 }
@@ -1,40 +1,446 @@
 package mirai.ui;
 
-import mirai.utility.Command;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import mirai.utility.ListRegistry;
+import mirai.utility.Message;
+import mirai.utility.Metrics;
+import mirai.utility.MiraiException;
+import mirai.utility.NamedList;
+import mirai.utility.ParsedCommand;
 import mirai.utility.Parser;
+import mirai.utility.Replicator;
 import mirai.utility.Storage;
 import mirai.utility.TaskList;
+import mirai.utility.TaskListListener;
 
 /**
- * The Mirai class encapsulates a chatbot named Mirai.
+ * The Mirai class encapsulates a chatbot named Mirai.<br><br>
+ *
+ * A chatbot can be shared by several threads, such as the request handlers of a server. Commands are carried out
+ * one at a time, while read-only queries may run side by side.<br><br>
+ *
+ * The user can keep several named lists, each in a file of its own, and switch between them with <code>use</code>.
+ * All other commands apply to the current list, and only ever save to that list's file.<br><br>
+ *
+ * Changes that other programs make to the files, such as a tool syncing them, are read back within moments, and
+ * always before the next command is carried out.<br><br>
+ *
+ * The main list can also be kept in step with another Mirai, which is sent every change made here and sends back
+ * every change made there.
  */
 public class Mirai {
-    private final Storage storage;
-    private TaskList tasks;
+    /** How long a task stays done before it is archived, configurable with <code>-Dmirai.archiveAfterDays</code> */
+    public static final Duration DEFAULT_ARCHIVE_AGE = Duration.ofDays(Long.getLong("mirai.archiveAfterDays", 30));
+    /** The character separating the commands of a line that runs several commands at once */
+    public static final char COMMAND_SEPARATOR = ';';
+    /** The file the metrics are dumped to, configurable with <code>-Dmirai.metricsFile</code>, null if not dumped */
+    public static final String METRICS_FILE = System.getProperty("mirai.metricsFile");
+    /** How often the metrics are dumped, configurable with <code>-Dmirai.metricsIntervalSeconds</code> */
+    public static final Duration METRICS_INTERVAL =
+            Duration.ofSeconds(Long.getLong("mirai.metricsIntervalSeconds", 60));
+    /** Whether to follow changes other programs make to the lists' files, turned off with -Dmirai.watchFiles=false */
+    public static final boolean IS_WATCHING_FILES = !"false".equals(System.getProperty("mirai.watchFiles"));
+    /** How long to let a burst of changes to a file settle before reading them */
+    public static final Duration WATCH_DEBOUNCE = Duration.ofMillis(100);
+    /** The port to accept another Mirai's changes on, set with <code>-Dmirai.replicationPort</code>, null if none */
+    public static final Integer REPLICATION_PORT = Integer.getInteger("mirai.replicationPort");
+    /** The other Mirai to send changes to, set with <code>-Dmirai.replicationPeer=host:port</code>, null if none */
+    public static final String REPLICATION_PEER = System.getProperty("mirai.replicationPeer");
+
+    private final ListRegistry lists;
+    private final NamedList mainList;
+    /** The replicator keeping the main list in step with another Mirai, null until replication is started */
+    private volatile Replicator replicator;
+    /** The listeners following the current list, moved to the new list when the user switches lists */
+    private final List<TaskListListener> listeners;
     private final Parser parser;
+    private final ReadWriteLock lock;
+    private final Metrics metrics;
 
     /**
      * Initialises the chatbot.
      * @param filePath The path of the file to store the list of tasks. If the file does not exist, silently create one.
      */
     public Mirai(String filePath) {
-        this.storage = new Storage(filePath);
-        this.parser = new Parser();
+        this(filePath, DEFAULT_ARCHIVE_AGE);
+    }
+
+    /**
+     * Initialises the chatbot, archiving tasks that have been done for longer than a given age. The main list is
+     * loaded before this returns, while the other named lists keep loading in the background.
+     * @param filePath The path of the file to store the main list of tasks. If the file does not exist, silently
+     *     create one. Other lists are stored in the <code>lists</code> folder next to it.
+     * @param archiveAge How long a task has to be done before it is moved to the archive
+     */
+    public Mirai(String filePath, Duration archiveAge) {
+        this.metrics = new Metrics();
+        this.lists = new ListRegistry(filePath, this.metrics, archiveAge);
+        this.listeners = new ArrayList<>();
+        this.parser = new Parser(this.metrics);
+        this.lock = new ReentrantReadWriteLock();
+
+        if (METRICS_FILE != null) {
+            this.metrics.startDumping(Path.of(METRICS_FILE), METRICS_INTERVAL);
+        }
+
+        this.mainList = this.lists.getCurrent();
+        this.mainList.getTasks();
+        if (IS_WATCHING_FILES) {
+            this.lists.watch(WATCH_DEBOUNCE, this::catchUp);
+        }
 
         try {
-            this.tasks = new TaskList(storage.load());
-        } catch (Exception e) {
-            this.tasks = new TaskList();
+            if (REPLICATION_PORT != null) {
+                this.listenForReplicas(REPLICATION_PORT);
+            }
+            if (REPLICATION_PEER != null) {
+                int separatorIndex = REPLICATION_PEER.lastIndexOf(':');
+                this.replicateTo(REPLICATION_PEER.substring(0, separatorIndex),
+                        Integer.parseInt(REPLICATION_PEER.substring(separatorIndex + 1)));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Mirai could not start replicating the main list: " + e);
         }
     }
 
     /**
-     * Gets a response from Mirai based on the user's text message.
-     * @param commandLine The user's command
+     * Starts accepting the changes another Mirai makes to its main list, and applying them to the main list here.
+     * @param port The port to listen on, on the loopback interface, or 0 for any free port
+     * @return the port listened on
+     * @throws IOException if the port cannot be listened on, or the replication state cannot be read
+     */
+    public int listenForReplicas(int port) throws IOException {
+        return this.getReplicator().listen(port);
+    }
+
+    /**
+     * Starts sending the changes made to the main list to another Mirai, which must be listening for them.
+     * @param host The host of the other Mirai
+     * @param port The port the other Mirai listens on
+     * @throws IOException if the replication state cannot be read
+     */
+    public void replicateTo(String host, int port) throws IOException {
+        this.getReplicator().replicateTo(host, port);
+    }
+
+    /**
+     * Stops replicating the main list, if it was replicated.
+     * @throws IOException if the replication log cannot be closed
+     */
+    public synchronized void stopReplication() throws IOException {
+        if (this.replicator != null) {
+            this.replicator.close();
+            this.replicator = null;
+        }
+    }
+
+    private synchronized Replicator getReplicator() throws IOException {
+        if (this.replicator == null) {
+            this.replicator = new Replicator(this.mainList, this.lock.writeLock());
+        }
+        return this.replicator;
+    }
+
+    /**
+     * Lets the replicator, if any, send the changes made while the lists were locked. This has to be called while
+     * they are still locked.
+     */
+    private void flushReplicationLog() {
+        Replicator replicator = this.replicator;
+        if (replicator != null) {
+            replicator.flushLog();
+        }
+    }
+
+    /**
+     * Drops the changes the replicator, if any, has not sent yet, as they were not saved. This has to be called
+     * while the lists are still locked.
+     */
+    private void discardReplicationLog() {
+        Replicator replicator = this.replicator;
+        if (replicator != null) {
+            replicator.discardLog();
+        }
+    }
+
+    /**
+     * Brings a list up to date with the changes other programs made to its file, waiting for any command in
+     * progress to finish first.
+     * @param list The list
+     */
+    private void catchUp(NamedList list) {
+        this.lock.writeLock().lock();
+        try {
+            list.catchUp();
+            this.flushReplicationLog();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the action to run when the user ends the conversation with <code>bye</code>.
+     * @param onExit The action
+     */
+    public void setOnExit(Runnable onExit) {
+        this.parser.setOnExit(onExit);
+    }
+
+    /**
+     * Gets a response from Mirai based on the user's text message. A message may hold several commands separated by
+     * <code>;</code>, which are carried out as a whole: if any of them fails, none of them take effect.
+     * @param commandLine The user's command, or commands
      * @return Mirai's response
      */
     public String getResponse(String commandLine) {
-        Command command = this.parser.parse(commandLine);
-        return command.execute(commandLine.split("\\s+"), this.tasks, this.storage);
+        return this.getResponse(commandLine, () -> false);
+    }
+
+    /**
+     * Gets a response from Mirai based on the user's text message, letting the user cancel a long search. Only
+     * searches stop when cancellation is requested, so commands changing the list always finish.
+     * @param commandLine The user's command, or commands
+     * @param isCancelRequested Whether the user has cancelled the command
+     * @return Mirai's response
+     */
+    public String getResponse(String commandLine, BooleanSupplier isCancelRequested) {
+        return TaskList.runCancellable(isCancelRequested, () -> this.respond(commandLine));
+    }
+
+    private String respond(String commandLine) {
+        this.lock.writeLock().lock();
+        try {
+            if (IS_WATCHING_FILES) {
+                // a change may not have been reported yet, and commands must see it to refer to the right tasks
+                this.lists.getCurrent().catchUp();
+                // the changes caught up on are sent even if the command's own changes are dropped
+                this.flushReplicationLog();
+            }
+
+            if (commandLine.indexOf(COMMAND_SEPARATOR) != -1) {
+                return this.runAll(commandLine.split(String.valueOf(COMMAND_SEPARATOR)));
+            }
+
+            return this.execute(commandLine, false);
+        } catch (MiraiException e) {
+            return e.getMessage();
+        } catch (CancellationException e) {
+            return Message.CANCELLED;
+        } finally {
+            NamedList list = this.lists.getCurrent();
+            if (list.getStorage().isReloadNeeded()) {
+                if (list == this.mainList && list.getStorage().isRewriteRefused()) {
+                    // the command's changes were not saved, so they must not reach the other replica either
+                    this.discardReplicationLog();
+                }
+                // a refused rewrite leaves the list ahead of its file, so the file's content is taken back
+                list.catchUp();
+            }
+            this.flushReplicationLog();
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the keywords of the commands in a user's text message, split as <code>getResponse</code> splits them.
+     * @param commandLine The user's command, or commands
+     * @return the keyword of each command, in order
+     */
+    public static List<String> getKeywords(String commandLine) {
+        List<String> keywords = new ArrayList<>();
+        for (String command : commandLine.split(String.valueOf(COMMAND_SEPARATOR))) {
+            if (!command.isBlank()) {
+                keywords.add(ParsedCommand.of(command).getKeyword());
+            }
+        }
+        return keywords;
+    }
+
+    /**
+     * Starts notifying a listener of every change to the current list of tasks. The listener is first shown the
+     * tasks of the current list, and again whenever the user switches lists. The listener is called on the thread
+     * carrying out each command, while the list is locked.
+     * @param listener The listener
+     */
+    public void addListener(TaskListListener listener) {
+        this.lock.writeLock().lock();
+        try {
+            TaskList tasks = this.lists.getCurrent().getTasks();
+            listener.tasksReset(tasks.getTaskList());
+            tasks.addListener(listener);
+            this.listeners.add(listener);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the list of tasks without changing it, e.g. to present the tasks in another format. Queries do not
+     * block each other, but wait for any command in progress to finish.
+     * @param query The query, which must not change the list or the tasks in it
+     * @param <T> The type of the query result
+     * @return the query result
+     */
+    public <T> T query(Function<TaskList, T> query) {
+        this.lock.readLock().lock();
+        try {
+            return query.apply(this.lists.getCurrent().getTasks());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Carries out a single command on the current list. Switching lists is only allowed outside a transaction, since
+     * a transaction covers a single list.
+     * @param commandLine The user's command
+     * @param isInTransaction Whether the command is part of a transaction
+     * @return Mirai's response
+     * @throws MiraiException if the command cannot be carried out
+     */
+    private String execute(String commandLine, boolean isInTransaction) throws MiraiException {
+        ParsedCommand command = ParsedCommand.of(commandLine);
+
+        switch (command.getKeyword()) {
+        case "use" -> {
+            if (isInTransaction) {
+                throw new MiraiException(Message.ERROR + "Mirai cannot switch lists in the middle of a message...\n"
+                        + "Please send 'use' on its own.");
+            }
+            return this.timed(command, () -> this.useList(command.getArgument()));
+        }
+        case "lists" -> {
+            return this.timed(command, this::describeLists);
+        }
+        case "findall" -> {
+            return this.timed(command, () -> this.lists.findAll(command.getArgument()));
+        }
+        default -> {
+            NamedList list = this.lists.getCurrent();
+            return this.parser.parse(command).execute(command, list.getTasks(), list.getStorage());
+        }
+        }
+    }
+
+    /**
+     * The ListCommand interface encapsulates a command that works across lists rather than on the current list.
+     */
+    private interface ListCommand {
+        String execute() throws MiraiException;
+    }
+
+    /**
+     * Carries out a command across lists, recording how long it takes in the metrics, as the parser does for the
+     * other commands.
+     * @param command The user's parsed command
+     * @param listCommand The command
+     * @return Mirai's response
+     * @throws MiraiException if the command cannot be carried out
+     */
+    private String timed(ParsedCommand command, ListCommand listCommand) throws MiraiException {
+        long start = System.nanoTime();
+        try {
+            return listCommand.execute();
+        } finally {
+            this.metrics.recordCommand(command.getKeyword(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Makes the following commands apply to another list, and moves the listeners to that list.
+     * @param name The name of the list
+     * @return a message telling the user which list is now used
+     * @throws MiraiException if the name is not a valid list name
+     */
+    private String useList(String name) throws MiraiException {
+        if (name.isEmpty()) {
+            throw new MiraiException(Message.ERROR + "Mirai does not know which list to use...\n"
+                    + "Please give the name of the list, such as use work");
+        }
+
+        TaskList oldTasks = this.lists.getCurrent().getTasks();
+        TaskList newTasks = this.lists.use(name).getTasks();
+
+        if (newTasks != oldTasks) {
+            for (TaskListListener listener : this.listeners) {
+                oldTasks.removeListener(listener);
+                listener.tasksReset(newTasks.getTaskList());
+                newTasks.addListener(listener);
+            }
+        }
+
+        return "Now using the list '" + name + "'.\n" + Message.getNumOfTasks(newTasks.getSize());
+    }
+
+    private String describeLists() {
+        StringBuilder message = new StringBuilder("Here are your lists:\n");
+        NamedList current = this.lists.getCurrent();
+
+        for (NamedList list : this.lists.getLists()) {
+            message.append(list == current ? "* " : "  ").append(list.getName()).append(" (")
+                    .append(list.getTasks().getSize()).append(" tasks)\n");
+        }
+
+        return message.append("Commands apply to the list marked with *.").toString();
+    }
+
+    /**
+     * Carries out several commands in one transaction on the current list. The changes are saved with a single write
+     * to the storage once all commands succeed, and reverted as soon as one fails.
+     * @param commandLines The user's commands, in order
+     * @return Mirai's responses to all commands, or the reason the commands were reverted
+     */
+    private String runAll(String[] commandLines) {
+        StringBuilder response = new StringBuilder();
+        boolean isCommitted = false;
+        int commandNumber = 0;
+
+        TaskList tasks = this.lists.getCurrent().getTasks();
+        Storage storage = this.lists.getCurrent().getStorage();
+        tasks.beginTransaction();
+        storage.beginBatch();
+
+        try {
+            for (String commandLine : commandLines) {
+                if (commandLine.isBlank()) {
+                    continue;
+                }
+
+                commandNumber++;
+                if (response.length() > 0) {
+                    response.append("\n\n");
+                }
+                response.append(this.execute(commandLine, true));
+            }
+
+            if (!storage.commitBatch(tasks)) {
+                return Message.FILE_CHANGED;
+            }
+            tasks.commitTransaction();
+            isCommitted = true;
+
+            return response.toString();
+        } catch (MiraiException e) {
+            return e.getMessage() + "\n\n"
+                    + "Mirai stopped at command " + commandNumber + " of your message, "
+                    + "so none of the changes from your message were kept.";
+        } finally {
+            if (!isCommitted) {
+                tasks.rollbackTransaction();
+            }
+            if (storage.isBatchOpen()) {
+                storage.rollbackBatch();
+            }
+        }
     }
 }
@@ -0,0 +1,92 @@
+package mirai.ui;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import mirai.tasks.Deadline;
+import mirai.tasks.Event;
+import mirai.tasks.Recurring;
+import mirai.tasks.Task;
+import mirai.utility.DateTime;
+
+/**
+ * The TaskRow class holds what the task table shows about a task, taken when the task last changed. The keys the
+ * table sorts by are worked out once here, so sorting never looks into the tasks themselves, which may be changing
+ * on another thread. The text of the time is only formatted when the row is first shown.
+ */
+public class TaskRow {
+    private final String type;
+    private final boolean isDone;
+    private final String description;
+    private final String descriptionKey;
+    /** The time the task is due or starts, null for to-dos and recurring tasks with no occurrences left */
+    private final LocalDateTime time;
+    /** The time the task ends, null unless the task is an event */
+    private final LocalDateTime endTime;
+    private String timeText;
+
+    /**
+     * Takes the row of a task as the task is now.
+     * @param task The task
+     */
+    public TaskRow(Task task) {
+        this.isDone = task.isDone();
+        this.description = task.getDescription();
+        this.descriptionKey = this.description.toLowerCase(Locale.ROOT);
+
+        if (task instanceof Deadline deadline) {
+            this.type = "D";
+            this.time = deadline.getDeadline();
+            this.endTime = null;
+        } else if (task instanceof Event event) {
+            this.type = "E";
+            this.time = event.getStartTime();
+            this.endTime = event.getEndTime();
+        } else if (task instanceof Recurring recurring) {
+            this.type = "R";
+            this.time = recurring.getNextOccurrence(LocalDateTime.now());
+            this.endTime = null;
+        } else {
+            this.type = "T";
+            this.time = null;
+            this.endTime = null;
+        }
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public boolean isDone() {
+        return this.isDone;
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    public String getDescriptionKey() {
+        return this.descriptionKey;
+    }
+
+    public LocalDateTime getTime() {
+        return this.time;
+    }
+
+    /**
+     * Returns the time of the task as shown to the user, formatting it on first use.
+     * @return the time, or an empty string if the task has none
+     */
+    public String getTimeText() {
+        if (this.timeText == null) {
+            if (this.time == null) {
+                this.timeText = "";
+            } else if (this.endTime == null) {
+                this.timeText = DateTime.format(this.time);
+            } else {
+                this.timeText = DateTime.format(this.time) + " to " + DateTime.format(this.endTime);
+            }
+        }
+        return this.timeText;
+    }
+}
@@ -0,0 +1,179 @@
+package mirai.ui;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import mirai.tasks.Task;
+import mirai.utility.TaskListListener;
+
+/**
+ * The TaskTable class shows the list of tasks as a table that stays up to date while commands change the list.<br><br>
+ *
+ * The table listens to the task list and applies each change to its rows, so only the rows that changed are updated,
+ * and only the rows on screen are ever drawn. Rows are made on the thread changing the list, while the tasks cannot
+ * change, then queued for the JavaFX thread, which applies every change queued so far in one go and in the order they
+ * were made. Tasks added one after another, e.g. by an import, are added to the rows all at once.<br><br>
+ *
+ * Columns can be sorted by clicking their headers, which sorts the rows by keys worked out when each row was made.
+ * The numbers in the first column are always the positions of the tasks in the list, as used by commands such as
+ * <code>mark</code>.
+ */
+public class TaskTable extends TableView<TaskRow> implements TaskListListener {
+    private static final double ROW_HEIGHT = 24;
+
+    /** The rows in the order of the task list, only changed on the JavaFX thread */
+    private final ObservableList<TaskRow> rows = FXCollections.observableArrayList();
+    private final SortedList<TaskRow> sortedRows = new SortedList<>(this.rows);
+    /** The changes waiting for the JavaFX thread, which is asked to apply them when the first one is queued */
+    private List<Runnable> pendingChanges = new ArrayList<>();
+    /** The rows of the last queued change if it adds rows, which later rows added right after them join */
+    private List<TaskRow> pendingAddedRows;
+    private int pendingAddIndex;
+
+    /**
+     * Initialises an empty table.
+     */
+    public TaskTable() {
+        this.sortedRows.comparatorProperty().bind(this.comparatorProperty());
+        this.setItems(this.sortedRows);
+        this.setPlaceholder(new Label("No tasks yet"));
+        this.setFixedCellSize(ROW_HEIGHT);
+        this.setColumnResizePolicy(CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<TaskRow, TaskRow> number = createColumn("#", 50, null, null);
+        number.setSortable(false);
+        number.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(TaskRow row, boolean isEmpty) {
+                super.updateItem(row, isEmpty);
+                this.setText(isEmpty || row == null
+                        ? null
+                        : String.valueOf(TaskTable.this.sortedRows.getSourceIndex(this.getIndex()) + 1));
+            }
+        });
+
+        Comparator<LocalDateTime> byTime = Comparator.nullsLast(Comparator.naturalOrder());
+        this.getColumns().add(number);
+        this.getColumns().add(createColumn("Type", 50, TaskRow::getType, Comparator.comparing(TaskRow::getType)));
+        this.getColumns().add(createColumn("Done", 50, row -> row.isDone() ? "X" : "",
+                Comparator.comparing(TaskRow::isDone)));
+        this.getColumns().add(createColumn("Description", 200, TaskRow::getDescription,
+                Comparator.comparing(TaskRow::getDescriptionKey)));
+        this.getColumns().add(createColumn("When", 150, TaskRow::getTimeText,
+                Comparator.comparing(TaskRow::getTime, byTime)));
+    }
+
+    /**
+     * Creates a column showing some text of each row, and sorting the rows in a given order.
+     * @param title The title of the column
+     * @param width The preferred width of the column
+     * @param text The text shown for a row, or null to set the cells up separately
+     * @param order The order of the rows when sorted by this column, or null if the column is not sortable
+     * @return the column
+     */
+    private static TableColumn<TaskRow, TaskRow> createColumn(String title, double width,
+            Function<TaskRow, String> text, Comparator<TaskRow> order) {
+        TableColumn<TaskRow, TaskRow> column = new TableColumn<>(title);
+        column.setPrefWidth(width);
+        column.setCellValueFactory(features -> new ReadOnlyObjectWrapper<>(features.getValue()));
+
+        if (order != null) {
+            column.setComparator(order);
+        }
+        if (text != null) {
+            column.setCellFactory(c -> new TableCell<>() {
+                @Override
+                protected void updateItem(TaskRow row, boolean isEmpty) {
+                    super.updateItem(row, isEmpty);
+                    this.setText(isEmpty || row == null ? null : text.apply(row));
+                }
+            });
+        }
+
+        return column;
+    }
+
+    /**
+     * Queues a change for the JavaFX thread, asking it to apply the queued changes if none were waiting.
+     * @param change The change to the rows
+     */
+    private void queueChange(Runnable change) {
+        synchronized (this) {
+            this.pendingAddedRows = null;
+            this.pendingChanges.add(change);
+            if (this.pendingChanges.size() == 1) {
+                Platform.runLater(this::applyChanges);
+            }
+        }
+    }
+
+    /**
+     * Applies every queued change to the rows, on the JavaFX thread.
+     */
+    private void applyChanges() {
+        List<Runnable> changes;
+        synchronized (this) {
+            changes = this.pendingChanges;
+            this.pendingChanges = new ArrayList<>();
+            this.pendingAddedRows = null;
+        }
+
+        for (Runnable change : changes) {
+            change.run();
+        }
+    }
+
+    @Override
+    public void tasksReset(List<Task> tasks) {
+        List<TaskRow> newRows = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            newRows.add(new TaskRow(task));
+        }
+
+        synchronized (this) {
+            // the queued changes are all replaced by the new rows
+            this.pendingChanges.clear();
+            this.queueChange(() -> this.rows.setAll(newRows));
+        }
+    }
+
+    @Override
+    public void taskAdded(int index, Task task) {
+        TaskRow row = new TaskRow(task);
+        synchronized (this) {
+            if (this.pendingAddedRows != null && index == this.pendingAddIndex + this.pendingAddedRows.size()) {
+                this.pendingAddedRows.add(row);
+                return;
+            }
+
+            List<TaskRow> addedRows = new ArrayList<>();
+            addedRows.add(row);
+            this.queueChange(() -> this.rows.addAll(index, addedRows));
+            this.pendingAddedRows = addedRows;
+            this.pendingAddIndex = index;
+        }
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        this.queueChange(() -> this.rows.remove(index));
+    }
+
+    @Override
+    public void taskChanged(int index, Task task) {
+        TaskRow row = new TaskRow(task);
+        this.queueChange(() -> this.rows.set(index, row));
+    }
+}
@@ -4,16 +4,17 @@ package mirai.utility;
  * The Command interface encapsulates a user command.<br><br>
  *
  * <strong>Note:</strong> This is a functional interface whose functional method is
- * <code>execute(String[], TaskList, Storage)</code>
+ * <code>execute(ParsedCommand, TaskList, Storage)</code>
  */
 @FunctionalInterface
 public interface Command {
     /**
      * Executes the command. The execution can interact with the list of tasks and the storage.
-     * @param args The user command, which is already split (by space) into an array
+     * @param command The user's command line, tokenized by <code>ParsedCommand::of</code>
      * @param tasks The list of tasks
      * @param storage The task storage
-     * @return Mirai's response, based on the user's command specified by args
+     * @return Mirai's response, based on the user's command specified by command
+     * @throws MiraiException if the command cannot be carried out, in which case it changes nothing
      */
-    public String execute(String[] args, TaskList tasks, Storage storage);
+    public String execute(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException;
 }
@@ -0,0 +1,255 @@
+package mirai.utility;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * A utility class to parse and format the date-times used throughout the Mirai chatbot.<br><br>
+ *
+ * Formatters are expensive to build, so they are built once and shared. The supported user formats and the storage
+ * format are additionally recognised by hand-written scanners, which only fall back to the formatters for input
+ * they cannot handle. Both paths accept and reject exactly the same strings. Likewise, date-times are written
+ * straight into the output they belong to, without building a string for each of them.
+ */
+public class DateTime {
+    /** The formatter used to show date-times to the user, such as <code>Jan 31 2025, 1559</code> */
+    public static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern("MMM dd YYYY, HHmm");
+
+    /** The formatter accepting every format listed in <code>Message.SUPPORTED_DATETIME_FORMATS</code> */
+    private static final DateTimeFormatter USER_FORMATTER = new DateTimeFormatterBuilder()
+            .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yyyy HHmm")) // 31/01/2025 1559
+            .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")) // 31/01/2025 15:59
+            .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yy HHmm")) // 31/01/25 1559
+            .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yy HH:mm")) // 31/01/25 15:59
+            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm")) // 2025-01-31 1559
+            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) // 2025-01-31 15:59
+            .toFormatter(Locale.ENGLISH);
+
+    /**
+     * Parses a date-time typed by the user, in any of the supported formats.
+     * @param dateTime The user's date-time string
+     * @return the parsed date-time
+     * @throws DateTimeParseException if the string is not in a supported format
+     */
+    public static LocalDateTime parseUserInput(String dateTime) {
+        LocalDateTime result = scanUserInput(dateTime);
+        return result != null ? result : LocalDateTime.parse(dateTime, USER_FORMATTER);
+    }
+
+    /**
+     * Parses a date-time from the storage file, i.e. in the ISO-8601 format produced by
+     * <code>LocalDateTime::toString</code>.
+     * @param dateTime The stored date-time string
+     * @return the parsed date-time
+     * @throws DateTimeParseException if the string is not an ISO-8601 date-time
+     */
+    public static LocalDateTime parseStored(String dateTime) {
+        LocalDateTime result = scanStored(dateTime);
+        return result != null ? result : LocalDateTime.parse(dateTime);
+    }
+
+    /**
+     * Formats a date-time to be shown to the user.
+     * @param dateTime The date-time
+     * @return the formatted date-time, such as <code>Jan 31 2025, 1559</code>
+     */
+    public static String format(LocalDateTime dateTime) {
+        return DISPLAY_FORMATTER.format(dateTime);
+    }
+
+    /**
+     * Appends a date-time as it is shown to the user.
+     * @param out The text being built
+     * @param dateTime The date-time
+     */
+    public static void writeDisplay(StringBuilder out, LocalDateTime dateTime) {
+        DISPLAY_FORMATTER.formatTo(dateTime, out);
+    }
+
+    /**
+     * Writes a date-time in the storage format, exactly as <code>LocalDateTime::toString</code> would.
+     * @param out Where the date-time is written
+     * @param dateTime The date-time
+     * @throws IOException if the date-time cannot be written
+     */
+    public static void writeStored(Appendable out, LocalDateTime dateTime) throws IOException {
+        if (dateTime.getYear() < 0 || dateTime.getYear() > 9999 || dateTime.getNano() != 0) {
+            out.append(dateTime.toString());
+            return;
+        }
+
+        writeStored(out, dateTime.toLocalDate());
+        out.append('T');
+        writeDigits(out, dateTime.getHour(), 2);
+        out.append(':');
+        writeDigits(out, dateTime.getMinute(), 2);
+        if (dateTime.getSecond() != 0) {
+            out.append(':');
+            writeDigits(out, dateTime.getSecond(), 2);
+        }
+    }
+
+    /**
+     * Writes a date in the storage format, exactly as <code>LocalDate::toString</code> would.
+     * @param out Where the date is written
+     * @param date The date
+     * @throws IOException if the date cannot be written
+     */
+    public static void writeStored(Appendable out, LocalDate date) throws IOException {
+        if (date.getYear() < 0 || date.getYear() > 9999) {
+            out.append(date.toString());
+            return;
+        }
+
+        writeDigits(out, date.getYear(), 4);
+        out.append('-');
+        writeDigits(out, date.getMonthValue(), 2);
+        out.append('-');
+        writeDigits(out, date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Writes a non-negative number with leading zeros.
+     * @param out Where the number is written
+     * @param value The number, which must have at most <code>width</code> digits
+     * @param width The number of digits to write
+     * @throws IOException if the number cannot be written
+     */
+    private static void writeDigits(Appendable out, int value, int width) throws IOException {
+        int divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Recognises the supported user formats by their separators.
+     * @param s The user's date-time string
+     * @return the date-time, or null if the string needs the general parser
+     */
+    private static LocalDateTime scanUserInput(String s) {
+        int length = s.length();
+        if (length < 13) {
+            return null;
+        }
+
+        if (s.charAt(2) == '/' && s.charAt(5) == '/') {
+            int day = readDigits(s, 0, 2);
+            int month = readDigits(s, 3, 5);
+
+            if (s.charAt(10) == ' ') {
+                // dd/MM/yyyy
+                return build(readDigits(s, 6, 10), month, day, s, 11);
+            } else if (s.charAt(8) == ' ') {
+                // dd/MM/yy, where two-digit years are in the 2000s
+                int year = readDigits(s, 6, 8);
+                return build(year < 0 ? -1 : 2000 + year, month, day, s, 9);
+            }
+        } else if (length >= 15 && s.charAt(4) == '-' && s.charAt(7) == '-' && s.charAt(10) == ' ') {
+            // yyyy-MM-dd
+            return build(readDigits(s, 0, 4), readDigits(s, 5, 7), readDigits(s, 8, 10), s, 11);
+        }
+
+        return null;
+    }
+
+    /**
+     * Recognises <code>yyyy-MM-ddTHH:mm</code> and <code>yyyy-MM-ddTHH:mm:ss</code>.
+     * @param s The stored date-time string
+     * @return the date-time, or null if the string needs the general parser
+     */
+    private static LocalDateTime scanStored(String s) {
+        int length = s.length();
+        if ((length != 16 && length != 19)
+                || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T' || s.charAt(13) != ':') {
+            return null;
+        }
+
+        int second = 0;
+        if (length == 19) {
+            second = s.charAt(16) == ':' ? readDigits(s, 17, 19) : -1;
+        }
+
+        int year = readDigits(s, 0, 4);
+        int month = readDigits(s, 5, 7);
+        int day = readDigits(s, 8, 10);
+        int hour = readDigits(s, 11, 13);
+        int minute = readDigits(s, 14, 16);
+
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return null;
+        }
+
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the time part (<code>HHmm</code> or <code>HH:mm</code>, up to the end of the string) and builds the
+     * date-time. Like the formatters, an overflowing day-of-month such as 31/04 is clamped to the last day of the
+     * month, while any other invalid field is rejected.
+     * @param year The year, negative if it could not be read
+     * @param month The month, negative if it could not be read
+     * @param day The day of month, negative if it could not be read
+     * @param s The whole date-time string
+     * @param timeIndex The index where the time part starts
+     * @return the date-time, or null if the string needs the general parser
+     */
+    private static LocalDateTime build(int year, int month, int day, String s, int timeIndex) {
+        int hour;
+        int minute;
+
+        if (s.length() == timeIndex + 4) {
+            hour = readDigits(s, timeIndex, timeIndex + 2);
+            minute = readDigits(s, timeIndex + 2, timeIndex + 4);
+        } else if (s.length() == timeIndex + 5 && s.charAt(timeIndex + 2) == ':') {
+            hour = readDigits(s, timeIndex, timeIndex + 2);
+            minute = readDigits(s, timeIndex + 3, timeIndex + 5);
+        } else {
+            return null;
+        }
+
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+
+        int lastDay = YearMonth.of(year, month).lengthOfMonth();
+        return LocalDateTime.of(year, month, Math.min(day, lastDay), hour, minute);
+    }
+
+    /**
+     * Reads a run of decimal digits.
+     * @param s The string
+     * @param from The index of the first digit (inclusive)
+     * @param to The index after the last digit (exclusive)
+     * @return the value of the digits, or -1 if any character is not a digit
+     */
+    private static int readDigits(String s, int from, int to) {
+        int value = 0;
+
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,77 @@
+package mirai.utility;
+
+import java.time.LocalDateTime;
+
+import mirai.tasks.Task;
+
+/**
+ * The Edit class encapsulates a single change made to a task list. Edits are recorded so that they can be undone,
+ * redone and replayed from the storage file.
+ */
+public class Edit {
+    private final Kind kind;
+    private final int index;
+    private final Task task;
+    /** The time the task was done while it was marked, kept so that undoing an unmark restores it, or null */
+    private final LocalDateTime doneTime;
+
+    /** An enumeration-type describing what an edit does to the task list */
+    public enum Kind {
+        ADD, DELETE, MARK, UNMARK
+    }
+
+    /**
+     * Initialises an edit.
+     * @param kind What the edit does
+     * @param index The index of the affected task
+     * @param task The affected task
+     */
+    public Edit(Kind kind, int index, Task task) {
+        this(kind, index, task, null);
+    }
+
+    /**
+     * Initialises an edit marking or unmarking a task, which remembers when the task was done.
+     * @param kind What the edit does
+     * @param index The index of the affected task
+     * @param task The affected task
+     * @param doneTime The time the task was done while it was marked, or null if not known
+     */
+    public Edit(Kind kind, int index, Task task, LocalDateTime doneTime) {
+        this.kind = kind;
+        this.index = index;
+        this.task = task;
+        this.doneTime = doneTime;
+    }
+
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public Task getTask() {
+        return this.task;
+    }
+
+    public LocalDateTime getDoneTime() {
+        return this.doneTime;
+    }
+
+    /**
+     * Returns the edit that reverts this edit.
+     * @return the inverse edit
+     */
+    public Edit inverse() {
+        Kind inverseKind = switch (this.kind) {
+        case ADD -> Kind.DELETE;
+        case DELETE -> Kind.ADD;
+        case MARK -> Kind.UNMARK;
+        case UNMARK -> Kind.MARK;
+        };
+
+        return new Edit(inverseKind, this.index, this.task, this.doneTime);
+    }
+}
@@ -0,0 +1,109 @@
+package mirai.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The Histogram class counts how often values, such as latencies in nanoseconds, fall into log-scaled buckets.<br><br>
+ *
+ * Small values get a bucket each. Above that, every power of two is split into <code>SUB_BUCKETS</code> buckets of
+ * equal width, so any value is known to within about 3% while the memory used stays fixed, however many values are
+ * recorded. Values can be recorded from several threads at once without locking.
+ */
+public class Histogram {
+    /** The number of buckets each power of two is split into */
+    private static final int SUB_BUCKETS = 32;
+    /** The number of leading bits kept from a value, i.e. log2 of <code>SUB_BUCKETS</code> */
+    private static final int PRECISION_BITS = 5;
+    /** Values below this have a bucket each */
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    /** Larger values, about 18 minutes in nanoseconds, are counted as this value */
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount;
+    private final AtomicLong max;
+
+    /**
+     * Initialises an empty histogram.
+     */
+    public Histogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.totalCount = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Records a value.
+     * @param value The value, which is treated as 0 if negative
+     */
+    public void record(long value) {
+        long clampedValue = Math.max(0, Math.min(value, MAX_VALUE));
+
+        this.counts.incrementAndGet(indexOf(clampedValue));
+        this.totalCount.incrementAndGet();
+        this.max.accumulateAndGet(clampedValue, Math::max);
+    }
+
+    public long getCount() {
+        return this.totalCount.get();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Returns the value below or at which a given fraction of the recorded values fall.
+     * @param fraction The fraction, such as 0.99 for the 99th percentile
+     * @return the highest value in the bucket holding the percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double fraction) {
+        long count = this.getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return Math.min(lowerBoundOf(i + 1) - 1, this.getMax());
+            }
+        }
+
+        return this.getMax();
+    }
+
+    /**
+     * Returns the bucket a value is counted in.
+     * @param value The value, between 0 and <code>MAX_VALUE</code>
+     * @return the index of the bucket
+     */
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - PRECISION_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Returns the smallest value counted in a bucket.
+     * @param index The index of the bucket
+     * @return the smallest value in the bucket
+     */
+    private static long lowerBoundOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long leadingBits = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return leadingBits << shift;
+    }
+}
@@ -0,0 +1,98 @@
+package mirai.utility;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The History class encapsulates a bounded undo/redo history of edits made to a task list.<br><br>
+ *
+ * Only the edits themselves are remembered, so the memory used grows with the number of changes rather than
+ * with the size of the task list.
+ */
+public class History {
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final int capacity;
+    private final Deque<Edit> undoStack;
+    private final Deque<Edit> redoStack;
+
+    /**
+     * Initialises a history that remembers at most <code>DEFAULT_CAPACITY</code> edits.
+     */
+    public History() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initialises a history.
+     * @param capacity The maximum number of edits that can be undone
+     */
+    public History(int capacity) {
+        assert(capacity > 0);
+        this.capacity = capacity;
+        this.undoStack = new ArrayDeque<>();
+        this.redoStack = new ArrayDeque<>();
+    }
+
+    /**
+     * Returns a copy of this history, which can be restored later by replacing this history with it.
+     * @return the copy
+     */
+    public History copy() {
+        History copy = new History(this.capacity);
+        copy.undoStack.addAll(this.undoStack);
+        copy.redoStack.addAll(this.redoStack);
+        return copy;
+    }
+
+    /**
+     * Records a new edit. This forgets all edits that could have been redone, and the oldest edit if the history
+     * is full.
+     * @param edit The edit that has just been made
+     */
+    public void record(Edit edit) {
+        this.redoStack.clear();
+        this.undoStack.push(edit);
+
+        if (this.undoStack.size() > this.capacity) {
+            this.undoStack.removeLast();
+        }
+    }
+
+    /**
+     * Removes the most recent edit from the undo history and returns the edit that reverts it.
+     * @return the inverse of the most recent edit, or null if there is nothing to undo
+     */
+    public Edit popUndo() {
+        Edit edit = this.undoStack.poll();
+        if (edit == null) {
+            return null;
+        }
+
+        this.redoStack.push(edit);
+        return edit.inverse();
+    }
+
+    /**
+     * Removes the most recently undone edit from the redo history and returns it.
+     * @return the most recently undone edit, or null if there is nothing to redo
+     */
+    public Edit popRedo() {
+        Edit edit = this.redoStack.poll();
+        if (edit == null) {
+            return null;
+        }
+
+        this.undoStack.push(edit);
+        return edit;
+    }
+
+    /**
+     * Forgets all edits. This is needed when the task list changes in a way that is not recorded, since recorded
+     * edits refer to task indexes.
+     */
+    public void clear() {
+        this.undoStack.clear();
+        this.redoStack.clear();
+    }
+}
@@ -0,0 +1,249 @@
+package mirai.utility;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import mirai.tasks.Event;
+
+/**
+ * The IntervalTree class encapsulates an index of events by their time span.<br><br>
+ *
+ * Events are kept in a randomised balanced binary search tree (a treap) ordered by start time, where every node
+ * also remembers the latest end time in its subtree. Adding or removing an event takes O(log n) expected time, and
+ * finding the k events overlapping a time span takes O(log n + k) expected time.<br><br>
+ *
+ * Two events overlap if one starts strictly before the other ends, so back-to-back events do not overlap.
+ */
+public class IntervalTree {
+    private final Random random;
+    /** The node holding each event, used to locate an event for removal */
+    private final Map<Event, Node> nodes;
+    private Node root;
+    private long nextSequence;
+
+    /**
+     * A node of the tree. Nodes are ordered by start time, then by insertion order.
+     */
+    private static class Node {
+        private final Event event;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final long sequence;
+        private final int priority;
+        private LocalDateTime maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(Event event, long sequence, int priority) {
+            this.event = event;
+            this.start = event.getStartTime();
+            this.end = event.getEndTime();
+            this.sequence = sequence;
+            this.priority = priority;
+            this.maxEnd = this.end;
+        }
+
+        private int compareTo(Node other) {
+            int byStart = this.start.compareTo(other.start);
+            return byStart != 0 ? byStart : Long.compare(this.sequence, other.sequence);
+        }
+
+        private void update() {
+            this.maxEnd = this.end;
+            if (this.left != null && this.left.maxEnd.isAfter(this.maxEnd)) {
+                this.maxEnd = this.left.maxEnd;
+            }
+            if (this.right != null && this.right.maxEnd.isAfter(this.maxEnd)) {
+                this.maxEnd = this.right.maxEnd;
+            }
+        }
+    }
+
+    /**
+     * Initialises an empty interval tree.
+     */
+    public IntervalTree() {
+        this.random = new Random();
+        this.nodes = new IdentityHashMap<>();
+    }
+
+    /**
+     * Returns the number of events in the tree.
+     * @return the number of events
+     */
+    public int getSize() {
+        return this.nodes.size();
+    }
+
+    /**
+     * Adds an event to the tree. Adding an event that is already in the tree does nothing.
+     * @param event The event
+     */
+    public void insert(Event event) {
+        if (this.nodes.containsKey(event)) {
+            return;
+        }
+
+        Node node = new Node(event, this.nextSequence++, this.random.nextInt());
+        this.nodes.put(event, node);
+        this.root = insert(this.root, node);
+    }
+
+    private static Node insert(Node subtree, Node node) {
+        if (subtree == null) {
+            return node;
+        }
+
+        if (node.compareTo(subtree) < 0) {
+            subtree.left = insert(subtree.left, node);
+            if (subtree.left.priority > subtree.priority) {
+                subtree = rotateRight(subtree);
+            }
+        } else {
+            subtree.right = insert(subtree.right, node);
+            if (subtree.right.priority > subtree.priority) {
+                subtree = rotateLeft(subtree);
+            }
+        }
+
+        subtree.update();
+        return subtree;
+    }
+
+    /**
+     * Removes an event from the tree. Removing an event that is not in the tree does nothing.
+     * @param event The event
+     */
+    public void remove(Event event) {
+        Node node = this.nodes.remove(event);
+        if (node != null) {
+            this.root = remove(this.root, node);
+        }
+    }
+
+    private static Node remove(Node subtree, Node node) {
+        if (subtree == null) {
+            return null;
+        }
+
+        int comparison = node.compareTo(subtree);
+        if (comparison < 0) {
+            subtree.left = remove(subtree.left, node);
+        } else if (comparison > 0) {
+            subtree.right = remove(subtree.right, node);
+        } else if (subtree.left == null) {
+            return subtree.right;
+        } else if (subtree.right == null) {
+            return subtree.left;
+        } else if (subtree.left.priority > subtree.right.priority) {
+            subtree = rotateRight(subtree);
+            subtree.right = remove(subtree.right, node);
+        } else {
+            subtree = rotateLeft(subtree);
+            subtree.left = remove(subtree.left, node);
+        }
+
+        subtree.update();
+        return subtree;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Returns all events overlapping a time span, ordered by start time.
+     * @param start The start of the time span
+     * @param end The end of the time span
+     * @return the overlapping events
+     */
+    public List<Event> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<Event> results = new ArrayList<>();
+        findOverlapping(this.root, start, end, results);
+        return results;
+    }
+
+    private static void findOverlapping(Node node, LocalDateTime start, LocalDateTime end, List<Event> results) {
+        // no event in this subtree ends after the span starts
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return;
+        }
+
+        findOverlapping(node.left, start, end, results);
+
+        // this event and everything to its right start at or after the span ends
+        if (!node.start.isBefore(end)) {
+            return;
+        }
+
+        if (node.end.isAfter(start)) {
+            results.add(node.event);
+        }
+
+        findOverlapping(node.right, start, end, results);
+    }
+
+    /**
+     * Returns all events in the tree, ordered by start time.
+     * @return the events
+     */
+    public List<Event> getEvents() {
+        List<Event> events = new ArrayList<>(this.nodes.size());
+        collect(this.root, events);
+        return events;
+    }
+
+    private static void collect(Node node, List<Event> events) {
+        if (node == null) {
+            return;
+        }
+
+        collect(node.left, events);
+        events.add(node.event);
+        collect(node.right, events);
+    }
+
+    /**
+     * Returns every pair of overlapping events, using a single sweep over the events in order of start time.
+     * This takes O(n log n + k) time for k overlapping pairs.
+     * @return the overlapping pairs, each as a two-element array whose first event starts no later than the second
+     */
+    public List<Event[]> findAllOverlaps() {
+        List<Event[]> overlaps = new ArrayList<>();
+        PriorityQueue<Event> ongoingEvents = new PriorityQueue<>(Comparator.comparing(Event::getEndTime));
+
+        for (Event event : this.getEvents()) {
+            while (!ongoingEvents.isEmpty() && !ongoingEvents.peek().getEndTime().isAfter(event.getStartTime())) {
+                ongoingEvents.poll();
+            }
+
+            for (Event ongoingEvent : ongoingEvents) {
+                overlaps.add(new Event[] {ongoingEvent, event});
+            }
+
+            ongoingEvents.add(event);
+        }
+
+        return overlaps;
+    }
+}
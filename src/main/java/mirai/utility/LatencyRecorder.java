@@ -0,0 +1,55 @@
+package mirai.utility;
+
+import java.io.PrintStream;
+
+/**
+ * The LatencyRecorder class collects how long a series of operations took, to report throughput and latency
+ * percentiles at the end of a run. The latencies are counted in a <code>Histogram</code>, so the memory used stays
+ * fixed however long the run is. It is safe to record from several threads at once.
+ */
+public class LatencyRecorder {
+    /** The recorded latencies, in nanoseconds */
+    private final Histogram latencies;
+
+    /**
+     * Initialises an empty recorder.
+     */
+    public LatencyRecorder() {
+        this.latencies = new Histogram();
+    }
+
+    /**
+     * Records the latency of one operation.
+     * @param latency The latency, in nanoseconds
+     */
+    public void record(long latency) {
+        this.latencies.record(latency);
+    }
+
+    public int getCount() {
+        return (int) this.latencies.getCount();
+    }
+
+    /**
+     * Reports the number of operations, the throughput and the latency percentiles. The percentiles are accurate to
+     * within the precision of the histogram, about 3%.
+     * @param out Where the report is written
+     * @param operation What an operation is called in the report, in plural, such as <code>commands</code>
+     * @param elapsedTime The wall-clock time of the whole run, in nanoseconds
+     */
+    public void report(PrintStream out, String operation, long elapsedTime) {
+        long count = this.latencies.getCount();
+        if (count == 0) {
+            out.println("No " + operation + " were run.");
+            return;
+        }
+
+        out.printf("Ran %d %s in %.1f ms (%.0f %s/s)%n",
+                count, operation, elapsedTime / 1e6, count / (elapsedTime / 1e9), operation);
+        out.printf("Latency: p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                this.latencies.getValueAtPercentile(0.5) / 1e6,
+                this.latencies.getValueAtPercentile(0.9) / 1e6,
+                this.latencies.getValueAtPercentile(0.99) / 1e6,
+                this.latencies.getMax() / 1e6);
+    }
+}
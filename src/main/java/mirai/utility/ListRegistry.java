@@ -0,0 +1,247 @@
+package mirai.utility;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * The ListRegistry class keeps track of all the user's named lists, and of the one commands currently apply to.<br><br>
+ *
+ * The <code>main</code> list is stored in the file Mirai is started with, and every other list in a file of its own in
+ * the <code>lists</code> folder next to it, e.g. <code>data/lists/work.txt</code>. All existing lists start loading
+ * side by side when the registry is created, and a list that does not exist yet is created when first used. List names
+ * are not case-sensitive, e.g. <code>Work</code> and <code>work</code> are the same list, so that they name the same
+ * file on every file system.<br><br>
+ *
+ * The files of all lists can be watched for changes made by other programs, once each list is loaded.
+ */
+public class ListRegistry {
+    /** The name of the list stored in the file Mirai is started with */
+    public static final String MAIN_LIST = "main";
+    private static final Pattern LIST_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String LIST_EXTENSION = ".txt";
+
+    private final Path listDirectory;
+    private final Metrics metrics;
+    private final Duration archiveAge;
+    /** The threads loading and searching lists */
+    private final ExecutorService workers;
+    /** Every list by name, sorted so that lists are always shown in the same order */
+    private final Map<String, NamedList> lists;
+    private volatile NamedList current;
+    /** The watcher of the files of the lists, null if they are not watched */
+    private volatile StorageWatcher watcher;
+
+    /**
+     * Initialises the registry and starts loading every existing list.
+     * @param mainFilePath The path of the file storing the <code>main</code> list
+     * @param metrics The metrics recording how long the storage takes
+     * @param archiveAge How long a task has to be done before it is moved to the archive
+     */
+    public ListRegistry(String mainFilePath, Metrics metrics, Duration archiveAge) {
+        Path mainFile = Path.of(mainFilePath).toAbsolutePath();
+        this.listDirectory = mainFile.resolveSibling("lists");
+        this.metrics = metrics;
+        this.archiveAge = archiveAge;
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "mirai-lists");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lists = new ConcurrentSkipListMap<>();
+
+        this.current = new NamedList(MAIN_LIST, mainFilePath, metrics, archiveAge, this.workers);
+        this.lists.put(MAIN_LIST, this.current);
+
+        for (String name : this.findStoredLists()) {
+            this.lists.computeIfAbsent(name, this::createList);
+        }
+    }
+
+    /**
+     * Returns the names of the lists stored in the <code>lists</code> folder, in lowercase. A file named in another
+     * case, saved before names were lowercased, is renamed to its lowercase name.
+     * @return the names, or none if the folder cannot be read
+     */
+    private List<String> findStoredLists() {
+        List<String> names = new ArrayList<>();
+        if (!Files.isDirectory(this.listDirectory)) {
+            return names;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.listDirectory, "*" + LIST_EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - LIST_EXTENSION.length());
+                // archive files, such as work.archive.txt, are not valid names and are skipped
+                if (LIST_NAME.matcher(name).matches() && toLowercaseFile(file, name)) {
+                    names.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return names;
+    }
+
+    /**
+     * Gives the file of a stored list its lowercase name, if it does not have it yet.
+     * @param file The file of the list
+     * @param name The name of the list, as stored
+     * @return <code>true</code> if the file has its lowercase name, <code>false</code> if it cannot be renamed, e.g.
+     *     because another file already has that name
+     */
+    private static boolean toLowercaseFile(Path file, String name) {
+        String lowercaseName = name.toLowerCase(Locale.ROOT);
+        if (lowercaseName.equals(name)) {
+            return true;
+        }
+
+        Path lowercaseFile = file.resolveSibling(lowercaseName + LIST_EXTENSION);
+        try {
+            if (Files.exists(lowercaseFile) && Files.isSameFile(file, lowercaseFile)) {
+                // the file system ignores case, so the file can already be found by its lowercase name
+                return true;
+            }
+            Files.move(file, lowercaseFile);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Mirai could not rename the list " + file + " to " + lowercaseFile + ": " + e);
+            return false;
+        }
+    }
+
+    private NamedList createList(String name) {
+        String filePath = this.listDirectory.resolve(name + LIST_EXTENSION).toString();
+        NamedList list = new NamedList(name, filePath, this.metrics, this.archiveAge, this.workers);
+        this.startWatching(list);
+        return list;
+    }
+
+    /**
+     * Starts watching the files of all lists, including the lists created later, for changes made by other
+     * programs.
+     * @param debounce How long to keep collecting changes to a file before reporting them
+     * @param onChange The action run with each list whose file changed, on the thread of the watcher
+     */
+    public void watch(Duration debounce, Consumer<NamedList> onChange) {
+        try {
+            this.watcher = new StorageWatcher(debounce, file -> {
+                for (NamedList list : this.lists.values()) {
+                    if (list.getFile().toAbsolutePath().normalize().equals(file)) {
+                        onChange.accept(list);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        for (NamedList list : this.lists.values()) {
+            this.startWatching(list);
+        }
+    }
+
+    private void startWatching(NamedList list) {
+        StorageWatcher listWatcher = this.watcher;
+        if (listWatcher == null) {
+            return;
+        }
+
+        // the folder of the file is only sure to exist once the list is loaded
+        list.whenLoaded().thenRun(() -> {
+            try {
+                listWatcher.watch(list.getFile());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Returns the list commands currently apply to.
+     * @return the current list
+     */
+    public NamedList getCurrent() {
+        return this.current;
+    }
+
+    /**
+     * Makes commands apply to another list, creating the list if it does not exist yet.
+     * @param name The name of the list, in any case
+     * @return the list
+     * @throws MiraiException if the name is not a valid list name
+     */
+    public NamedList use(String name) throws MiraiException {
+        if (!LIST_NAME.matcher(name).matches()) {
+            throw new MiraiException(Message.ERROR + "Mirai cannot name a list '" + name + "'...\n"
+                    + "List names can only have letters, digits, '-' and '_', such as use work-2025");
+        }
+
+        this.current = this.lists.computeIfAbsent(name.toLowerCase(Locale.ROOT), this::createList);
+        return this.current;
+    }
+
+    public Collection<NamedList> getLists() {
+        return this.lists.values();
+    }
+
+    /**
+     * Searches every list for tasks containing a keyword. The lists are searched side by side, each as soon as it
+     * is loaded, and the results are shown list by list, up to a page per list.
+     * @param keyword The keyword
+     * @return a message showing the matching tasks of each list
+     */
+    public String findAll(String keyword) {
+        List<NamedList> searchedLists = new ArrayList<>(this.lists.values());
+        List<CompletableFuture<String>> results = new ArrayList<>();
+
+        for (NamedList list : searchedLists) {
+            results.add(list.whenLoaded().thenApplyAsync(tasks -> search(list.getName(), tasks, keyword),
+                    this.workers));
+        }
+
+        StringBuilder message = new StringBuilder("Here are the matching tasks in all your lists:\n");
+        for (CompletableFuture<String> result : results) {
+            message.append(result.join());
+        }
+        return message.toString();
+    }
+
+    private static String search(String name, TaskList tasks, String keyword) {
+        StringBuilder matches = new StringBuilder();
+        int total;
+        try {
+            total = tasks.appendPage(matches, task -> task.contains(keyword), 0, Page.DEFAULT_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (total == 0) {
+            return "";
+        }
+
+        StringBuilder result = new StringBuilder("In ").append(name).append(":\n").append(matches);
+        if (total > Page.DEFAULT_SIZE) {
+            result.append("...and ").append(total - Page.DEFAULT_SIZE).append(" more. Use 'use ").append(name)
+                    .append("', then 'find', to see them all.\n");
+        }
+        return result.toString();
+    }
+}
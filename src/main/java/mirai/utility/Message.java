@@ -31,26 +31,60 @@ public class Message {
 
     public static final String ERROR = "OOPS!!! ";
 
+    public static final String WORKING = "Mirai is working on it...";
+
+    public static final String CANCELLED =
+            "Mirai stopped working on this command, so none of its changes were kept.\n"
+            + "Only searches can be stopped: commands changing your tasks always finish.";
+
+    public static final String FILE_CHANGED =
+            ERROR + "Another program changed your tasks while Mirai was saving, so your change was not kept...\n"
+            + "Mirai has loaded their changes instead. Please check your tasks and try again.";
+
     public static final Map<String, String> COMMAND_DESCRIPTION = new HashMap<>() {{
+            put("agenda", "Syntax: agenda /from [date] /to [date]\nLists the deadlines, events and occurrences of "
+                    + "recurring tasks within a time window.");
             put("bye", "Syntax: bye\nExits the Mirai chatbot application.");
+            put("conflicts", "Syntax: conflicts\nLists every pair of events whose times overlap.");
             put("deadline", "Syntax: deadline [description] /by [date]\nStores a deadline task.");
             put("delete", "Syntax: delete [index]\nDeletes a task from the storage.");
-            put("event", "Syntax: event [description] /from [date] to [date]\nStores an event task.");
-            put("find", "Syntax: find [keyword]\nFinds a task based on a word/words. Note that everything after "
-                    + "the 'find' keyword will be considered as one block for finding.");
-            put("flexfind", "Syntax: flexfind [keyword]\nSort all tasks based on the relevance to the keyword.\n");
+            put("event", "Syntax: event [description] /from [date] to [date]\nStores an event task, "
+                    + "warning you about any event it overlaps with.");
+            put("export", "Syntax: export [--all] [file]\nSaves your tasks to a .csv or .jsonl file, to be opened in "
+                    + "other programs. Use --all to include archived tasks as well.");
+            put("findall", "Syntax: findall [keyword]\nFinds the tasks containing a keyword in all your lists.");
+            put("find", "Syntax: find [--all] [--page n] [--size n] [keyword]\nFinds a task based on a word/words. "
+                    + "Note that everything after the 'find' keyword will be considered as one block for finding. "
+                    + "Use --all to search the archive as well. Options go before the keyword.");
+            put("flexfind", "Syntax: flexfind [--all] [--page n] [--size n] [keyword]\nSort all tasks based on the "
+                    + "relevance to the keyword. Use --all to include the archive as well. Options go before the "
+                    + "keyword.\n");
             put("help", "Syntax: help\nLists all commands that Mirai supports.");
-            put("list", "Syntax: list\nLists all tasks currently stored by Mirai.");
+            put("import", "Syntax: import [file]\nAdds the tasks in a .csv or .jsonl file to the end of your list. "
+                    + "Importing cannot be undone.");
+            put("lists", "Syntax: lists\nLists the names of all your lists, and how many tasks each has.");
+            put("list", "Syntax: list [--all] [--page n] [--size n]\nLists all tasks currently stored by Mirai, "
+                    + "200 at a time. Use --page and --size to see other tasks, and --all to include archived tasks "
+                    + "as well.");
             put("mark", "Syntax: mark [index]\nMarks a task as done.");
+            put("metrics", "Syntax: metrics\nShows how long each command and each save has taken so far, and how "
+                    + "much has been written to the storage.");
+            put("recur", "Syntax: recur [description] /from [date] /every [day|week] /until [date]\n"
+                    + "Stores a task that repeats every day or every week. '/until [date]' is optional.");
+            put("redo", "Syntax: redo\nRe-applies the change that was most recently undone.");
+            put("reschedule", "Syntax: reschedule [index] /on [date] /to [date]\n"
+                    + "Moves the occurrence of a recurring task on a date to another time.");
+            put("skip", "Syntax: skip [index] /on [date]\nSkips the occurrence of a recurring task on a date.");
             put("todo", "Syntax: todo [description]\nStores a to-do task.");
+            put("undo", "Syntax: undo\nReverts the most recent change to your tasks.");
+            put("use", "Syntax: use [name]\nSwitches to the list with the given name, creating it if it does not "
+                    + "exist yet. Commands apply to this list until you switch again. Your first list is called main.");
             put("unmark", "Syntax: unmark [index]\nMarks a task as uncompleted.");
         }
     };
 
 
     public static String getNumOfTasks(int numOfTasks) {
-        return String.format("Now you have %d task%s in the list",
-                numOfTasks,
-                numOfTasks <= 1 ? "" : "s");
+        return "Now you have " + numOfTasks + (numOfTasks <= 1 ? " task in the list" : " tasks in the list");
     }
 }
@@ -0,0 +1,173 @@
+package mirai.utility;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Metrics class collects how long each command and each storage operation takes, as log-bucketed histograms,
+ * along with counters for the bytes written to the storage and the number of writes and fsyncs.<br><br>
+ *
+ * The metrics are shown to the user with the <code>metrics</code> command, and can also be dumped to a file at a
+ * fixed interval. Everything can be recorded from several threads at once.
+ */
+public class Metrics {
+    private final Map<String, Histogram> commandLatencies;
+    private final Map<String, Histogram> storageLatencies;
+    private final LongAdder bytesWritten;
+    private final LongAdder writes;
+    private final LongAdder fsyncs;
+    /** The thread dumping the metrics to a file, null if the metrics are not dumped */
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Initialises empty metrics.
+     */
+    public Metrics() {
+        // sorted maps keep the report in alphabetical order
+        this.commandLatencies = new ConcurrentSkipListMap<>();
+        this.storageLatencies = new ConcurrentSkipListMap<>();
+        this.bytesWritten = new LongAdder();
+        this.writes = new LongAdder();
+        this.fsyncs = new LongAdder();
+    }
+
+    /**
+     * Records how long a command took.
+     * @param keyword The command keyword
+     * @param latency The latency, in nanoseconds
+     */
+    public void recordCommand(String keyword, long latency) {
+        this.commandLatencies.computeIfAbsent(keyword, k -> new Histogram()).record(latency);
+    }
+
+    /**
+     * Records how long a storage operation took.
+     * @param operation The operation, such as <code>rewrite</code>
+     * @param latency The latency, in nanoseconds
+     */
+    public void recordStorage(String operation, long latency) {
+        this.storageLatencies.computeIfAbsent(operation, k -> new Histogram()).record(latency);
+    }
+
+    /**
+     * Records a write to the storage.
+     * @param bytes The number of bytes written
+     * @param isSynced Whether the write was forced to the disk
+     */
+    public void recordWrite(long bytes, boolean isSynced) {
+        this.bytesWritten.add(bytes);
+        this.writes.increment();
+        if (isSynced) {
+            this.fsyncs.increment();
+        }
+    }
+
+    /**
+     * Returns a readable report of all metrics: the count and the latency percentiles of every command and storage
+     * operation, followed by the storage counters.
+     * @return the report
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("Command latencies (ms):\n");
+        appendLatencies(report, this.commandLatencies);
+        report.append("Storage latencies (ms):\n");
+        appendLatencies(report, this.storageLatencies);
+
+        report.append("Storage: ").append(this.bytesWritten.sum()).append(" bytes in ")
+                .append(this.writes.sum()).append(" writes, ")
+                .append(this.fsyncs.sum()).append(" fsyncs");
+        return report.toString();
+    }
+
+    private static void appendLatencies(StringBuilder report, Map<String, Histogram> latencies) {
+        if (latencies.isEmpty()) {
+            report.append("  (none yet)\n");
+            return;
+        }
+
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            report.append("  ").append(entry.getKey())
+                    .append(": n=").append(histogram.getCount());
+            appendMillis(report.append(", p50 "), histogram.getValueAtPercentile(0.5));
+            appendMillis(report.append(", p90 "), histogram.getValueAtPercentile(0.9));
+            appendMillis(report.append(", p99 "), histogram.getValueAtPercentile(0.99));
+            appendMillis(report.append(", max "), histogram.getMax());
+            report.append('\n');
+        }
+    }
+
+    /**
+     * Appends a duration in nanoseconds as milliseconds with three decimal places.
+     * @param report The report
+     * @param nanos The duration, in nanoseconds
+     */
+    private static void appendMillis(StringBuilder report, long nanos) {
+        long micros = (nanos + 500) / 1000;
+        report.append(micros / 1000).append('.');
+
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            report.append('0');
+        }
+        if (fraction < 10) {
+            report.append('0');
+        }
+        report.append(fraction);
+    }
+
+    /**
+     * Starts writing the report to a file at a fixed interval, replacing the previous report each time. This runs on
+     * a background thread that does not keep the application alive.
+     * @param file The file
+     * @param interval The time between two reports
+     */
+    public synchronized void startDumping(Path file, Duration interval) {
+        this.stopDumping();
+
+        this.dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mirai-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dumper.scheduleAtFixedRate(() -> this.dump(file),
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops writing the report to a file, if it is being written.
+     */
+    public synchronized void stopDumping() {
+        if (this.dumper != null) {
+            this.dumper.shutdown();
+            this.dumper = null;
+        }
+    }
+
+    /**
+     * Writes the report to a file. The report is written next to the file first, so readers never see half of it.
+     * @param file The file
+     */
+    private void dump(Path file) {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            Files.writeString(temporaryFile, "Metrics at " + LocalDateTime.now() + "\n" + this.report() + "\n",
+                    StandardCharsets.UTF_8);
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package mirai.utility;
+
+/**
+ * The MiraiException class encapsulates a user command that Mirai cannot carry out, such as a command with a
+ * missing argument or an index outside the list. Commands throw it before changing anything, and its message is
+ * shown to the user as Mirai's response.
+ */
+public class MiraiException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Initialises the exception.
+     * @param message The message to show to the user
+     */
+    public MiraiException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,106 @@
+package mirai.utility;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import mirai.tasks.Task;
+
+/**
+ * The NamedList class encapsulates one of the user's lists of tasks, such as <code>work</code> or <code>home</code>,
+ * with a storage file of its own. Changes to a list are only ever written to its own file.<br><br>
+ *
+ * A list starts loading in the background as soon as it is created, so several lists load side by side, and only
+ * the first command that needs a list waits for it.
+ */
+public class NamedList {
+    private final String name;
+    private final Path file;
+    private final Storage storage;
+    private final CompletableFuture<TaskList> tasks;
+
+    /**
+     * Initialises a list and starts loading it.
+     * @param name The name of the list
+     * @param filePath The path of the file storing the list. If the file does not exist, silently create one.
+     * @param metrics The metrics recording how long the storage takes
+     * @param archiveAge How long a task has to be done before it is moved to the archive
+     * @param loader The threads loading lists
+     */
+    public NamedList(String name, String filePath, Metrics metrics, Duration archiveAge, Executor loader) {
+        this.name = name;
+        this.file = Path.of(filePath);
+        this.storage = new Storage(filePath, metrics);
+        this.tasks = CompletableFuture.supplyAsync(() -> this.load(archiveAge), loader);
+    }
+
+    /**
+     * Loads the tasks from the storage, archiving tasks that have been done for longer than a given age.
+     * @param archiveAge How long a task has to be done before it is moved to the archive
+     * @return the tasks, or an empty list if the storage cannot be read
+     */
+    private TaskList load(Duration archiveAge) {
+        TaskList loadedTasks;
+        try {
+            loadedTasks = new TaskList(this.storage.load());
+        } catch (Exception e) {
+            return new TaskList();
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAge);
+        List<Task> archivableTasks = loadedTasks.getTaskList().stream()
+                .filter(task -> task.isDone() && task.getDoneTime().isBefore(cutoff))
+                .toList();
+
+        // the tasks stay in the storage file unless they are safely in the archive file
+        boolean isArchived = !archivableTasks.isEmpty() && this.storage.archiveTasks(archivableTasks);
+        if (isArchived) {
+            loadedTasks.removeTasksDoneBefore(cutoff);
+        }
+
+        if (isArchived || this.storage.isCompactionNeeded()) {
+            this.storage.relogAllTasks(loadedTasks.getTaskList());
+        }
+
+        return loadedTasks;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Path getFile() {
+        return this.file;
+    }
+
+    public Storage getStorage() {
+        return this.storage;
+    }
+
+    /**
+     * Brings the list up to date with the changes other programs made to its file, once the list is loaded.
+     * @return <code>true</code> if the list changed, <code>false</code> otherwise
+     */
+    public boolean catchUp() {
+        return this.tasks.isDone() && this.storage.catchUp(this.getTasks());
+    }
+
+    /**
+     * Returns the tasks of the list, waiting for them to be loaded if needed.
+     * @return the tasks
+     */
+    public TaskList getTasks() {
+        return this.tasks.join();
+    }
+
+    /**
+     * Returns the loading of the list, to act on the tasks once they are loaded without waiting for them.
+     * @return the loading, which completes with the tasks
+     */
+    public CompletableFuture<TaskList> whenLoaded() {
+        return this.tasks;
+    }
+}
@@ -0,0 +1,91 @@
+package mirai.utility;
+
+/**
+ * The Page class encapsulates the part of a long list of results that is shown to the user at once, as chosen with
+ * the <code>--page</code> and <code>--size</code> options. Showing one page at a time keeps the response small, no
+ * matter how many tasks the list holds.
+ */
+public class Page {
+    /** The page size used when the user does not give one */
+    public static final int DEFAULT_SIZE = 200;
+
+    private final int number;
+    private final int size;
+
+    private Page(int number, int size) {
+        this.number = number;
+        this.size = size;
+    }
+
+    /**
+     * Returns the page requested in a command. Without the options, the first page of <code>DEFAULT_SIZE</code>
+     * results is returned.
+     * @param command The user's parsed command
+     * @return the page
+     * @throws MiraiException if the page number or the page size is not a positive number
+     */
+    public static Page of(ParsedCommand command) throws MiraiException {
+        int number = command.getPage() == ParsedCommand.NO_INDEX ? 1 : command.getPage();
+        int size = command.getPageSize() == ParsedCommand.NO_INDEX ? DEFAULT_SIZE : command.getPageSize();
+
+        if (number < 1 || size < 1) {
+            throw new MiraiException(Message.ERROR + "Mirai does not understand which page you want...\n"
+                    + "Please give positive numbers, such as --page 2 --size 50!");
+        }
+
+        return new Page(number, size);
+    }
+
+    /**
+     * Returns the number of results before this page.
+     * @return the number of results to skip
+     */
+    public int getOffset() {
+        return (int) Math.min((long) (this.number - 1) * this.size, Integer.MAX_VALUE);
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Checks that this page is not past the last result.
+     * @param total The total number of results
+     * @throws MiraiException if there are results, but none on this page
+     */
+    public void checkInRange(int total) throws MiraiException {
+        if (total > 0 && this.getOffset() >= total) {
+            throw new MiraiException(Message.ERROR + "Mirai cannot find page " + this.number + "...\n"
+                    + "There are only " + this.getPageCount(total) + " page(s) of " + this.size + " results.");
+        }
+    }
+
+    /**
+     * Appends a line telling the user which results are shown, if the results do not fit on one page.
+     * @param message The message
+     * @param total The total number of results
+     */
+    public void appendFooter(StringBuilder message, int total) {
+        if (total <= this.size && this.number == 1) {
+            return;
+        }
+
+        int first = this.getOffset() + 1;
+        int last = (int) Math.min((long) this.getOffset() + this.size, total);
+        message.append("Showing ").append(first).append('-').append(last).append(" of ").append(total)
+                .append(" (page ").append(this.number).append(" of ").append(this.getPageCount(total)).append(")");
+
+        if (last < total) {
+            message.append(". Use --page ").append(this.number + 1);
+            if (this.size != DEFAULT_SIZE) {
+                message.append(" --size ").append(this.size);
+            }
+            message.append(" to see more");
+        }
+        message.append('\n');
+    }
+
+    private int getPageCount(int total) {
+        return (int) (((long) total + this.size - 1) / this.size);
+    }
+}
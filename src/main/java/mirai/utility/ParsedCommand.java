@@ -0,0 +1,357 @@
+package mirai.utility;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The ParsedCommand class encapsulates a user's command line, tokenized once into its parts.<br><br>
+ *
+ * A command line consists of a command keyword, followed by an argument and any number of flagged values,
+ * such as <code>deadline return book /by 31/01/2025 1559</code>. Options such as <code>--all</code> and
+ * <code>--page 2</code> come right after the keyword, before the argument. Each command only recognises the flags
+ * and options it uses, so any other word that looks like one, such as the <code>/on</code> in
+ * <code>todo reply /on slack</code>, stays part of the text. The whole line is read in a single pass, and each
+ * part is kept as offsets into the original line, so a part is only copied out when a command asks for it.
+ */
+public class ParsedCommand {
+    /** The index reported when the argument does not start with a number */
+    public static final int NO_INDEX = Integer.MIN_VALUE;
+
+    private static final String ALL_OPTION = "--all";
+    private static final String PAGE_OPTION = "--page";
+    private static final String SIZE_OPTION = "--size";
+    private static final int ARGUMENT = 0;
+    /** The flags and options of each command that has any */
+    private static final Map<String, Syntax> SYNTAXES = Map.of(
+            "deadline", new Syntax(EnumSet.of(Flag.BY), false, false),
+            "event", new Syntax(EnumSet.of(Flag.FROM, Flag.TO), false, false),
+            "recur", new Syntax(EnumSet.of(Flag.FROM, Flag.EVERY, Flag.UNTIL), false, false),
+            "skip", new Syntax(EnumSet.of(Flag.ON), false, false),
+            "reschedule", new Syntax(EnumSet.of(Flag.ON, Flag.TO), false, false),
+            "agenda", new Syntax(EnumSet.of(Flag.FROM, Flag.TO), false, false),
+            "export", new Syntax(EnumSet.noneOf(Flag.class), true, false),
+            "find", new Syntax(EnumSet.noneOf(Flag.class), true, true),
+            "flexfind", new Syntax(EnumSet.noneOf(Flag.class), true, true),
+            "list", new Syntax(EnumSet.noneOf(Flag.class), true, true));
+    /** The syntax of the commands that take their argument as it is, such as <code>todo</code> */
+    private static final Syntax PLAIN_SYNTAX = new Syntax(EnumSet.noneOf(Flag.class), false, false);
+
+    private final String input;
+    private String keyword;
+    private boolean hasArguments;
+    private boolean isAllRequested;
+    private int index;
+    private int page;
+    private int pageSize;
+
+    /** The start offset of the argument and of each flag's value, -1 for absent flags */
+    private final int[] starts;
+    /** The end offset of the argument and of each flag's value */
+    private final int[] ends;
+    /** The number of words in the argument and in each flag's value */
+    private final int[] wordCounts;
+    /** Whether a part has to be rebuilt, because its words are not separated by exactly one space */
+    private final boolean[] isScattered;
+
+    /** An enumeration-type describing the flags that introduce values in a command line */
+    public enum Flag {
+        BY("/by"), FROM("/from"), TO("/to"), EVERY("/every"), UNTIL("/until"), ON("/on");
+
+        private final String token;
+
+        Flag(String token) {
+            this.token = token;
+        }
+
+        /**
+         * Returns the flag spelled by a region of a string.
+         * @param s The string
+         * @param start The start of the region (inclusive)
+         * @param end The end of the region (exclusive)
+         * @return the flag, or null if the region is not a flag
+         */
+        private static Flag match(String s, int start, int end) {
+            if (s.charAt(start) != '/') {
+                return null;
+            }
+
+            for (Flag flag : values()) {
+                if (isRegion(s, start, end, flag.token)) {
+                    return flag;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The Syntax class encapsulates the flags and options a command recognises.
+     */
+    private static class Syntax {
+        private final Set<Flag> flags;
+        private final boolean isAllAccepted;
+        private final boolean isPagingAccepted;
+
+        private Syntax(Set<Flag> flags, boolean isAllAccepted, boolean isPagingAccepted) {
+            this.flags = flags;
+            this.isAllAccepted = isAllAccepted;
+            this.isPagingAccepted = isPagingAccepted;
+        }
+    }
+
+    private ParsedCommand(String input) {
+        int parts = Flag.values().length + 1;
+
+        this.input = input;
+        this.index = NO_INDEX;
+        this.page = NO_INDEX;
+        this.pageSize = NO_INDEX;
+        this.starts = new int[parts];
+        this.ends = new int[parts];
+        this.wordCounts = new int[parts];
+        this.isScattered = new boolean[parts];
+    }
+
+    /**
+     * Tokenizes a user's command line.
+     * @param input The user's command line
+     * @return the parsed command
+     */
+    public static ParsedCommand of(String input) {
+        ParsedCommand command = new ParsedCommand(input);
+        int length = input.length();
+
+        int keywordStart = skipWhitespace(input, 0);
+        int keywordEnd = skipWord(input, keywordStart);
+        command.keyword = input.substring(keywordStart, keywordEnd);
+
+        Arrays.fill(command.starts, -1);
+        command.starts[ARGUMENT] = keywordEnd;
+        command.ends[ARGUMENT] = keywordEnd;
+
+        Syntax syntax = SYNTAXES.getOrDefault(command.keyword, PLAIN_SYNTAX);
+        int part = ARGUMENT;
+        // options are only recognised before the argument and the first flag
+        boolean isBeforeArgument = true;
+        int wordStart = skipWhitespace(input, keywordEnd);
+
+        while (wordStart < length) {
+            int wordEnd = skipWord(input, wordStart);
+            Flag flag = Flag.match(input, wordStart, wordEnd);
+
+            command.hasArguments = true;
+
+            if (flag != null && syntax.flags.contains(flag)) {
+                // a repeated flag replaces its earlier value
+                part = flag.ordinal() + 1;
+                command.starts[part] = wordEnd;
+                command.ends[part] = wordEnd;
+                command.wordCounts[part] = 0;
+                command.isScattered[part] = false;
+                isBeforeArgument = false;
+            } else if (isBeforeArgument && syntax.isAllAccepted && isRegion(input, wordStart, wordEnd, ALL_OPTION)) {
+                command.isAllRequested = true;
+            } else if (isBeforeArgument && syntax.isPagingAccepted
+                    && isRegion(input, wordStart, wordEnd, PAGE_OPTION)) {
+                command.page = readOptionValue(input, wordEnd);
+                wordEnd = skipOptionValue(input, wordEnd);
+            } else if (isBeforeArgument && syntax.isPagingAccepted
+                    && isRegion(input, wordStart, wordEnd, SIZE_OPTION)) {
+                command.pageSize = readOptionValue(input, wordEnd);
+                wordEnd = skipOptionValue(input, wordEnd);
+            } else {
+                command.addWord(part, wordStart, wordEnd);
+                isBeforeArgument = false;
+            }
+
+            wordStart = skipWhitespace(input, wordEnd);
+        }
+
+        return command;
+    }
+
+    /**
+     * Adds a word to the argument or a flag's value.
+     * @param part The part the word belongs to
+     * @param wordStart The start of the word (inclusive)
+     * @param wordEnd The end of the word (exclusive)
+     */
+    private void addWord(int part, int wordStart, int wordEnd) {
+        if (this.wordCounts[part] == 0) {
+            this.starts[part] = wordStart;
+            if (part == ARGUMENT) {
+                this.index = readIndex(this.input, wordStart, wordEnd);
+            }
+        } else if (wordStart != this.ends[part] + 1 || this.input.charAt(this.ends[part]) != ' ') {
+            this.isScattered[part] = true;
+        }
+
+        this.ends[part] = wordEnd;
+        this.wordCounts[part]++;
+    }
+
+    /**
+     * Returns the command keyword, i.e. the first word of the command line.
+     * @return the keyword
+     */
+    public String getKeyword() {
+        return this.keyword;
+    }
+
+    /**
+     * Checks whether anything follows the command keyword.
+     * @return <code>true</code> if the command line has more than one word, <code>false</code> otherwise
+     */
+    public boolean hasArguments() {
+        return this.hasArguments;
+    }
+
+    /**
+     * Checks whether the <code>--all</code> option is present.
+     * @return <code>true</code> if the option is present, <code>false</code> otherwise
+     */
+    public boolean isAllRequested() {
+        return this.isAllRequested;
+    }
+
+    /**
+     * Returns the page number given with the <code>--page</code> option.
+     * @return the page number, 0 if the option is not followed by a number, or <code>NO_INDEX</code> if the option
+     *     is absent
+     */
+    public int getPage() {
+        return this.page;
+    }
+
+    /**
+     * Returns the page size given with the <code>--size</code> option.
+     * @return the page size, 0 if the option is not followed by a number, or <code>NO_INDEX</code> if the option
+     *     is absent
+     */
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    /**
+     * Returns the words between the keyword and the first flag, separated by single spaces.
+     * @return the argument, which is empty if there are no such words
+     */
+    public String getArgument() {
+        return this.getPart(ARGUMENT);
+    }
+
+    /**
+     * Returns the number at the start of the argument, such as the task number in <code>mark 2</code>.
+     * Numbers too large to be an index are reported as <code>Integer.MAX_VALUE</code>.
+     * @return the number, or <code>NO_INDEX</code> if the argument does not start with a number
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the words following a flag, up to the next flag, separated by single spaces.
+     * @param flag The flag
+     * @return the value, which is empty if no words follow the flag, or null if the flag is absent
+     */
+    public String getValue(Flag flag) {
+        return this.getPart(flag.ordinal() + 1);
+    }
+
+    private String getPart(int part) {
+        int start = this.starts[part];
+        if (start == -1) {
+            return null;
+        }
+
+        if (!this.isScattered[part]) {
+            return this.input.substring(start, this.ends[part]);
+        }
+
+        StringBuilder value = new StringBuilder(this.ends[part] - start);
+        int wordStart = start;
+
+        while (wordStart < this.ends[part]) {
+            int wordEnd = skipWord(this.input, wordStart);
+            if (value.length() > 0) {
+                value.append(' ');
+            }
+            value.append(this.input, wordStart, wordEnd);
+            wordStart = skipWhitespace(this.input, wordEnd);
+        }
+
+        return value.toString();
+    }
+
+    private static int skipWhitespace(String s, int from) {
+        while (from < s.length() && Character.isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int skipWord(String s, int from) {
+        while (from < s.length() && !Character.isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Reads the number following an option such as <code>--page</code>.
+     * @param s The string
+     * @param optionEnd The end of the option (exclusive)
+     * @return the number, or 0 if the option is not followed by a number
+     */
+    private static int readOptionValue(String s, int optionEnd) {
+        int valueStart = skipWhitespace(s, optionEnd);
+        int valueEnd = skipWord(s, valueStart);
+        int value = valueStart == valueEnd ? NO_INDEX : readIndex(s, valueStart, valueEnd);
+        return value == NO_INDEX ? 0 : value;
+    }
+
+    /**
+     * Skips the number following an option, so that it is never taken as part of the argument.
+     * @param s The string
+     * @param optionEnd The end of the option (exclusive)
+     * @return the end of the number, or the end of the option if it is not followed by a number
+     */
+    private static int skipOptionValue(String s, int optionEnd) {
+        int valueStart = skipWhitespace(s, optionEnd);
+        int valueEnd = skipWord(s, valueStart);
+        boolean isNumber = valueStart < valueEnd && readIndex(s, valueStart, valueEnd) != NO_INDEX;
+        return isNumber ? valueEnd : optionEnd;
+    }
+
+    private static boolean isRegion(String s, int start, int end, String token) {
+        return end - start == token.length() && s.startsWith(token, start);
+    }
+
+    /**
+     * Reads a word as an optionally negative decimal number.
+     * @param s The string
+     * @param start The start of the word (inclusive)
+     * @param end The end of the word (exclusive)
+     * @return the number, clamped to the range of int, or <code>NO_INDEX</code> if the word is not a number
+     */
+    private static int readIndex(String s, int start, int end) {
+        boolean isNegative = s.charAt(start) == '-';
+        int i = isNegative ? start + 1 : start;
+        if (i == end) {
+            return NO_INDEX;
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_INDEX;
+            }
+            value = Math.min(value * 10 + (c - '0'), Integer.MAX_VALUE);
+        }
+
+        return (int) (isNegative ? -value : value);
+    }
+}
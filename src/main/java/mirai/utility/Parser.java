@@ -1,19 +1,21 @@
 package mirai.utility;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Locale;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
-import javafx.animation.PauseTransition;
-import javafx.application.Platform;
-import javafx.util.Duration;
 import mirai.tasks.Deadline;
 import mirai.tasks.Event;
+import mirai.tasks.Recurring;
 import mirai.tasks.Task;
 import mirai.tasks.ToDo;
 
@@ -23,55 +25,117 @@ import mirai.tasks.ToDo;
 public class Parser {
     /** A map to map user commands to specific actions of the chatbot */
     private final Map<String, Command> commandMap;
+    /** The action to run when the user ends the conversation */
+    private Runnable onExit;
+    private final Metrics metrics;
 
     /**
      * Initialises a parser.
      */
     public Parser() {
+        this(new Metrics());
+    }
+
+    /**
+     * Initialises a parser that records how long each command takes in the given metrics.
+     * @param metrics The metrics
+     */
+    public Parser(Metrics metrics) {
+        this.metrics = metrics;
         this.commandMap = new HashMap<>();
+        this.onExit = () -> { };
+        commandMap.put("agenda", this::showAgenda);
         commandMap.put("bye", this::endConversation);
+        commandMap.put("conflicts", this::listConflicts);
         commandMap.put("deadline", this::addDeadline);
         commandMap.put("delete", this::deleteTask);
         commandMap.put("event", this::addEvent);
+        commandMap.put("export", this::exportTasks);
         commandMap.put("find", this::findTasks);
         commandMap.put("flexfind", this::flexibleFindTasks);
         commandMap.put("help", this::listAllSupportedCommands);
+        commandMap.put("import", this::importTasks);
         commandMap.put("list", this::listAllTasks);
         commandMap.put("mark", this::markTask);
+        commandMap.put("metrics", this::showMetrics);
+        commandMap.put("recur", this::addRecurring);
+        commandMap.put("redo", this::redoEdit);
+        commandMap.put("reschedule", this::rescheduleOccurrence);
+        commandMap.put("skip", this::skipOccurrence);
         commandMap.put("todo", this::addTodo);
+        commandMap.put("undo", this::undoEdit);
         commandMap.put("unmark", this::unmarkTask);
         commandMap.put("UNKNOWN_COMMAND", this::handleUnknownCommand);
+        commandMap.replaceAll(this::timed);
+    }
+
+    /**
+     * Sets the action to run when the user ends the conversation, such as closing the application window.
+     * @param onExit The action
+     */
+    public void setOnExit(Runnable onExit) {
+        this.onExit = onExit;
     }
 
     /**
-     * Ends the conversation and closes the application after 2 seconds.
-     * @param args The user command, which is already split (by space) into an array
+     * Wraps a command so that every execution is timed and recorded in the metrics under the command keyword,
+     * whether it succeeds or not.
+     * @param keyword The command keyword
+     * @param command The command
+     * @return the timed command
+     */
+    private Command timed(String keyword, Command command) {
+        String name = keyword.equals("UNKNOWN_COMMAND") ? "(unknown)" : keyword;
+
+        return (parsedCommand, tasks, storage) -> {
+            long start = System.nanoTime();
+            try {
+                return command.execute(parsedCommand, tasks, storage);
+            } finally {
+                this.metrics.recordCommand(name, System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Shows the user how long each command and storage operation has taken so far.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return the metrics report
+     */
+    private String showMetrics(ParsedCommand command, TaskList tasks, Storage storage) {
+        return "Here is how Mirai has been doing since it started:\n" + this.metrics.report();
+    }
+
+    /**
+     * Ends the conversation by running the exit action.
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
      * @return a goodbye message
      */
-    private String endConversation(String[] args, TaskList tasks, Storage storage) {
-        PauseTransition delayClosure = new PauseTransition(Duration.seconds(2));
-        delayClosure.setOnFinished(event -> Platform.exit());
-        delayClosure.play();
+    private String endConversation(ParsedCommand command, TaskList tasks, Storage storage) {
+        this.onExit.run();
 
         return Message.GOODBYE;
     }
 
     /**
      * Adds a ToDo task to the list of tasks.
-     * @param args The user command, which is already split (by space) into an array
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
      * @return the message to tell the user the task addition is successful/failing
+     * @throws MiraiException if the command cannot be carried out
      */
-    private String addTodo(String[] args, TaskList tasks, Storage storage) {
-        if (args.length == 1) {
-            return Message.ERROR + "Mirai does not understand a to-do task with no content...\n"
-                    + "You can tell Mirai your to-do task by the syntax 'todo [task]'!\n";
+    private String addTodo(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        String description = command.getArgument();
+        if (description.isEmpty()) {
+            throw new MiraiException(Message.ERROR + "Mirai does not understand a to-do task with no content...\n"
+                    + "You can tell Mirai your to-do task by the syntax 'todo [task]'!\n");
         }
 
-        String description = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
         ToDo toDo = new ToDo(description);
 
         tasks.addTask(toDo);
@@ -82,68 +146,20 @@ public class Parser {
                 + Message.getNumOfTasks(tasks.getSize());
     }
 
-    /**
-     * Parses a user's date-time string.
-     * @param dateTime The user's date-time string
-     * @return a LocalDateTime representation of the user's date-time
-     */
-    private static LocalDateTime parseUserDateTime(String dateTime) {
-        DateTimeFormatter formatter = new DateTimeFormatterBuilder()
-                .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yyyy HHmm")) // 31/01/2025 1559
-                .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")) // 31/01/2025 15:59
-                .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yy HHmm")) // 31/01/25 1559
-                .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yy HH:mm")) // 31/01/25 15:59
-                .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm")) // 2025-01-31 1559
-                .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) // 2025-01-31 15:59
-                .toFormatter(Locale.ENGLISH);
-
-        return LocalDateTime.parse(dateTime, formatter);
-    }
-
-    /**
-     * Finds the index of a keyword among the arguments.
-     * @param args The arguments
-     * @param keyword The keyword to search for
-     * @param fromInclusive The index to search from (inclusive)
-     * @param toExclusive The index to terminate search (terminate before this index)
-     * @return The index of the keyword, -1 if the keyword does not exist in the range.
-     */
-    private int findIndex(String[] args, String keyword, int fromInclusive, int toExclusive) {
-        for (int i = 0; i < args.length; i++) {
-            if (args[i].equals(keyword)) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
-    /**
-     * Extracts the arguments necessary to construct a deadline.
-     * @param args The arguments
-     * @return An array containing two Strings: the description and the deadline date
-     */
-    private String[] extractDeadlineArgs(String[] args) {
-        int byIndex = findIndex(args, "/by", 0, args.length);
-        if (byIndex == -1) {
-            return new String[] {null, null};
-        }
-
-        String description = String.join(" ", Arrays.copyOfRange(args, 1, byIndex));
-        String deadline = String.join(" ", Arrays.copyOfRange(args, byIndex + 1, args.length));
-
-        return new String[] {description, deadline};
-    }
-
     /**
      * Parses a date-time string.<br>
-     * <b>Note:</b> This is a wrapper over Parser::parseUserDateTime
+     * <b>Note:</b> This is a wrapper over DateTime::parseUserInput
      * within a try-catch block.
-     * @param timeValue The date-time string.
+     * @param timeValue The date-time string, or null if the user did not give one.
      * @return The LocalDateTime object if the string parse is successful. Else, null.
      */
     private LocalDateTime parseDateTime(String timeValue) {
+        if (timeValue == null) {
+            return null;
+        }
+
         try {
-            return Parser.parseUserDateTime(timeValue);
+            return DateTime.parseUserInput(timeValue);
         } catch (DateTimeParseException e) {
             return null;
         }
@@ -151,27 +167,24 @@ public class Parser {
 
     /**
      * Adds a Deadline task to the list of tasks.
-     * @param args The user command, which is already split (by space) into an array
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
      * @return the message to tell the user the task addition is successful/failing
+     * @throws MiraiException if the command cannot be carried out
      */
-    private String addDeadline(String[] args, TaskList tasks, Storage storage) {
-        if (args.length == 1) {
-            return Message.ERROR + "Mirai does not understand a deadline with no content...\n"
+    private String addDeadline(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        if (!command.hasArguments()) {
+            throw new MiraiException(Message.ERROR + "Mirai does not understand a deadline with no content...\n"
                 + "You can tell Mirai your deadline by the syntax 'deadline [task] /by [deadline]'!\n"
-                + Message.SUPPORTED_DATETIME_FORMATS;
+                + Message.SUPPORTED_DATETIME_FORMATS);
         }
 
-        String[] deadlineArgs = extractDeadlineArgs(args);
-
-        String description = deadlineArgs[0];
-        String deadline = deadlineArgs[1];
-
-        LocalDateTime deadlineTime = parseDateTime(deadline);
+        String description = command.getArgument();
+        LocalDateTime deadlineTime = parseDateTime(command.getValue(ParsedCommand.Flag.BY));
         if (deadlineTime == null) {
-            return Message.ERROR + "Mirai does not understand your deadline...\n"
-                    + Message.SUPPORTED_DATETIME_FORMATS;
+            throw new MiraiException(Message.ERROR + "Mirai does not understand your deadline...\n"
+                    + Message.SUPPORTED_DATETIME_FORMATS);
         }
 
         Deadline task = new Deadline(description, deadlineTime);
@@ -183,122 +196,455 @@ public class Parser {
                 + Message.getNumOfTasks(tasks.getSize());
     }
 
-    /**
-     * Extracts the arguments necessary to construct an Event.
-     * @param args The arguments
-     * @return An array containing three Strings: the description, the start time and the end time
-     */
-    private String[] extractEventArgs(String[] args) {
-        int fromIndex = findIndex(args, "/from", 0, args.length);
-
-        if (fromIndex == -1) {
-            return new String[] {null, null, null};
-        }
-
-        int toIndex = findIndex(args, "/to", fromIndex + 1, args.length);
-        String description = String.join(" ", Arrays.copyOfRange(args, 1, fromIndex));
-        String startTimeString = String.join(" ", Arrays.copyOfRange(args, fromIndex + 1, toIndex));
-
-        if (toIndex == -1) {
-            return new String[] {description, startTimeString, null};
-        }
-
-        String endTimeIndex = String.join(" ", Arrays.copyOfRange(args, toIndex + 1, args.length));
-
-        return new String[] {description, startTimeString, endTimeIndex};
-    }
-
     /**
      * Adds an Event task to the list of tasks.
-     * @param args The user command, which is already split (by space) into an array
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
      * @return the message to tell the user the task addition is successful/failing
+     * @throws MiraiException if the command cannot be carried out
      */
-    private String addEvent(String[] args, TaskList tasks, Storage storage) {
-        if (args.length == 1) {
-            return Message.ERROR + "Mirai does not understand an event with no content...\n"
+    private String addEvent(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        if (!command.hasArguments()) {
+            throw new MiraiException(Message.ERROR + "Mirai does not understand an event with no content...\n"
                     + "You can tell Mirai your event by the syntax 'event [task] /from [start time] /to [end time]'!\n"
-                    + Message.SUPPORTED_DATETIME_FORMATS;
+                    + Message.SUPPORTED_DATETIME_FORMATS);
         }
 
-        String[] timeStrings = extractEventArgs(args);
-        String description = timeStrings[0];
-        String startTimeString = timeStrings[1];
-        String endTimeString = timeStrings[2];
+        String description = command.getArgument();
+        String startTimeString = command.getValue(ParsedCommand.Flag.FROM);
+        String endTimeString = command.getValue(ParsedCommand.Flag.TO);
 
         if (startTimeString == null) {
-            return Message.ERROR + "You forgot to specify your start time...\n"
+            throw new MiraiException(Message.ERROR + "You forgot to specify your start time...\n"
                     + "You can tell Mirai your event by the syntax 'event [task] /from [start time] /to [end time]'!\n"
-                    + Message.SUPPORTED_DATETIME_FORMATS;
+                    + Message.SUPPORTED_DATETIME_FORMATS);
         }
 
         if (endTimeString == null) {
-            return "You forgot to specify your end time...\n"
+            throw new MiraiException("You forgot to specify your end time...\n"
                     + "You can tell Mirai your event by the syntax 'event [task] /from [start time] /to [end time]'!\n"
-                    + Message.SUPPORTED_DATETIME_FORMATS;
+                    + Message.SUPPORTED_DATETIME_FORMATS);
         }
 
         LocalDateTime startTime = parseDateTime(startTimeString);
         if (startTime == null) {
-            return Message.ERROR + "Mirai does not understand your start time...\n"
-                    + Message.SUPPORTED_DATETIME_FORMATS;
+            throw new MiraiException(Message.ERROR + "Mirai does not understand your start time...\n"
+                    + Message.SUPPORTED_DATETIME_FORMATS);
         }
 
         LocalDateTime endTime = parseDateTime(endTimeString);
         if (endTime == null) {
-            return Message.ERROR + "Mirai does not understand your end time...\n" + Message.SUPPORTED_DATETIME_FORMATS;
+            throw new MiraiException(Message.ERROR + "Mirai does not understand your end time...\n"
+                    + Message.SUPPORTED_DATETIME_FORMATS);
         }
 
         Event task = new Event(description, startTime, endTime);
+        List<Event> conflicts = tasks.findConflicts(task);
 
         tasks.addTask(task);
         storage.logNewTask(task);
 
+        StringBuilder message = new StringBuilder("Got it. I've added this task:\n")
+                .append("  ").append(task);
+
+        if (!conflicts.isEmpty()) {
+            message.append("\nHeads up! It overlaps with ")
+                    .append(conflicts.size() == 1 ? "this event" : "these events")
+                    .append(" in your list:");
+            for (Event conflict : conflicts) {
+                message.append("\n  ").append(conflict);
+            }
+        }
+
+        return message.toString();
+    }
+
+    /**
+     * Adds a recurring task to the list of tasks.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return the message to tell the user the task addition is successful/failing
+     * @throws MiraiException if the command cannot be carried out
+     */
+    private String addRecurring(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        String syntax = "You can tell Mirai your recurring task by the syntax "
+                + "'recur [task] /from [first time] /every [day|week] /until [last time]', "
+                + "where '/until [last time]' is optional!\n";
+
+        String startString = command.getValue(ParsedCommand.Flag.FROM);
+        String frequencyString = command.getValue(ParsedCommand.Flag.EVERY);
+        String untilString = command.getValue(ParsedCommand.Flag.UNTIL);
+        if (!command.hasArguments() || startString == null || frequencyString == null) {
+            throw new MiraiException(Message.ERROR + "Mirai does not understand this recurring task...\n"
+                    + syntax + Message.SUPPORTED_DATETIME_FORMATS);
+        }
+
+        LocalDateTime start = parseDateTime(startString);
+        if (start == null) {
+            throw new MiraiException(Message.ERROR + "Mirai does not understand your first time...\n"
+                    + Message.SUPPORTED_DATETIME_FORMATS);
+        }
+
+        Recurring.Frequency frequency = Recurring.Frequency.fromUnit(frequencyString);
+        if (frequency == null) {
+            throw new MiraiException(Message.ERROR + "Mirai can only repeat tasks every day or every week...\n"
+                    + syntax);
+        }
+
+        LocalDateTime until = parseDateTime(untilString);
+        if (untilString != null && until == null) {
+            throw new MiraiException(Message.ERROR + "Mirai does not understand your last time...\n"
+                    + Message.SUPPORTED_DATETIME_FORMATS);
+        }
+
+        Recurring task = new Recurring(command.getArgument(), start, frequency, until);
+        tasks.addTask(task);
+        storage.logNewTask(task);
+
         return "Got it. I've added this task:\n"
+                + "  " + task + "\n"
+                + Message.getNumOfTasks(tasks.getSize());
+    }
+
+    /**
+     * Returns the recurring task at the index given by the user.
+     * @param taskIndex The user's 1-based index
+     * @param tasks The list of tasks
+     * @return the recurring task, or null if there is no recurring task at the index
+     */
+    private static Recurring getRecurringTask(int taskIndex, TaskList tasks) {
+        if (taskIndex < 1 || taskIndex > tasks.getSize()) {
+            return null;
+        }
+
+        Task task = tasks.getTask(taskIndex - 1);
+        return task instanceof Recurring recurring ? recurring : null;
+    }
+
+    /**
+     * Cancels a single occurrence of a recurring task.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return a message showing the updated recurring task
+     * @throws MiraiException if the command cannot be carried out
+     */
+    private String skipOccurrence(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        Recurring task = getRecurringTask(command.getIndex(), tasks);
+        if (task == null) {
+            throw new MiraiException(Message.ERROR + "Mirai cannot find a recurring task with that index...\n"
+                    + "You can skip an occurrence by the syntax 'skip [index] /on [date]'!");
+        }
+
+        LocalDateTime date = parseDateTime(command.getValue(ParsedCommand.Flag.ON));
+        if (date == null || !tasks.cancelOccurrence(task, date.toLocalDate())) {
+            throw new MiraiException(Message.ERROR + "Mirai cannot find an occurrence of this task on that date...\n"
+                    + Message.SUPPORTED_DATETIME_FORMATS);
+        }
+
+        relogAllTasks(tasks, storage);
+
+        return "OK, I've skipped that occurrence:\n"
                 + "  " + task;
     }
 
     /**
-     * Lists all tasks to the user.
-     * @param args The user command, which is already split (by space) into an array
+     * Moves a single occurrence of a recurring task to another time.
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
-     * @return the message string of all user's tasks
+     * @return a message showing the updated recurring task
+     * @throws MiraiException if the command cannot be carried out
      */
-    private String listAllTasks(String[] args, TaskList tasks, Storage storage) {
-        StringBuilder result = new StringBuilder("Here are the tasks in your list:\n");
+    private String rescheduleOccurrence(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        Recurring task = getRecurringTask(command.getIndex(), tasks);
+        if (task == null) {
+            throw new MiraiException(Message.ERROR + "Mirai cannot find a recurring task with that index...\n"
+                    + "You can move an occurrence by the syntax "
+                    + "'reschedule [index] /on [date] /to [new time]'!");
+        }
+
+        LocalDateTime date = parseDateTime(command.getValue(ParsedCommand.Flag.ON));
+        LocalDateTime newTime = parseDateTime(command.getValue(ParsedCommand.Flag.TO));
+        if (newTime == null) {
+            throw new MiraiException(Message.ERROR + "Mirai does not understand your new time...\n"
+                    + Message.SUPPORTED_DATETIME_FORMATS);
+        }
+
+        if (date == null || !tasks.rescheduleOccurrence(task, date.toLocalDate(), newTime)) {
+            throw new MiraiException(Message.ERROR + "Mirai cannot find an occurrence of this task on that date...\n"
+                    + Message.SUPPORTED_DATETIME_FORMATS);
+        }
+
+        relogAllTasks(tasks, storage);
+
+        return "OK, I've moved that occurrence:\n"
+                + "  " + task;
+    }
+
+    /**
+     * Lists everything happening within a time window: deadlines that fall in it, events that overlap with it and
+     * the occurrences of recurring tasks in it, in chronological order.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return a message showing the user's agenda
+     * @throws MiraiException if the command cannot be carried out
+     */
+    private String showAgenda(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        LocalDateTime from = parseDateTime(command.getValue(ParsedCommand.Flag.FROM));
+        LocalDateTime to = parseDateTime(command.getValue(ParsedCommand.Flag.TO));
+        if (from == null || to == null) {
+            throw new MiraiException(Message.ERROR + "Mirai does not understand this time window...\n"
+                    + "You can see your agenda by the syntax 'agenda /from [start time] /to [end time]'!\n"
+                    + Message.SUPPORTED_DATETIME_FORMATS);
+        }
+
+        List<Map.Entry<LocalDateTime, Task>> entries = new ArrayList<>();
+
+        for (Event event : tasks.findEventsBetween(from, to)) {
+            entries.add(Map.entry(event.getStartTime(), event));
+        }
 
         for (int i = 0; i < tasks.getSize(); i++) {
-            result.append(i + 1).append('.').append(tasks.getTask(i).toString()).append('\n');
+            Task task = tasks.getTask(i);
+
+            if (task instanceof Deadline deadline
+                    && !deadline.getDeadline().isBefore(from) && deadline.getDeadline().isBefore(to)) {
+                entries.add(Map.entry(deadline.getDeadline(), task));
+            } else if (task instanceof Recurring recurring) {
+                Iterator<LocalDateTime> occurrences = recurring.getOccurrences(from, to);
+                while (occurrences.hasNext()) {
+                    entries.add(Map.entry(occurrences.next(), task));
+                }
+            }
+        }
+
+        entries.sort(Map.Entry.comparingByKey());
+
+        StringBuilder message = new StringBuilder("Here is your agenda:\n");
+
+        for (Map.Entry<LocalDateTime, Task> entry : entries) {
+            Task task = entry.getValue();
+            String type = task instanceof Deadline ? "due" : task instanceof Event ? "event" : "repeats";
+
+            DateTime.writeDisplay(message, entry.getKey());
+            message.append(" (").append(type).append(") ")
+                    .append(task.getDescription())
+                    .append('\n');
+        }
+
+        return message.toString();
+    }
+
+    /**
+     * Lists every pair of events in the list of tasks whose times overlap.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return a message showing the user all overlapping events
+     */
+    private String listConflicts(ParsedCommand command, TaskList tasks, Storage storage) {
+        List<Event[]> conflicts = tasks.findAllConflicts();
+
+        if (conflicts.isEmpty()) {
+            return "Good news! None of your events overlap.";
+        }
+
+        StringBuilder message = new StringBuilder("Here are the events in your list that overlap:\n");
+
+        for (int i = 0; i < conflicts.size(); i++) {
+            Event[] pair = conflicts.get(i);
+            message.append(i + 1).append('.');
+            pair[0].writeDisplay(message);
+            message.append('\n').append("  overlaps with ");
+            pair[1].writeDisplay(message);
+            message.append('\n');
+        }
+
+        return message.toString();
+    }
+
+    /**
+     * Appends a numbered section of archived tasks to a message.
+     * @param message The message
+     * @param archivedTasks The archived tasks to show
+     */
+    private static void appendArchivedTasks(StringBuilder message, List<Task> archivedTasks) {
+        message.append("And here are the ones from your archive:\n");
+
+        for (int i = 0; i < archivedTasks.size(); i++) {
+            message.append('A').append(i + 1).append('.');
+            archivedTasks.get(i).writeDisplay(message);
+            message.append('\n');
+        }
+    }
+
+    /**
+     * Appends one page of the tasks matching a filter to a message, followed by a line saying which tasks are shown
+     * if they do not fit on one page.
+     * @param message The message
+     * @param tasks The list of tasks
+     * @param filter The tasks to show, or null to show all tasks
+     * @param page The page to show
+     * @throws MiraiException if the page is past the last matching task
+     */
+    private static void appendPage(StringBuilder message, TaskList tasks, Predicate<Task> filter, Page page)
+            throws MiraiException {
+        int total;
+        try {
+            total = tasks.appendPage(message, filter, page.getOffset(), page.getSize());
+        } catch (IOException e) {
+            // appending to a StringBuilder never fails
+            throw new UncheckedIOException(e);
+        }
+
+        page.checkInRange(total);
+        page.appendFooter(message, total);
+    }
+
+    /**
+     * Returns the file named in a command that moves tasks in or out of Mirai.
+     * @param command The user's parsed command
+     * @return the file
+     * @throws MiraiException if no file, or an invalid file, is named
+     */
+    private static Path getTransferFile(ParsedCommand command) throws MiraiException {
+        String fileName = command.getArgument();
+        if (fileName.isEmpty()) {
+            throw new MiraiException(Message.ERROR + "Mirai does not know which file to use...\n"
+                    + "Please name a .csv or .jsonl file, such as " + command.getKeyword() + " tasks.csv");
+        }
+
+        try {
+            return Path.of(fileName);
+        } catch (InvalidPathException e) {
+            throw new MiraiException(Message.ERROR + "Mirai cannot use the file '" + fileName + "'...\n"
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the tasks to a CSV or JSON Lines file, streaming them one at a time. With the <code>--all</code> option,
+     * archived tasks are saved too.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return the message telling the user how many tasks were saved
+     * @throws MiraiException if the file cannot be written
+     */
+    private String exportTasks(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        Path file = getTransferFile(command);
+        List<Task> archivedTasks = command.isAllRequested() ? storage.loadArchivedTasks() : List.of();
+
+        try {
+            int count = TaskTransfer.export(file, tasks, archivedTasks);
+            return "Mirai saved " + count + (count == 1 ? " task" : " tasks") + " to " + file + ".";
+        } catch (IOException e) {
+            throw new MiraiException(Message.ERROR + "Mirai could not write to " + file + "...\n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the tasks in a CSV or JSON Lines file to the end of the list, saving them in large batches. Importing
+     * cannot be undone, and cannot be combined with other commands in one message, since every batch is saved as
+     * soon as it is read.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return the message telling the user how many tasks were added
+     * @throws MiraiException if the file cannot be read, or a task in it is not valid
+     */
+    private String importTasks(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        if (storage.isBatchOpen()) {
+            throw new MiraiException(Message.ERROR + "Mirai cannot import in the middle of a message...\n"
+                    + "Please send 'import' on its own.");
+        }
+
+        Path file = getTransferFile(command);
+        try {
+            int count = TaskTransfer.importTasks(file, tasks, storage);
+            return "Mirai added " + count + (count == 1 ? " task" : " tasks") + " from " + file + ".\n"
+                    + Message.getNumOfTasks(tasks.getSize());
+        } catch (IOException e) {
+            throw new MiraiException(Message.ERROR + "Mirai could not read " + file + "...\n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Lists all tasks to the user, one page at a time. With the <code>--all</code> option, archived tasks are listed
+     * as well.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return the message string of the user's tasks
+     * @throws MiraiException if the page is invalid
+     */
+    private String listAllTasks(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        Page page = Page.of(command);
+        StringBuilder result = new StringBuilder("Here are the tasks in your list:\n");
+        appendPage(result, tasks, null, page);
+
+        if (command.isAllRequested()) {
+            appendArchivedTasks(result, storage.loadArchivedTasks());
         }
 
         return result.toString();
     }
 
     /**
-     * Marks a task as done.
-     * @param args The user command, which is already split (by space) into an array
+     * Overwrites the storage file with the list of tasks after a change.
      * @param tasks The list of tasks
      * @param storage The task storage
-     * @return the message showing user the marked task, or an error message
+     * @throws MiraiException if another program changed the file in the meantime, so the change was not saved
      */
-    private String markTask(String[] args, TaskList tasks, Storage storage) {
-        int taskIndex = Integer.parseInt(args[1]);
+    private static void relogAllTasks(TaskList tasks, Storage storage) throws MiraiException {
+        if (!storage.relogAllTasks(tasks.getTaskList())) {
+            throw new MiraiException(Message.FILE_CHANGED);
+        }
+    }
+
+    /**
+     * Checks that an index given by the user refers to a task in the list.
+     * @param taskIndex The user's 1-based index, or <code>ParsedCommand.NO_INDEX</code> if none was given
+     * @param tasks The list of tasks
+     * @throws MiraiException if the index is missing or outside the list
+     */
+    private static void checkIndex(int taskIndex, TaskList tasks) throws MiraiException {
+        if (taskIndex == ParsedCommand.NO_INDEX) {
+            throw new MiraiException(Message.ERROR + "Mirai does not know which task you mean...\n"
+                    + "Please specify the task by its index in your list!");
+        }
 
         if (taskIndex < 1) {
-            return Message.ERROR + "It looks like you have keyed in a non-positive index...\n"
-                    + "Mirai stores your tasks with positive indexes. Please specify a positive index!";
+            throw new MiraiException(Message.ERROR + "It looks like you have keyed in a non-positive index...\n"
+                    + "Mirai stores your tasks with positive indexes. Please specify a positive index!");
         }
 
         if (taskIndex > tasks.getSize()) {
-            return Message.ERROR + "It looks like you have keyed in a too large index...\n"
+            throw new MiraiException(Message.ERROR + "It looks like you have keyed in a too large index...\n"
                     + "You are only having " + tasks.getSize()
-                    + " task(s) in your list. Please specify an index smaller than this!";
+                    + " task(s) in your list. Please specify an index smaller than this!");
         }
+    }
+
+    /**
+     * Marks a task as done.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return the message showing user the marked task
+     * @throws MiraiException if the command cannot be carried out
+     */
+    private String markTask(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        int taskIndex = command.getIndex();
+
+        checkIndex(taskIndex, tasks);
 
         tasks.markTask(taskIndex - 1);
-        storage.relogAllTasks(tasks.getTaskList());
+        relogAllTasks(tasks, storage);
 
         return "Nice! I've marked this task as done:\n"
                 + "  " + tasks.getTask(taskIndex - 1).toString();
@@ -306,27 +652,19 @@ public class Parser {
 
     /**
      * Marks a task as not done.
-     * @param args The user command, which is already split (by space) into an array
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
-     * @return the message showing user the unmarked task, or an error message
+     * @return the message showing user the unmarked task
+     * @throws MiraiException if the command cannot be carried out
      */
-    private String unmarkTask(String[] args, TaskList tasks, Storage storage) {
-        int taskIndex = Integer.parseInt(args[1]);
+    private String unmarkTask(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        int taskIndex = command.getIndex();
 
-        if (taskIndex < 1) {
-            return Message.ERROR + "It looks like you have keyed in a non-positive index...\n"
-                    + "Mirai stores your tasks with positive indexes. Please specify a positive index!";
-        }
-
-        if (taskIndex > tasks.getSize()) {
-            return Message.ERROR + "It looks like you have keyed in a too large index...\n"
-                    + "You are only having " + tasks.getSize()
-                    + " task(s) in your list. Please specify an index smaller than this!";
-        }
+        checkIndex(taskIndex, tasks);
 
         tasks.unmarkTask(taskIndex - 1);
-        storage.relogAllTasks(tasks.getTaskList());
+        relogAllTasks(tasks, storage);
 
         return "OK, I've marked this task as not done yet:\n"
                 + "  " + tasks.getTask(taskIndex - 1).toString();
@@ -334,28 +672,30 @@ public class Parser {
 
     /**
      * Informs the user that the command is undefined.
-     * @param args The user command, which is already split (by space) into an array
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
-     * @return an error message telling the user that the command is undefined
+     * @return nothing, since the command always fails
+     * @throws MiraiException always, telling the user that the command is undefined
      */
-    private String handleUnknownCommand(String[] args, TaskList tasks, Storage storage) {
-        return "Sorry, Mirai does not understand what you mean...\n"
-                + "Please type 'help' to know what commands Mirai can understand!";
+    private String handleUnknownCommand(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        throw new MiraiException("Sorry, Mirai does not understand what you mean...\n"
+                + "Please type 'help' to know what commands Mirai can understand!");
     }
 
     /**
      * Lists all commands supported by the chatbot.
-     * @param args The user command, which is already split (by space) into an array
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
      * @return a message string to list all supported commands
      */
-    private String listAllSupportedCommands(String[] args, TaskList tasks, Storage storage) {
+    private String listAllSupportedCommands(ParsedCommand command, TaskList tasks, Storage storage) {
         StringBuilder message = new StringBuilder("Mirai currently supports the following commands:\n");
 
-        for (Map.Entry<String, String> command : Message.COMMAND_DESCRIPTION.entrySet()) {
-            message.append(String.format(">>> %s:\n%s", command.getKey(), command.getValue())).append('\n');
+        for (Map.Entry<String, String> description : Message.COMMAND_DESCRIPTION.entrySet()) {
+            message.append(">>> ").append(description.getKey()).append(":\n")
+                    .append(description.getValue()).append('\n');
         }
 
         return message.toString();
@@ -363,28 +703,20 @@ public class Parser {
 
     /**
      * Removes a task at the specified index.
-     * @param args The user command, which is already split (by space) into an array
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
-     * @return a message to tell the user the deleted task, or an error message
+     * @return a message to tell the user the deleted task
+     * @throws MiraiException if the command cannot be carried out
      */
-    private String deleteTask(String[] args, TaskList tasks, Storage storage) {
-        int taskIndex = Integer.parseInt(args[1]);
-
-        if (taskIndex < 1) {
-            return Message.ERROR + "It looks like you have keyed in a non-positive index...\n"
-                    + "Mirai stores your tasks with positive indexes. Please specify a positive index!";
-        }
+    private String deleteTask(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        int taskIndex = command.getIndex();
 
-        if (taskIndex > tasks.getSize()) {
-            return Message.ERROR + "It looks like you have keyed in a too large index...\n"
-                    + "You are only having " + tasks.getSize()
-                    + " task(s) in your list. Please specify an index smaller than this!";
-        }
+        checkIndex(taskIndex, tasks);
 
         Task removedTask = tasks.getTask(taskIndex - 1);
         tasks.deleteTask(taskIndex - 1);
-        storage.relogAllTasks(tasks.getTaskList());
+        relogAllTasks(tasks, storage);
 
         return "Noted. I've removed this task:\n"
                 + "  " + removedTask.toString()
@@ -392,64 +724,126 @@ public class Parser {
     }
 
     /**
-     * Displays to the user all tasks matching a given keyword.
-     * @param args The user command, which is already split (by space) into an array
+     * Describes an edit that has just been applied to the task list.
+     * @param edit The applied edit
+     * @return a message describing the effect of the edit
+     */
+    private String describeEdit(Edit edit) {
+        String effect = switch (edit.getKind()) {
+        case ADD -> "I've put this task back into your list:\n";
+        case DELETE -> "I've removed this task from your list:\n";
+        case MARK -> "I've marked this task as done:\n";
+        case UNMARK -> "I've marked this task as not done yet:\n";
+        };
+
+        return effect + "  " + edit.getTask().toString();
+    }
+
+    /**
+     * Reverts the most recent change to the list of tasks.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return a message describing the reverted change
+     * @throws MiraiException if the command cannot be carried out
+     */
+    private String undoEdit(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        Edit edit = tasks.undo();
+        if (edit == null) {
+            throw new MiraiException(Message.ERROR + "There is nothing for Mirai to undo...");
+        }
+
+        storage.logEdit(edit);
+
+        return "Undone! " + describeEdit(edit);
+    }
+
+    /**
+     * Re-applies the most recently undone change to the list of tasks.
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
-     * @return a message showing the user all tasks with the matching keyword
+     * @return a message describing the re-applied change
+     * @throws MiraiException if the command cannot be carried out
      */
-    public String findTasks(String[] args, TaskList tasks, Storage storage) {
-        String keyword = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+    private String redoEdit(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        Edit edit = tasks.redo();
+        if (edit == null) {
+            throw new MiraiException(Message.ERROR + "There is nothing for Mirai to redo...");
+        }
+
+        storage.logEdit(edit);
 
-        TaskList filteredTaskList = tasks.filterBasedOnKeyword(keyword);
+        return "Redone! " + describeEdit(edit);
+    }
+
+    /**
+     * Displays to the user the tasks matching a given keyword, one page at a time. With the <code>--all</code>
+     * option, archived tasks are searched as well.
+     * @param command The user's parsed command
+     * @param tasks The list of tasks
+     * @param storage The task storage
+     * @return a message showing the user the tasks with the matching keyword
+     * @throws MiraiException if the page is invalid
+     */
+    public String findTasks(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        String keyword = command.getArgument();
+        Page page = Page.of(command);
 
         StringBuilder message = new StringBuilder("Here are the matching tasks in your list:\n");
+        appendPage(message, tasks, task -> task.contains(keyword), page);
 
-        for (int i = 0; i < filteredTaskList.getSize(); i++) {
-            message.append(i + 1).append('.').append(filteredTaskList.getTask(i).toString()).append('\n');
+        if (command.isAllRequested()) {
+            TaskList archivedTasks = new TaskList(storage.loadArchivedTasks());
+            appendArchivedTasks(message, archivedTasks.filterBasedOnKeyword(keyword).getTaskList());
         }
 
         return message.toString();
     }
 
     /**
-     * Displays to the user all tasks based on relevance to a keyword. The relevance algorithm is available in the
-     * method <code>Task::computeCloseness(String)</code>.
-     * @param args The user command, which is already split (by space) into an array
+     * Displays to the user the tasks based on relevance to a keyword, one page at a time. The relevance algorithm is
+     * available in the method <code>Task::computeCloseness(String)</code>. With the <code>--all</code> option,
+     * archived tasks are ranked as well.
+     * @param command The user's parsed command
      * @param tasks The list of tasks
      * @param storage The task storage
-     * @return a message showing the user all tasks with the matching keyword
+     * @return a message showing the user the tasks closest to the keyword
+     * @throws MiraiException if the page is invalid
      */
-    public String flexibleFindTasks(String[] args, TaskList tasks, Storage storage) {
-        String keyword = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+    public String flexibleFindTasks(ParsedCommand command, TaskList tasks, Storage storage) throws MiraiException {
+        String keyword = command.getArgument();
+        Page page = Page.of(command);
+        page.checkInRange(tasks.getSize());
 
-        TaskList filteredTaskList = tasks.sortSearchResults(keyword);
+        // only the tasks up to the end of the page are ranked in full
+        int count = (int) Math.min((long) page.getOffset() + page.getSize(), tasks.getSize());
+        List<Task> closestTasks = tasks.findClosest(keyword, count);
 
         StringBuilder message = new StringBuilder("Here are your tasks in order of relevance:\n");
 
-        for (int i = 0; i < filteredTaskList.getSize(); i++) {
-            message.append(i + 1)
-                    .append('.')
-                    .append(filteredTaskList.getTask(i).toString())
-                    .append('\n');
+        for (int i = page.getOffset(); i < closestTasks.size(); i++) {
+            message.append(i + 1).append('.');
+            closestTasks.get(i).writeDisplay(message);
+            message.append('\n');
+        }
+        page.appendFooter(message, tasks.getSize());
+
+        if (command.isAllRequested()) {
+            TaskList archivedTasks = new TaskList(storage.loadArchivedTasks());
+            appendArchivedTasks(message, archivedTasks.sortSearchResults(keyword).getTaskList());
         }
 
         return message.toString();
     }
 
     /**
-     * Parses the user's command line and return the corresponding executable command.
-     * @param command The user's command line
+     * Returns the executable command for the user's tokenized command line.
+     * @param command The user's parsed command
      * @return an executable Command
      */
-    public Command parse(String command) {
-        String[] args = command.split("\\s+");
-        String keyword = args[0];
-
-        if (this.commandMap.containsKey(keyword)) {
-            return this.commandMap.get(keyword);
-        } else {
-            return this.commandMap.get("UNKNOWN_COMMAND");
-        }
+    public Command parse(ParsedCommand command) {
+        Command executable = this.commandMap.get(command.getKeyword());
+        return executable != null ? executable : this.commandMap.get("UNKNOWN_COMMAND");
     }
 }
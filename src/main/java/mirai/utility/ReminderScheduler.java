@@ -0,0 +1,268 @@
+package mirai.utility;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import mirai.tasks.Deadline;
+import mirai.tasks.Event;
+import mirai.tasks.Task;
+
+/**
+ * The ReminderScheduler class reminds the user of deadlines and events a set time before they are due.<br><br>
+ *
+ * The scheduler follows a task list as a listener, and keeps a reminder for every lead time of every deadline and
+ * event that is not done, in a tree ordered by when each reminder is due. A change to the list only adds or removes
+ * the reminders of the changed task, in logarithmic time, and a single timer waits for the earliest reminder, so
+ * nothing runs between reminders however many tasks there are.<br><br>
+ *
+ * Reminders that would already be due when a task is added, e.g. when Mirai starts, are not given.
+ */
+public class ReminderScheduler implements TaskListListener {
+    /** The default lead times, configurable in minutes with <code>-Dmirai.remindMinutesBefore=60,0</code> */
+    public static final List<Duration> DEFAULT_LEAD_TIMES =
+            parseLeadTimes(System.getProperty("mirai.remindMinutesBefore", "60,0"));
+
+    private final List<Duration> leadTimes;
+    private final Clock clock;
+    private final Consumer<String> onReminder;
+    /** Every reminder still to be given, earliest first */
+    private final NavigableSet<Reminder> reminders;
+    /** The reminders of each task, to find them again when the task changes */
+    private final Map<Task, List<Reminder>> remindersByTask;
+    private final ScheduledExecutorService timer;
+    /** The reminder the timer is waiting for, null if there are no reminders */
+    private Reminder nextReminder;
+    private ScheduledFuture<?> nextAlarm;
+    /** The number of reminders made so far, which orders reminders due at the same time */
+    private long reminderCount;
+
+    /**
+     * Initialises a scheduler without any reminders.
+     * @param leadTimes How long before a task is due to remind the user, once for each lead time
+     * @param clock The clock telling when reminders are due
+     * @param onReminder The action showing a reminder to the user, run on the thread of the timer
+     */
+    public ReminderScheduler(List<Duration> leadTimes, Clock clock, Consumer<String> onReminder) {
+        this.leadTimes = List.copyOf(leadTimes);
+        this.clock = clock;
+        this.onReminder = onReminder;
+        this.reminders = new TreeSet<>();
+        this.remindersByTask = new IdentityHashMap<>();
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mirai-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Parses a list of lead times, such as <code>60,10,0</code>, given in minutes.
+     * @param minutes The lead times in minutes, separated by commas
+     * @return the lead times, or none if the list cannot be parsed
+     */
+    public static List<Duration> parseLeadTimes(String minutes) {
+        List<Duration> leadTimes = new ArrayList<>();
+        try {
+            for (String leadTime : minutes.split(",")) {
+                if (!leadTime.isBlank()) {
+                    leadTimes.add(Duration.ofMinutes(Math.abs(Long.parseLong(leadTime.trim()))));
+                }
+            }
+        } catch (NumberFormatException e) {
+            return List.of();
+        }
+        return leadTimes;
+    }
+
+    /**
+     * The Reminder class encapsulates a single reminder of a task.
+     */
+    private static class Reminder implements Comparable<Reminder> {
+        private final LocalDateTime time;
+        private final long number;
+        private final Task task;
+        private final Duration leadTime;
+
+        private Reminder(LocalDateTime time, long number, Task task, Duration leadTime) {
+            this.time = time;
+            this.number = number;
+            this.task = task;
+            this.leadTime = leadTime;
+        }
+
+        @Override
+        public int compareTo(Reminder other) {
+            int order = this.time.compareTo(other.time);
+            return order != 0 ? order : Long.compare(this.number, other.number);
+        }
+    }
+
+    @Override
+    public synchronized void tasksReset(List<Task> tasks) {
+        this.reminders.clear();
+        this.remindersByTask.clear();
+        for (Task task : tasks) {
+            this.schedule(task);
+        }
+        this.setAlarm();
+    }
+
+    @Override
+    public synchronized void taskAdded(int index, Task task) {
+        this.schedule(task);
+        this.setAlarm();
+    }
+
+    @Override
+    public synchronized void taskRemoved(int index, Task task) {
+        this.unschedule(task);
+        this.setAlarm();
+    }
+
+    @Override
+    public synchronized void taskChanged(int index, Task task) {
+        this.unschedule(task);
+        this.schedule(task);
+        this.setAlarm();
+    }
+
+    /**
+     * Returns when a task is due, i.e. the deadline of a deadline or the start of an event.
+     * @param task The task
+     * @return the time, or null if the task is not reminded of
+     */
+    private static LocalDateTime getDueTime(Task task) {
+        if (task instanceof Deadline deadline) {
+            return deadline.getDeadline();
+        } else if (task instanceof Event event) {
+            return event.getStartTime();
+        } else {
+            return null;
+        }
+    }
+
+    private void schedule(Task task) {
+        LocalDateTime dueTime = getDueTime(task);
+        if (dueTime == null || task.isDone()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now(this.clock);
+        List<Reminder> taskReminders = new ArrayList<>(this.leadTimes.size());
+        for (Duration leadTime : this.leadTimes) {
+            LocalDateTime time = dueTime.minus(leadTime);
+            if (!time.isBefore(now)) {
+                Reminder reminder = new Reminder(time, this.reminderCount++, task, leadTime);
+                this.reminders.add(reminder);
+                taskReminders.add(reminder);
+            }
+        }
+
+        if (!taskReminders.isEmpty()) {
+            this.remindersByTask.put(task, taskReminders);
+        }
+    }
+
+    private void unschedule(Task task) {
+        List<Reminder> taskReminders = this.remindersByTask.remove(task);
+        if (taskReminders != null) {
+            this.reminders.removeAll(taskReminders);
+        }
+    }
+
+    /**
+     * Sets the timer to go off when the earliest reminder is due, if that is not already the case.
+     */
+    private void setAlarm() {
+        Reminder earliest = this.reminders.isEmpty() ? null : this.reminders.first();
+        if (earliest == this.nextReminder) {
+            return;
+        }
+
+        if (this.nextAlarm != null) {
+            this.nextAlarm.cancel(false);
+            this.nextAlarm = null;
+        }
+
+        this.nextReminder = earliest;
+        if (earliest != null) {
+            long delay = Math.max(0, Duration.between(LocalDateTime.now(this.clock), earliest.time).toMillis());
+            this.nextAlarm = this.timer.schedule(this::remind, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Gives every reminder that is due, and sets the timer for the next one.
+     */
+    private void remind() {
+        List<String> messages;
+        synchronized (this) {
+            messages = this.takeDue(LocalDateTime.now(this.clock));
+            this.nextReminder = null;
+            this.nextAlarm = null;
+            this.setAlarm();
+        }
+
+        for (String message : messages) {
+            this.onReminder.accept(message);
+        }
+    }
+
+    /**
+     * Removes every reminder due by a given time.
+     * @param now The time
+     * @return the messages of the reminders, earliest first
+     */
+    synchronized List<String> takeDue(LocalDateTime now) {
+        List<String> messages = new ArrayList<>();
+
+        while (!this.reminders.isEmpty() && !this.reminders.first().time.isAfter(now)) {
+            Reminder reminder = this.reminders.pollFirst();
+            List<Reminder> taskReminders = this.remindersByTask.get(reminder.task);
+            taskReminders.remove(reminder);
+            if (taskReminders.isEmpty()) {
+                this.remindersByTask.remove(reminder.task);
+            }
+
+            messages.add(describe(reminder));
+        }
+
+        return messages;
+    }
+
+    /**
+     * Returns when the next reminder is due.
+     * @return the time, or null if there are no reminders
+     */
+    public synchronized LocalDateTime getNextReminderTime() {
+        return this.reminders.isEmpty() ? null : this.reminders.first().time;
+    }
+
+    private static String describe(Reminder reminder) {
+        StringBuilder message = new StringBuilder("Reminder: this ")
+                .append(reminder.task instanceof Event ? "starts " : "is due ");
+
+        long minutes = reminder.leadTime.toMinutes();
+        if (minutes == 0) {
+            message.append("now");
+        } else if (minutes % 60 == 0) {
+            message.append("in ").append(minutes / 60).append(minutes == 60 ? " hour" : " hours");
+        } else {
+            message.append("in ").append(minutes).append(minutes == 1 ? " minute" : " minutes");
+        }
+
+        return message.append(":\n  ").append(reminder.task).toString();
+    }
+}
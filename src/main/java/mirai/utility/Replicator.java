@@ -0,0 +1,953 @@
+package mirai.utility;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+import mirai.tasks.Task;
+
+/**
+ * The Replicator class keeps a list of tasks in step with a replica of it kept by another Mirai, e.g. on another
+ * computer, by sending the other Mirai each change rather than the list itself.<br><br>
+ *
+ * Every task is given an identifier that names it on both replicas. Each task added, deleted, marked or unmarked
+ * here is appended to a log next to the storage file, as a record numbered in order and stamped with the version of
+ * a logical clock. <code>replicateTo</code> sends the records to the other Mirai as they are made, while
+ * <code>listen</code> accepts the records of the other Mirai and applies them here. A replica remembers the number
+ * of the last record it applied from each other replica, and a replica connecting to it resumes right after that
+ * record, so only changes are ever sent. Records are sent in batches that are acknowledged as a whole: while the
+ * other replica is applying one batch, the records made in the meantime gather into the next one.<br><br>
+ *
+ * If both replicas mark or unmark the same task, the change with the later version wins on both, and a task deleted
+ * on one replica stays deleted whatever the other does to it. Tasks added on both replicas are all kept, each at the
+ * end of the other replica's list, so the two lists hold the same tasks but not necessarily in the same order.
+ * Skipped and moved occurrences of recurring tasks are not replicated.<br><br>
+ *
+ * The version of the last mark or unmark of each task is kept in the log too, so that it still settles such
+ * conflicts after a restart. Once the other replica has acknowledged enough records, the log is compacted: the
+ * acknowledged records are dropped, and only the versions of the tasks still in the list are kept in their place.
+ */
+public class Replicator implements TaskListListener, Closeable {
+    /** The most records sent at once before waiting for the other replica to acknowledge them */
+    public static final int MAX_BATCH_SIZE = 1_000;
+    /** How long to wait before connecting to the other replica again after the connection was lost */
+    public static final Duration RECONNECT_DELAY = Duration.ofSeconds(1);
+    /** How many acknowledged records the log holds before it is compacted */
+    public static final int COMPACTION_THRESHOLD = 10_000;
+
+    private static final String REPLICA_KEY = "replica";
+    /** The start of a line of the log recording the version of the last mark or unmark of a task */
+    private static final String STAMP_MARKER = "@";
+    /** The start of the first line of a compacted log, recording the last record and version dropped from it */
+    private static final String COMPACTED_MARKER = "=";
+
+    private final NamedList list;
+    private final TaskList tasks;
+    /** The lock guarding the list, which this replicator's own state shares */
+    private final Lock lock;
+    private final Path logFile;
+    private final Path stateFile;
+    private FileOutputStream logStream;
+    private Writer logWriter;
+    private final String replicaId;
+    private final Map<String, Task> tasksById;
+    /** The index of each task in the list, null until it is next needed after tasks were inserted or removed */
+    private Map<String, Integer> indexesById;
+    /** The version of the last mark or unmark of each task, to settle marks made on both replicas at once */
+    private final Map<String, Stamp> doneStamps;
+    /** The tasks known to be done, to tell marks and unmarks from other changes to a task */
+    private final Set<String> doneIds;
+    /** The number of the last record applied from each other replica */
+    private final Map<String, Long> appliedSequences;
+    /** The sockets to close when the replicator is closed */
+    private final Set<Closeable> connections;
+    /** The last version of the logical clock, i.e. the latest version made here or seen from another replica */
+    private long clock;
+    /** The number of the last record appended to the log */
+    private long lastSequence;
+    /** The number of the last record dropped from the log when it was compacted, 0 if it never was */
+    private volatile long compactedSequence;
+    /** The number of the last record that can be read back from the log, and so be sent */
+    private volatile long flushedSequence;
+    /** The number of the last record the other replica acknowledged */
+    private volatile long acknowledgedSequence;
+    /** Whether the list is being changed by a record from another replica, which is not logged again */
+    private boolean isApplying;
+    /** The stamps the batch being applied replaced, by task, null if none is being applied */
+    private Map<String, Stamp> replacedStamps;
+    /** The records made here since the log was last flushed */
+    private final StringBuilder pendingRecords;
+    /** The stamps the records made since the log was last flushed replaced, by task */
+    private final Map<String, Stamp> pendingStamps;
+    private volatile boolean isClosed;
+
+    /**
+     * Initialises a replicator following a list, giving an identifier to every task that does not have one yet.
+     * The log and the replication state are kept next to the list's storage file, e.g.
+     * <code>mirai.replication.log</code> and <code>mirai.replication.txt</code> for <code>mirai.txt</code>.
+     * @param list The list
+     * @param lock The lock guarding the list, held by everyone changing it
+     * @throws IOException if the log or the replication state cannot be read, or the identifiers given to the tasks
+     *     cannot be saved
+     */
+    public Replicator(NamedList list, Lock lock) throws IOException {
+        this.list = list;
+        this.tasks = list.getTasks();
+        this.lock = lock;
+        this.logFile = toSiblingPath(list.getFile(), ".replication.log");
+        this.stateFile = toSiblingPath(list.getFile(), ".replication.txt");
+        this.tasksById = new HashMap<>();
+        this.doneStamps = new HashMap<>();
+        this.doneIds = new HashSet<>();
+        this.pendingRecords = new StringBuilder();
+        this.pendingStamps = new HashMap<>();
+        this.appliedSequences = new HashMap<>();
+        this.connections = ConcurrentHashMap.newKeySet();
+
+        this.replicaId = this.loadState();
+        this.scanLog();
+        this.flushedSequence = this.lastSequence;
+        this.openLog();
+
+        this.lock.lock();
+        try {
+            // the identifiers have to survive a restart to keep naming the same tasks
+            List<Task> tasks = this.tasks.getTaskList();
+            if (this.assignIds(tasks) && !list.getStorage().relogAllTasks(tasks)) {
+                this.logWriter.close();
+                throw new IOException("The identifiers of the tasks could not be saved, as another program changed "
+                        + list.getFile() + " at the same time");
+            }
+            this.tasks.addListener(this);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the path of a file kept next to a storage file, e.g. <code>mirai.replication.log</code> for
+     * <code>mirai.txt</code>.
+     * @param file The storage file
+     * @param suffix The suffix replacing the extension of the storage file
+     * @return the path
+     */
+    private static Path toSiblingPath(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        int extensionIndex = name.lastIndexOf('.');
+        String baseName = extensionIndex > 0 ? name.substring(0, extensionIndex) : name;
+        return file.resolveSibling(baseName + suffix);
+    }
+
+    /**
+     * Reads the identifier of this replica and the last record applied from each other replica, creating a new
+     * identifier if this is the first time the list is replicated.
+     * @return the identifier of this replica
+     * @throws IOException if the replication state cannot be read
+     */
+    private String loadState() throws IOException {
+        String id = null;
+        try {
+            for (String line : Files.readAllLines(this.stateFile, StandardCharsets.UTF_8)) {
+                int separatorIndex = line.indexOf('=');
+                if (separatorIndex == -1) {
+                    continue;
+                }
+
+                String key = line.substring(0, separatorIndex);
+                String value = line.substring(separatorIndex + 1);
+                if (key.equals(REPLICA_KEY)) {
+                    id = value;
+                } else {
+                    this.appliedSequences.put(key, Long.parseLong(value));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // the list has not been replicated before
+        }
+
+        if (id == null) {
+            id = UUID.randomUUID().toString().substring(0, 8);
+            this.saveState(id);
+        }
+        return id;
+    }
+
+    /**
+     * Saves the identifier of this replica and the last record applied from each other replica. The file is
+     * replaced as a whole, so that a crash never leaves half of it behind.
+     * @param id The identifier of this replica
+     * @throws IOException if the replication state cannot be written
+     */
+    private void saveState(String id) throws IOException {
+        StringBuilder state = new StringBuilder(REPLICA_KEY).append('=').append(id).append('\n');
+        for (Map.Entry<String, Long> entry : this.appliedSequences.entrySet()) {
+            state.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+
+        Path newFile = this.stateFile.resolveSibling(this.stateFile.getFileName() + ".new");
+        Files.writeString(newFile, state, StandardCharsets.UTF_8);
+        Files.move(newFile, this.stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the number and version of the last record in the log, so that new records carry on from there, and the
+     * version of the last mark or unmark of each task.
+     * @throws IOException if the log cannot be read
+     */
+    private void scanLog() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(this.logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] blocks = line.split(" \\| ", 5);
+                try {
+                    if (blocks[0].equals(STAMP_MARKER)) {
+                        this.scanStamp(blocks[1], new Stamp(Long.parseLong(blocks[2]), blocks[3]));
+                    } else if (blocks[0].equals(COMPACTED_MARKER)) {
+                        this.compactedSequence = Long.parseLong(blocks[1]);
+                        this.lastSequence = Math.max(this.lastSequence, this.compactedSequence);
+                        this.clock = Math.max(this.clock, Long.parseLong(blocks[2]));
+                    } else {
+                        this.lastSequence = Math.max(this.lastSequence, Long.parseLong(blocks[0]));
+                        Stamp stamp = new Stamp(Long.parseLong(blocks[1]), this.replicaId);
+                        if (blocks[2].equals("DELETE")) {
+                            this.doneStamps.remove(blocks[3]);
+                        } else {
+                            this.scanStamp(blocks[3], stamp);
+                        }
+                    }
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    // a line cut short by a crash is never sent
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // nothing has been logged yet
+        }
+    }
+
+    /**
+     * Records the version of a change to a task read from the log, unless a later one was already read. After the
+     * log is compacted, the records it still holds may be older than the versions kept in place of the others.
+     * @param id The identifier of the task
+     * @param stamp The version of the change
+     */
+    private void scanStamp(String id, Stamp stamp) {
+        this.clock = Math.max(this.clock, stamp.version);
+        this.doneStamps.merge(id, stamp, (last, next) -> next.isAfter(last) ? next : last);
+    }
+
+    /**
+     * Opens the log for appending new records.
+     * @throws IOException if the log cannot be opened
+     */
+    private void openLog() throws IOException {
+        this.logStream = new FileOutputStream(this.logFile.toFile(), true);
+        this.logWriter = new BufferedWriter(new OutputStreamWriter(this.logStream, StandardCharsets.UTF_8));
+    }
+
+    private static void writeStamp(Writer writer, String id, Stamp stamp) throws IOException {
+        writer.write(STAMP_MARKER + " | " + id + " | " + stamp.version + " | " + stamp.replicaId + "\n");
+    }
+
+    /**
+     * Returns the number of a record of the log.
+     * @param line The line of the log
+     * @return the number of the record, or -1 if the line records the version of a task rather than a change
+     */
+    private static long parseSequence(String line) {
+        if (line.startsWith(STAMP_MARKER) || line.startsWith(COMPACTED_MARKER)) {
+            return -1;
+        }
+        return Long.parseLong(line.substring(0, line.indexOf(' ')));
+    }
+
+    /**
+     * Drops the records the other replica acknowledged from the log, keeping the version of the last mark or unmark
+     * of each task in the list in their place. The log is replaced as a whole, so that a crash never leaves half of
+     * it behind.
+     * @param acknowledgedSequence The number of the last record the other replica acknowledged
+     * @throws IOException if the log cannot be compacted
+     */
+    void compactLog(long acknowledgedSequence) throws IOException {
+        this.lock.lock();
+        try {
+            if (this.isClosed || acknowledgedSequence <= this.compactedSequence) {
+                return;
+            }
+
+            this.logWriter.flush();
+            Path newFile = this.logFile.resolveSibling(this.logFile.getFileName() + ".new");
+            try (BufferedReader reader = Files.newBufferedReader(this.logFile, StandardCharsets.UTF_8);
+                    FileOutputStream stream = new FileOutputStream(newFile.toFile());
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+                writer.write(COMPACTED_MARKER + " | " + acknowledgedSequence + " | " + this.clock + "\n");
+                for (Map.Entry<String, Stamp> entry : this.doneStamps.entrySet()) {
+                    if (this.tasksById.containsKey(entry.getKey())) {
+                        writeStamp(writer, entry.getKey(), entry.getValue());
+                    }
+                }
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (parseSequence(line) > acknowledgedSequence) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                }
+
+                writer.flush();
+                if (Storage.IS_FSYNC_ENABLED) {
+                    stream.getFD().sync();
+                }
+            }
+
+            this.logWriter.close();
+            Files.move(newFile, this.logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.openLog();
+            this.compactedSequence = acknowledgedSequence;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * The Stamp class encapsulates the version of a change together with the replica that made it, which orders
+     * changes made with the same version on different replicas.
+     */
+    private static class Stamp {
+        private final long version;
+        private final String replicaId;
+
+        private Stamp(long version, String replicaId) {
+            this.version = version;
+            this.replicaId = replicaId;
+        }
+
+        private boolean isAfter(Stamp other) {
+            return this.version != other.version
+                    ? this.version > other.version
+                    : this.replicaId.compareTo(other.replicaId) > 0;
+        }
+    }
+
+    /**
+     * Gives an identifier to every task that does not have one yet. Tasks that were in the list before it was first
+     * replicated are named after their position and content, so that two copies of the same file name their tasks
+     * alike.
+     * @param tasks The tasks
+     * @return <code>true</code> if any task was given a new identifier, <code>false</code> otherwise
+     */
+    private boolean assignIds(List<Task> tasks) {
+        boolean hasNewIds = false;
+        this.tasksById.clear();
+        this.doneIds.clear();
+
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task.getId() == null) {
+                task.setId("0-" + i + "-" + Integer.toHexString(Storage.toStorageForm(task).hashCode()));
+                hasNewIds = true;
+            }
+            this.tasksById.put(task.getId(), task);
+            this.setDone(task.getId(), task.isDone());
+        }
+
+        return hasNewIds;
+    }
+
+    @Override
+    public void tasksReset(List<Task> tasks) {
+        this.assignIds(tasks);
+        this.indexesById = null;
+    }
+
+    @Override
+    public void taskAdded(int index, Task task) {
+        if (this.isApplying) {
+            this.indexAdded(index, task);
+            return;
+        }
+
+        if (task.getId() == null) {
+            // the number of the record adding the task is never used again, so neither is the identifier
+            task.setId(this.replicaId + "-" + (this.lastSequence + 1));
+        }
+        this.indexAdded(index, task);
+        this.tasksById.put(task.getId(), task);
+        this.setDone(task.getId(), task.isDone());
+        this.setPendingStamp(task.getId(), this.log("ADD", task, Storage.toStorageForm(task)));
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        // the tasks after it move up, which is only worked out when an index is next needed
+        this.indexesById = null;
+        if (this.isApplying) {
+            return;
+        }
+
+        this.tasksById.remove(task.getId());
+        this.doneIds.remove(task.getId());
+        this.setPendingStamp(task.getId(), null);
+        this.log("DELETE", task, null);
+    }
+
+    /**
+     * Logs a mark or unmark of a task. Other changes, such as skipping an occurrence of a recurring task, are not
+     * replicated, and must not be sent as a mark or unmark either, as that could undo a mark made on the other
+     * replica.
+     * @param index The index of the task
+     * @param task The task
+     */
+    @Override
+    public void taskChanged(int index, Task task) {
+        if (this.isApplying || !this.setDone(task.getId(), task.isDone())) {
+            return;
+        }
+
+        Stamp stamp = task.isDone()
+                ? this.log("MARK", task, task.getDoneTime().toString())
+                : this.log("UNMARK", task, null);
+        this.setPendingStamp(task.getId(), stamp);
+    }
+
+    /**
+     * Sets the version of the last change made here to a task, remembering the version it replaces until the log is
+     * flushed.
+     * @param id The identifier of the task
+     * @param stamp The version, or null if the task was deleted
+     */
+    private void setPendingStamp(String id, Stamp stamp) {
+        if (!this.pendingStamps.containsKey(id)) {
+            this.pendingStamps.put(id, this.doneStamps.get(id));
+        }
+        this.setStamp(id, stamp);
+    }
+
+    /**
+     * Keeps the index of each task up to date with a task inserted into the list. A task added at the end, as tasks
+     * usually are, takes the next index, while one inserted before other tasks moves them down.
+     * @param index The index of the new task
+     * @param task The new task
+     */
+    private void indexAdded(int index, Task task) {
+        if (this.indexesById != null && index == this.tasks.getSize() - 1) {
+            this.indexesById.put(task.getId(), index);
+        } else {
+            this.indexesById = null;
+        }
+    }
+
+    /**
+     * Returns the index of a task in the list, working out the index of every task first if tasks were inserted or
+     * removed since.
+     * @param id The identifier of the task
+     * @return the index of the task
+     */
+    private int indexOf(String id) {
+        if (this.indexesById == null) {
+            this.indexesById = new HashMap<>();
+            for (int i = 0; i < this.tasks.getSize(); i++) {
+                this.indexesById.put(this.tasks.getTask(i).getId(), i);
+            }
+        }
+        return this.indexesById.get(id);
+    }
+
+    /**
+     * Records whether a task is done.
+     * @param id The identifier of the task
+     * @param isDone Whether the task is done
+     * @return <code>true</code> if this changed what is known about the task, <code>false</code> otherwise
+     */
+    private boolean setDone(String id, boolean isDone) {
+        return isDone ? this.doneIds.add(id) : this.doneIds.remove(id);
+    }
+
+    /**
+     * Appends a record of a change made here to the log. The record is only sent once the log is flushed.
+     * @param kind The kind of change
+     * @param task The changed task
+     * @param payload What the other replica needs to repeat the change, null if nothing
+     * @return the version of the change
+     */
+    private Stamp log(String kind, Task task, String payload) {
+        long version = ++this.clock;
+        long sequence = ++this.lastSequence;
+
+        this.pendingRecords.append(sequence).append(" | ").append(version).append(" | ").append(kind).append(" | ")
+                .append(task.getId());
+        if (payload != null) {
+            this.pendingRecords.append(" | ").append(payload);
+        }
+        this.pendingRecords.append('\n');
+
+        return new Stamp(version, this.replicaId);
+    }
+
+    /**
+     * Writes the records of the latest changes to the log and lets them be sent. This is called, while the list is
+     * locked, after every command rather than after every change, so that a command changing many tasks writes its
+     * records at once.
+     */
+    public void flushLog() {
+        if (this.flushedSequence == this.lastSequence || this.isClosed) {
+            return;
+        }
+
+        try {
+            this.logWriter.write(this.pendingRecords.toString());
+            this.logWriter.flush();
+            if (Storage.IS_FSYNC_ENABLED) {
+                this.logStream.getFD().sync();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        this.pendingRecords.setLength(0);
+        this.pendingStamps.clear();
+        synchronized (this) {
+            this.flushedSequence = this.lastSequence;
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Drops the records of the changes made since the log was last flushed, so that they are never sent. This is
+     * called, while the list is locked, when those changes could not be saved and the list is about to be loaded
+     * again without them.
+     */
+    public void discardLog() {
+        this.pendingRecords.setLength(0);
+        this.lastSequence = this.flushedSequence;
+        this.pendingStamps.forEach(this::setStamp);
+        this.pendingStamps.clear();
+    }
+
+    /**
+     * Starts accepting the records of other replicas, on the loopback interface only. Another computer reaches it
+     * through a tunnel, e.g. one set up by SSH.
+     * @param port The port to listen on, or 0 for any free port
+     * @return the port listened on
+     * @throws IOException if the port cannot be listened on
+     */
+    public int listen(int port) throws IOException {
+        ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.connections.add(server);
+
+        startThread("mirai-replication-listener", () -> {
+            try {
+                while (!this.isClosed) {
+                    Socket socket = server.accept();
+                    startThread("mirai-replication-receiver", () -> this.receive(socket));
+                }
+            } catch (IOException e) {
+                // the replicator was closed
+            }
+        });
+
+        return server.getLocalPort();
+    }
+
+    /**
+     * Starts sending the records of this replica to another replica, connecting to it again whenever the connection
+     * is lost.
+     * @param host The host of the other replica
+     * @param port The port the other replica listens on
+     */
+    public void replicateTo(String host, int port) {
+        startThread("mirai-replication-sender", () -> {
+            while (!this.isClosed) {
+                try (Socket socket = new Socket()) {
+                    this.connections.add(socket);
+                    try {
+                        socket.connect(new InetSocketAddress(host, port));
+                        this.send(socket);
+                    } finally {
+                        this.connections.remove(socket);
+                    }
+                } catch (IOException e) {
+                    // the other replica is not reachable right now
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                try {
+                    Thread.sleep(RECONNECT_DELAY.toMillis());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    private static void startThread(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Sends the records of this replica over a connection, from the first record the other replica has not applied
+     * yet, until the connection is lost.<br><br>
+     *
+     * The connection starts with <code>HELLO id</code>, answered by <code>RESUME n</code> with the number of the last
+     * record already applied. Each batch of records is followed by <code>COMMIT n</code> and answered by
+     * <code>ACK n</code> once it has been applied and saved.
+     * @param socket The connection
+     * @throws IOException if the connection is lost
+     * @throws InterruptedException if the replicator is closed
+     */
+    private void send(Socket socket) throws IOException, InterruptedException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+        out.write("HELLO " + this.replicaId + "\n");
+        out.flush();
+        long sentSequence = parseReply(in.readLine(), "RESUME ");
+        if (sentSequence < this.compactedSequence) {
+            throw new IOException("The other replica needs records from " + (sentSequence + 1)
+                    + ", but the log only holds records from " + (this.compactedSequence + 1));
+        }
+        this.acknowledgedSequence = sentSequence;
+
+        BufferedReader log = Files.newBufferedReader(this.logFile, StandardCharsets.UTF_8);
+        try {
+            while (!this.isClosed) {
+                long lastSequence = this.awaitRecordsAfter(sentSequence);
+                int batchSize = 0;
+
+                // only flushed records are read, so the log is never read past a complete line
+                while (sentSequence < lastSequence && batchSize < MAX_BATCH_SIZE) {
+                    String line = log.readLine();
+                    if (line == null) {
+                        throw new IOException("The log ended before record " + lastSequence);
+                    }
+                    long sequence = parseSequence(line);
+                    if (sequence > sentSequence) {
+                        out.write(line);
+                        out.write('\n');
+                        sentSequence = sequence;
+                        batchSize++;
+                    }
+                }
+
+                out.write("COMMIT " + sentSequence + "\n");
+                out.flush();
+                this.acknowledgedSequence = parseReply(in.readLine(), "ACK ");
+
+                if (this.acknowledgedSequence - this.compactedSequence >= COMPACTION_THRESHOLD) {
+                    this.compactLog(this.acknowledgedSequence);
+                    // the compacted log is a new file, which the rest of the records are appended to
+                    log.close();
+                    log = Files.newBufferedReader(this.logFile, StandardCharsets.UTF_8);
+                }
+            }
+        } finally {
+            log.close();
+        }
+    }
+
+    private static long parseReply(String reply, String prefix) throws IOException {
+        if (reply == null || !reply.startsWith(prefix)) {
+            throw new IOException("Unexpected reply from the other replica: " + reply);
+        }
+        return Long.parseLong(reply.substring(prefix.length()));
+    }
+
+    /**
+     * Waits until the log holds records that have not been sent yet.
+     * @param sentSequence The number of the last record sent
+     * @return the number of the last record that can be sent
+     * @throws InterruptedException if the replicator is closed
+     */
+    private synchronized long awaitRecordsAfter(long sentSequence) throws InterruptedException {
+        while (this.flushedSequence <= sentSequence) {
+            if (this.isClosed) {
+                throw new InterruptedException();
+            }
+            this.wait();
+        }
+        return this.flushedSequence;
+    }
+
+    /**
+     * Receives the records of another replica over a connection and applies them, one batch at a time, until the
+     * connection is lost.
+     * @param socket The connection
+     */
+    private void receive(Socket socket) {
+        this.connections.add(socket);
+        try (socket) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+            String hello = in.readLine();
+            if (hello == null || !hello.startsWith("HELLO ")) {
+                return;
+            }
+            String peerId = hello.substring("HELLO ".length());
+            out.write("RESUME " + this.getAppliedSequence(peerId) + "\n");
+            out.flush();
+
+            List<String> batch = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("COMMIT ")) {
+                    this.applyBatch(peerId, batch);
+                    batch.clear();
+                    out.write("ACK " + line.substring("COMMIT ".length()) + "\n");
+                    out.flush();
+                } else {
+                    batch.add(line);
+                }
+            }
+        } catch (IOException e) {
+            // the other replica went away, and resumes where it left off when it comes back
+        } finally {
+            this.connections.remove(socket);
+        }
+    }
+
+    private long getAppliedSequence(String peerId) {
+        this.lock.lock();
+        try {
+            return this.appliedSequences.getOrDefault(peerId, 0L);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a batch of records from another replica to the list, saving all of their changes with a single write
+     * to the storage. Records that were already applied, e.g. before a crash, are skipped. The versions of the marks
+     * and unmarks applied are logged before the batch counts as applied.
+     * @param peerId The identifier of the other replica
+     * @param records The records, in order
+     * @throws IOException if the replication state cannot be saved
+     */
+    private void applyBatch(String peerId, List<String> records) throws IOException {
+        this.lock.lock();
+        try {
+            // the records refer to tasks by identifier, but the storage file records positions
+            this.list.catchUp();
+
+            Storage storage = this.list.getStorage();
+            long appliedSequence = this.appliedSequences.getOrDefault(peerId, 0L);
+            boolean isSaved = false;
+            this.replacedStamps = new HashMap<>();
+            this.isApplying = true;
+            storage.beginBatch();
+
+            try {
+                for (String line : records) {
+                    String[] blocks = line.split(" \\| ", 5);
+                    long sequence = Long.parseLong(blocks[0]);
+                    if (sequence <= appliedSequence) {
+                        continue;
+                    }
+
+                    try {
+                        long version = Long.parseLong(blocks[1]);
+                        this.clock = Math.max(this.clock, version);
+                        this.apply(blocks[2], blocks[3], blocks.length > 4 ? blocks[4] : null,
+                                new Stamp(version, peerId), storage);
+                    } catch (RuntimeException e) {
+                        System.err.println("Mirai skipped a change it could not read from replica " + peerId
+                                + ": " + line);
+                    }
+                    appliedSequence = sequence;
+                }
+            } finally {
+                this.isApplying = false;
+                isSaved = storage.commitBatch(this.tasks);
+            }
+
+            Map<String, Stamp> replaced = this.replacedStamps;
+            this.replacedStamps = null;
+            if (!isSaved) {
+                // the list is loaded from the file again, and the peer sends the records again when it reconnects,
+                // so they must not look older than themselves then
+                replaced.forEach(this::setStamp);
+                throw new IOException("Another program changed " + this.list.getFile() + " while Mirai was saving");
+            }
+
+            this.logStamps(replaced.keySet());
+            this.appliedSequences.put(peerId, appliedSequence);
+            this.saveState(this.replicaId);
+            // catching up may have logged changes other programs made to the file
+            this.flushLog();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Repeats a change made on another replica. Changes to tasks that no longer exist here are ignored, and so are
+     * marks and unmarks older than the last one made to the task.
+     * @param kind The kind of change
+     * @param id The identifier of the changed task
+     * @param payload What is needed to repeat the change, null if nothing
+     * @param stamp The version of the change
+     * @param storage The storage of the list
+     */
+    private void apply(String kind, String id, String payload, Stamp stamp, Storage storage) {
+        switch (kind) {
+        case "ADD" -> {
+            Task task = storage.parseStorageForm(payload);
+            if (task == null || this.tasksById.containsKey(id)) {
+                return;
+            }
+
+            task.setId(id);
+            int index = this.tasks.getSize();
+            this.tasks.insertStored(index, task);
+            this.tasksById.put(id, task);
+            this.setDone(id, task.isDone());
+            this.replaceStamp(id, stamp);
+            storage.logEdit(new Edit(Edit.Kind.ADD, index, task));
+        }
+        case "DELETE" -> {
+            Task task = this.tasksById.remove(id);
+            if (task == null) {
+                return;
+            }
+
+            int index = this.indexOf(id);
+            this.tasks.removeStored(index);
+            this.doneIds.remove(id);
+            this.replaceStamp(id, null);
+            storage.logEdit(new Edit(Edit.Kind.DELETE, index, task));
+        }
+        case "MARK", "UNMARK" -> {
+            Task task = this.tasksById.get(id);
+            Stamp lastStamp = this.doneStamps.get(id);
+            if (task == null || lastStamp != null && !stamp.isAfter(lastStamp)) {
+                return;
+            }
+
+            boolean isMark = kind.equals("MARK");
+            int index = this.indexOf(id);
+            this.tasks.setStoredDoneTime(index, isMark ? LocalDateTime.parse(payload) : null);
+            this.setDone(id, isMark);
+            this.replaceStamp(id, stamp);
+            storage.logEdit(new Edit(isMark ? Edit.Kind.MARK : Edit.Kind.UNMARK, index, task));
+        }
+        default -> throw new IllegalArgumentException("Unknown change: " + kind);
+        }
+    }
+
+    /**
+     * Sets the version of the last change to a task made by the batch being applied, remembering the version it
+     * replaces.
+     * @param id The identifier of the task
+     * @param stamp The version, or null if the task was deleted
+     */
+    private void replaceStamp(String id, Stamp stamp) {
+        if (!this.replacedStamps.containsKey(id)) {
+            this.replacedStamps.put(id, this.doneStamps.get(id));
+        }
+        this.setStamp(id, stamp);
+    }
+
+    private void setStamp(String id, Stamp stamp) {
+        if (stamp == null) {
+            this.doneStamps.remove(id);
+        } else {
+            this.doneStamps.put(id, stamp);
+        }
+    }
+
+    /**
+     * Writes the versions of the last changes to some tasks to the log, and forces them to the disk in fsync mode.
+     * Records made here already carry their version, but the versions of changes from other replicas are only kept
+     * this way.
+     * @param ids The identifiers of the tasks
+     * @throws IOException if the log cannot be written
+     */
+    private void logStamps(Set<String> ids) throws IOException {
+        for (String id : ids) {
+            Stamp stamp = this.doneStamps.get(id);
+            if (stamp != null) {
+                writeStamp(this.logWriter, id, stamp);
+            }
+        }
+
+        this.logWriter.flush();
+        if (Storage.IS_FSYNC_ENABLED) {
+            this.logStream.getFD().sync();
+        }
+    }
+
+    public String getReplicaId() {
+        return this.replicaId;
+    }
+
+    /**
+     * Returns the number of the last record made here that can be sent to the other replica.
+     * @return the record number, 0 if no record was made yet
+     */
+    public long getLastSequence() {
+        return this.flushedSequence;
+    }
+
+    /**
+     * Returns the number of the last record the other replica acknowledged applying.
+     * @return the record number, 0 if the other replica has not acknowledged any record yet
+     */
+    public long getAcknowledgedSequence() {
+        return this.acknowledgedSequence;
+    }
+
+    /**
+     * Stops replicating the list, closing every connection to other replicas.
+     * @throws IOException if the log cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.lock.lock();
+        try {
+            this.flushLog();
+            this.isClosed = true;
+            this.tasks.removeListener(this);
+            this.logWriter.close();
+        } finally {
+            this.lock.unlock();
+        }
+
+        synchronized (this) {
+            this.notifyAll();
+        }
+        for (Closeable connection : this.connections) {
+            connection.close();
+        }
+    }
+}
@@ -1,23 +1,77 @@
 package mirai.utility;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Scanner;
 
 import mirai.tasks.Deadline;
 import mirai.tasks.Event;
+import mirai.tasks.Recurring;
 import mirai.tasks.Task;
 import mirai.tasks.ToDo;
 
 /**
- * The Storage class encapsulates a storage of user's list.
+ * The Storage class encapsulates a storage of user's list.<br><br>
+ *
+ * Active tasks live in the storage file itself. Tasks that have been done for a long time can be moved into a
+ * separate archive file next to it, which is only read when archived tasks are actually requested.<br><br>
+ *
+ * Writes can be grouped into a batch, which holds them back until <code>commitBatch</code> writes their combined
+ * effect to the file at once, or <code>rollbackBatch</code> discards them.<br><br>
+ *
+ * Every read and write is timed, and the bytes written are counted, in the storage's <code>Metrics</code>. With
+ * <code>-Dmirai.fsync=true</code>, every write is also forced to the disk before it returns, so that no change is lost
+ * if the computer crashes, at the cost of slower writes.<br><br>
+ *
+ * Other programs may change the storage file too, such as a tool syncing it between computers.
+ * <code>catchUp</code> replays the lines they appended onto the loaded tasks, and only loads the whole file again
+ * when it was rewritten. The storage remembers the state of the file after each of its own writes, so that it never
+ * mistakes them for changes made by others.
  */
 public class Storage {
+    /** Whether every write is forced to the disk before it returns */
+    public static final boolean IS_FSYNC_ENABLED = Boolean.getBoolean("mirai.fsync");
+
     private final File file;
+    private final File archiveFile;
+    /** The archived tasks, null until the archive file is first read */
+    private List<Task> archivedTasks;
+    /** Whether the last load found content that a full rewrite would tidy up */
+    private boolean isCompactionNeeded;
+    /** The lines to append when the open batch is committed, null outside a batch */
+    private StringBuilder pendingLines;
+    /** Whether the open batch has to rewrite the whole file when committed */
+    private boolean isRewritePending;
+    private final Metrics metrics;
+    /** The storage file as this storage last read or wrote it, null until the file is first loaded */
+    private FileSnapshot synced;
+    /** Whether the file has to be loaded again, as another program changed it while this storage was writing */
+    private boolean isReloadNeeded;
+    /** Whether a rewrite was refused since the file was last loaded, so the list holds changes the file does not */
+    private boolean isRewriteRefused;
 
     /**
      * Initialises a task storage. Note that if the file does not exist, this will silently create the file
@@ -25,7 +79,124 @@ public class Storage {
      * @param filePath The path to the file to store the tasks.
      */
     public Storage(String filePath) {
+        this(filePath, new Metrics());
+    }
+
+    /**
+     * Initialises a task storage that records its reads and writes in the given metrics.
+     * @param filePath The path to the file to store the tasks.
+     * @param metrics The metrics
+     */
+    public Storage(String filePath, Metrics metrics) {
         this.file = new File(filePath);
+        this.archiveFile = new File(toArchivePath(filePath));
+        this.metrics = metrics;
+    }
+
+    /**
+     * The FileWrite interface encapsulates what is written to a file while it is open.
+     */
+    @FunctionalInterface
+    private interface FileWrite {
+        /**
+         * Writes to the file.
+         * @param writer The buffered writer of the file
+         * @throws IOException if the file cannot be written
+         */
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    /**
+     * The CountingOutputStream class counts the bytes written through it. Unlike the position of a file's channel, the
+     * count can be read on a thread that has been interrupted.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+        private long getCount() {
+            return this.count;
+        }
+    }
+
+    /**
+     * Writes to a file through a buffer, recording the time taken and the bytes written in the metrics. In fsync
+     * mode, the file is also forced to the disk before this returns.
+     * @param file The file
+     * @param isAppending Whether to keep the old content of the file
+     * @param operation The name of the operation in the metrics
+     * @param write What to write
+     * @return <code>true</code> if the file was written, <code>false</code> if writing it failed
+     */
+    private boolean writeFile(File file, boolean isAppending, String operation, FileWrite write) {
+        long start = System.nanoTime();
+        boolean isWritten = false;
+        boolean isTracked = file == this.file && this.synced != null;
+        long startPosition = 0;
+        long bytesWritten = 0;
+
+        try (FileOutputStream stream = new FileOutputStream(file, isAppending);
+                CountingOutputStream counter = new CountingOutputStream(stream);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(counter))) {
+            // in append mode, writing starts at the end of the file
+            startPosition = isAppending ? file.length() : 0;
+            if (isTracked && isAppending && startPosition != this.synced.size) {
+                // the lines appended by the other program come first, so loading the file again keeps both
+                this.isReloadNeeded = true;
+            }
+
+            write.writeTo(writer);
+            writer.flush();
+
+            if (IS_FSYNC_ENABLED) {
+                stream.getFD().sync();
+            }
+            bytesWritten = counter.getCount();
+            this.metrics.recordWrite(bytesWritten, IS_FSYNC_ENABLED);
+            isWritten = true;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (file == this.file) {
+            // anything another program wrote after our own lines is left for catchUp to find
+            this.synced = isWritten ? FileSnapshot.take(file.toPath(), startPosition + bytesWritten)
+                    : FileSnapshot.take(file.toPath());
+        }
+        this.metrics.recordStorage(operation, System.nanoTime() - start);
+        return isWritten;
+    }
+
+    /**
+     * Returns the path of the archive file belonging to a storage file, e.g. <code>mirai.archive.txt</code> for
+     * <code>mirai.txt</code>.
+     * @param filePath The path to the storage file
+     * @return the path to the archive file
+     */
+    private static String toArchivePath(String filePath) {
+        int extensionIndex = filePath.lastIndexOf('.');
+        int separatorIndex = Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf(File.separatorChar));
+
+        if (extensionIndex <= separatorIndex + 1) {
+            return filePath + ".archive";
+        }
+
+        return filePath.substring(0, extensionIndex) + ".archive" + filePath.substring(extensionIndex);
     }
 
     /**
@@ -34,38 +205,441 @@ public class Storage {
      * @throws IOException if an I/O error occurred during the file creation.
      */
     public List<Task> load() throws IOException {
+        long start = System.nanoTime();
         this.file.getParentFile().mkdirs();
         this.file.createNewFile();
 
         List<Task> taskList = new ArrayList<>();
+        this.isCompactionNeeded = false;
 
         try (Scanner scanner = new Scanner(this.file)) {
             while (scanner.hasNextLine()) {
                 String[] taskContent = scanner.nextLine().split(" \\| ");
 
-                Task task = switch (taskContent[0]) {
-                case "T" -> new ToDo(taskContent[2]);
-                case "D" -> new Deadline(taskContent[2],
-                        LocalDateTime.parse(taskContent[3]));
-                case "E" -> new Event(taskContent[2],
-                        LocalDateTime.parse(taskContent[3]),
-                        LocalDateTime.parse(taskContent[4]));
-                default -> null;
-                };
-
-                if (task == null) {
-                    continue;
+                switch (taskContent[0]) {
+                case "+" -> {
+                    Task task = this.parseTask(taskContent, 2);
+                    if (task != null) {
+                        taskList.add(Integer.parseInt(taskContent[1]), task);
+                    }
+                    this.isCompactionNeeded = true;
+                }
+                case "-" -> {
+                    taskList.remove(Integer.parseInt(taskContent[1]));
+                    this.isCompactionNeeded = true;
+                }
+                case "~" -> {
+                    Task task = taskList.get(Integer.parseInt(taskContent[1]));
+                    if (taskContent[2].equals("1")) {
+                        task.markAsDone(this.parseDoneTime(taskContent, 3));
+                    } else {
+                        task.markAsUndone();
+                    }
+                    this.isCompactionNeeded = true;
                 }
+                default -> {
+                    Task task = this.parseTask(taskContent, 0);
+                    if (task != null) {
+                        taskList.add(task);
+                    }
+                }
+                }
+            }
+        }
+
+        this.synced = FileSnapshot.take(this.file.toPath());
+        this.isReloadNeeded = false;
+        this.isRewriteRefused = false;
+        this.metrics.recordStorage("load", System.nanoTime() - start);
+        return taskList;
+    }
+
+    /**
+     * Brings a task list loaded from this storage up to date with the changes other programs made to the storage
+     * file since this storage last read or wrote it. Lines appended to the file are replayed on the list one by one,
+     * while a file that was rewritten is loaded again as a whole. A line still being written, without its line break
+     * yet, is left for the next call.
+     * @param tasks The task list loaded from this storage
+     * @return <code>true</code> if the list changed, <code>false</code> otherwise
+     */
+    public boolean catchUp(TaskList tasks) {
+        if (this.synced == null || this.pendingLines != null) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        Path path = this.file.toPath();
+        boolean isChanged;
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!this.isReloadNeeded && this.synced.isSameAs(attributes)) {
+                return false;
+            }
 
-                if (taskContent[1].equals("1")) {
-                    task.markAsDone();
+            if (!this.isReloadNeeded && this.synced.isPrefixOf(path, attributes)) {
+                isChanged = this.replayAppendedLines(tasks, path, attributes.size());
+            } else {
+                tasks.replaceAll(this.load());
+                isChanged = true;
+            }
+        } catch (NoSuchFileException e) {
+            // the file is being replaced, e.g. by a tool syncing it, so it is read once the new file is in place
+            return false;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        this.metrics.recordStorage("catch up", System.nanoTime() - start);
+        return isChanged;
+    }
+
+    /**
+     * Replays the complete lines appended to the storage file on a task list. If a line cannot be replayed, e.g.
+     * because it refers to a task that does not exist, the whole file is loaded again instead.
+     * @param tasks The task list
+     * @param path The path of the storage file
+     * @param size The size of the storage file
+     * @return <code>true</code> if the list changed, <code>false</code> otherwise
+     * @throws IOException if the file cannot be read
+     */
+    private boolean replayAppendedLines(TaskList tasks, Path path, long size) throws IOException {
+        ByteBuffer appended = ByteBuffer.allocate(Math.toIntExact(size - this.synced.size));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (appended.hasRemaining() && channel.read(appended, this.synced.size + appended.position()) >= 0) {
+                // keep reading until the buffer is full
+            }
+        }
+
+        int end = appended.position();
+        while (end > 0 && appended.get(end - 1) != '\n') {
+            end--;
+        }
+        if (end == 0) {
+            return false;
+        }
+
+        String lines = new String(appended.array(), 0, end, Charset.defaultCharset());
+        try {
+            for (String line : lines.split("\n")) {
+                if (!this.replayLine(tasks, line.split(" \\| "))) {
+                    tasks.replaceAll(this.load());
+                    return true;
                 }
+            }
+        } catch (RuntimeException e) {
+            tasks.replaceAll(this.load());
+            return true;
+        }
+
+        this.synced = FileSnapshot.take(path, this.synced.size + end);
+        return true;
+    }
 
-                taskList.add(task);
+    /**
+     * Replays a single line of the storage file on a task list, as <code>load</code> does.
+     * @param tasks The task list
+     * @param taskContent The line, already split into content blocks
+     * @return <code>true</code> if the line was replayed, <code>false</code> if it refers to a task that does not
+     *     exist
+     */
+    private boolean replayLine(TaskList tasks, String[] taskContent) {
+        switch (taskContent[0]) {
+        case "+" -> {
+            int index = Integer.parseInt(taskContent[1]);
+            Task task = this.parseTask(taskContent, 2);
+            if (index > tasks.getSize()) {
+                return false;
+            }
+            if (task != null) {
+                tasks.insertStored(index, task);
+            }
+        }
+        case "-" -> {
+            int index = Integer.parseInt(taskContent[1]);
+            if (index >= tasks.getSize()) {
+                return false;
             }
+            tasks.removeStored(index);
+        }
+        case "~" -> {
+            int index = Integer.parseInt(taskContent[1]);
+            if (index >= tasks.getSize()) {
+                return false;
+            }
+            tasks.setStoredDoneTime(index,
+                    taskContent[2].equals("1") ? this.parseDoneTime(taskContent, 3) : null);
+        }
+        default -> {
+            Task task = this.parseTask(taskContent, 0);
+            if (task != null) {
+                tasks.insertStored(tasks.getSize(), task);
+            }
+        }
         }
 
-        return taskList;
+        return true;
+    }
+
+    /**
+     * The FileSnapshot class encapsulates the state of a file at one point, enough to tell later whether the file
+     * is unchanged, was only appended to, or was rewritten.
+     */
+    private static class FileSnapshot {
+        /** The number of bytes at the end of the file compared to tell an appended file from a rewritten one */
+        private static final int TAIL_LENGTH = 64;
+
+        private final Object fileKey;
+        private final long size;
+        private final FileTime modifiedTime;
+        private final ByteBuffer tail;
+
+        private FileSnapshot(Object fileKey, long size, FileTime modifiedTime, ByteBuffer tail) {
+            this.fileKey = fileKey;
+            this.size = size;
+            this.modifiedTime = modifiedTime;
+            this.tail = tail;
+        }
+
+        /**
+         * Takes a snapshot of a whole file.
+         * @param path The path of the file
+         * @return the snapshot, or null if the file cannot be read
+         */
+        private static FileSnapshot take(Path path) {
+            return take(path, -1);
+        }
+
+        /**
+         * Takes a snapshot of the start of a file, up to a given size.
+         * @param path The path of the file
+         * @param size The size, or -1 for the whole file
+         * @return the snapshot, or null if the file cannot be read
+         */
+        private static FileSnapshot take(Path path, long size) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                long snapshotSize = size < 0 ? attributes.size() : size;
+                return new FileSnapshot(attributes.fileKey(), snapshotSize, attributes.lastModifiedTime(),
+                        readTail(channel, snapshotSize));
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        private static ByteBuffer readTail(FileChannel channel, long size) throws IOException {
+            ByteBuffer tail = ByteBuffer.allocate((int) Math.min(TAIL_LENGTH, size));
+            while (tail.hasRemaining() && channel.read(tail, size - tail.remaining()) >= 0) {
+                // keep reading until the buffer is full
+            }
+            return tail.flip();
+        }
+
+        /**
+         * Returns whether a file is still as it was in this snapshot, judging by its attributes alone.
+         * @param attributes The attributes of the file now
+         * @return <code>true</code> if the file is unchanged, <code>false</code> otherwise
+         */
+        private boolean isSameAs(BasicFileAttributes attributes) {
+            return Objects.equals(this.fileKey, attributes.fileKey()) && this.size == attributes.size()
+                    && this.modifiedTime.equals(attributes.lastModifiedTime());
+        }
+
+        /**
+         * Returns whether a file still starts with the content in this snapshot and has grown since, i.e. whether
+         * lines were only appended to it.
+         * @param path The path of the file
+         * @param attributes The attributes of the file now
+         * @return <code>true</code> if the file was only appended to, <code>false</code> if it was rewritten
+         * @throws IOException if the file cannot be read
+         */
+        private boolean isPrefixOf(Path path, BasicFileAttributes attributes) throws IOException {
+            if (!Objects.equals(this.fileKey, attributes.fileKey()) || attributes.size() <= this.size) {
+                return false;
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return readTail(channel, this.size).equals(this.tail);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the last load replayed edit records or found done tasks without a recorded done time. In
+     * that case, rewriting the file with <code>relogAllTasks</code> makes the next load cheaper and more accurate.
+     * @return <code>true</code> if the file should be rewritten, <code>false</code> otherwise
+     */
+    public boolean isCompactionNeeded() {
+        return this.isCompactionNeeded;
+    }
+
+    /**
+     * Parses a task from its note form.
+     * @param taskContent The note form, already split into content blocks
+     * @param offset The index of the block containing the task identifier
+     * @return the task, or null if the task identifier is not recognised
+     */
+    private Task parseTask(String[] taskContent, int offset) {
+        Task task = switch (taskContent[offset]) {
+        case "T" -> new ToDo(taskContent[offset + 2]);
+        case "D" -> new Deadline(taskContent[offset + 2],
+                DateTime.parseStored(taskContent[offset + 3]));
+        case "E" -> new Event(taskContent[offset + 2],
+                DateTime.parseStored(taskContent[offset + 3]),
+                DateTime.parseStored(taskContent[offset + 4]));
+        case "R" -> parseRecurring(taskContent, offset);
+        default -> null;
+        };
+
+        if (task == null) {
+            return null;
+        }
+
+        // the blocks every task of this type has, before the optional done-time and identifier blocks
+        int blockCount = offset + switch (taskContent[offset]) {
+        case "D" -> 4;
+        case "E" -> 5;
+        case "R" -> 7;
+        default -> 3;
+        };
+
+        if (taskContent[offset + 1].equals("1")) {
+            task.markAsDone(this.parseDoneTime(taskContent, blockCount));
+        }
+
+        String lastBlock = taskContent[taskContent.length - 1];
+        if (taskContent.length > blockCount && lastBlock.startsWith("#")) {
+            task.setId(lastBlock.substring(1));
+        }
+
+        return task;
+    }
+
+    /**
+     * Parses a recurring task from its note form, including the occurrences that were cancelled or moved.
+     * @param taskContent The note form, already split into content blocks
+     * @param offset The index of the block containing the task identifier
+     * @return the recurring task
+     */
+    private static Recurring parseRecurring(String[] taskContent, int offset) {
+        String until = taskContent[offset + 5];
+        Recurring task = new Recurring(taskContent[offset + 2],
+                DateTime.parseStored(taskContent[offset + 3]),
+                Recurring.Frequency.valueOf(taskContent[offset + 4]),
+                until.equals("-") ? null : DateTime.parseStored(until));
+
+        String exceptions = taskContent[offset + 6];
+        if (!exceptions.equals("-")) {
+            parseExceptions(task, exceptions);
+        }
+
+        return task;
+    }
+
+    /**
+     * Cancels and moves the occurrences of a recurring task listed in stored form, such as
+     * <code>2025-01-13=,2025-01-20=2025-01-21T10:00</code>.
+     * @param task The recurring task
+     * @param exceptions The cancelled (<code>date=</code>) and moved (<code>date=new datetime</code>) occurrences,
+     *     separated by commas
+     * @throws IllegalArgumentException if an occurrence is not in either form
+     */
+    static void parseExceptions(Recurring task, String exceptions) {
+        for (String exception : exceptions.split(",")) {
+            int separatorIndex = exception.indexOf('=');
+            if (separatorIndex == -1) {
+                throw new IllegalArgumentException("The exception '" + exception + "' has to be written as date= "
+                        + "for a skipped occurrence, or date=new time for a moved one.");
+            }
+            LocalDate date = LocalDate.parse(exception.substring(0, separatorIndex));
+
+            if (separatorIndex == exception.length() - 1) {
+                task.cancelOccurrence(date);
+            } else {
+                task.rescheduleOccurrence(date, DateTime.parseStored(exception.substring(separatorIndex + 1)));
+            }
+        }
+    }
+
+    /**
+     * Parses the optional done-time block that follows a done task. Tasks stored before done times were recorded
+     * do not have this block, so they are treated as done from now on.
+     * @param taskContent The note form, already split into content blocks
+     * @param index The index where the done-time block would be
+     * @return the done time
+     */
+    private LocalDateTime parseDoneTime(String[] taskContent, int index) {
+        if (index < taskContent.length && taskContent[index].startsWith("@")) {
+            return DateTime.parseStored(taskContent[index].substring(1));
+        }
+
+        this.isCompactionNeeded = true;
+        return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Parses a task from the line stored in a file for it, e.g. as sent by another replica.
+     * @param line The line
+     * @return the task, or null if the task identifier is not recognised
+     */
+    Task parseStorageForm(String line) {
+        return this.parseTask(line.split(" \\| "), 0);
+    }
+
+    /**
+     * Writes the line stored in a file for a task, i.e. its note form followed by the time it was done and its
+     * identifier, if any.
+     * @param out Where the line is written
+     * @param task The task
+     * @throws IOException if the line cannot be written
+     */
+    private static void writeStorageForm(Appendable out, Task task) throws IOException {
+        task.writeNoteForm(out);
+
+        LocalDateTime doneTime = task.getDoneTime();
+        if (doneTime != null) {
+            out.append(" | @");
+            DateTime.writeStored(out, doneTime);
+        }
+
+        if (task.getId() != null) {
+            out.append(" | #").append(task.getId());
+        }
+    }
+
+    /**
+     * Converts a task into the line stored in a file.
+     * @param task The task
+     * @return the line representing the task
+     */
+    static String toStorageForm(Task task) {
+        StringBuilder line = new StringBuilder();
+        try {
+            writeStorageForm(line, task);
+        } catch (IOException e) {
+            // appending to a StringBuilder never fails
+            throw new UncheckedIOException(e);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Writes tasks to a file, one line each, straight through a buffer.
+     * @param file The file
+     * @param isAppending Whether to keep the old content of the file
+     * @param operation The name of the operation in the metrics
+     * @param tasks The tasks
+     * @return <code>true</code> if the file was written, <code>false</code> if writing it failed
+     */
+    private boolean writeTasks(File file, boolean isAppending, String operation, List<Task> tasks) {
+        return this.writeFile(file, isAppending, operation, writer -> {
+            for (Task task : tasks) {
+                writeStorageForm(writer, task);
+                writer.write('\n');
+            }
+        });
     }
 
     /**
@@ -73,33 +647,198 @@ public class Storage {
      * @param task The task to be logged
      */
     public void logNewTask(Task task) {
-        try (FileWriter writer = new FileWriter(this.file, true)) {
-            writer.write(task.toNoteForm() + "\n");
-        } catch (IOException e) {
-            e.printStackTrace();
+        this.appendLine(toStorageForm(task));
+    }
+
+    /**
+     * Appends a single edit record to the file whose path is specified during initialization. The record is
+     * replayed on top of the preceding lines when the file is loaded, so undoing or redoing a change never needs
+     * to rewrite the whole file. The next full rewrite compacts the records away.
+     * @param edit The edit to be logged
+     */
+    public void logEdit(Edit edit) {
+        int index = edit.getIndex();
+        Task task = edit.getTask();
+
+        String record = switch (edit.getKind()) {
+        case ADD -> "+ | " + index + " | " + toStorageForm(task);
+        case DELETE -> "- | " + index;
+        case MARK -> "~ | " + index + " | 1 | @" + task.getDoneTime();
+        case UNMARK -> "~ | " + index + " | 0";
+        };
+
+        this.appendLine(record);
+    }
+
+    /**
+     * Appends a line to the storage file, or holds it back until the open batch is committed.
+     * @param line The line, without the line break
+     */
+    private void appendLine(String line) {
+        if (this.pendingLines != null) {
+            this.pendingLines.append(line).append('\n');
+            return;
         }
+
+        this.writeFile(this.file, true, "append", writer -> {
+            writer.write(line);
+            writer.write('\n');
+        });
     }
 
     /**
-     * Overwrites the storage file using a new list of tasks.
+     * Overwrites the storage file using a new list of tasks. Within a batch, the file is instead rewritten once when
+     * the batch is committed.<br><br>
+     *
+     * If another program changed the file since this storage last read or wrote it, the file is left alone, as
+     * overwriting it would lose their changes. The next <code>catchUp</code> loads the file again instead, dropping
+     * the changes made to the list since, so the caller has to tell the user that their change was not saved.
      *
      * @param tasks the list of tasks to be used for overwriting
+     * @return <code>false</code> if the file was left alone because another program changed it, <code>true</code>
+     *     otherwise
+     */
+    public boolean relogAllTasks(List<Task> tasks) {
+        if (this.pendingLines != null) {
+            this.isRewritePending = true;
+            return true;
+        }
+
+        if (this.isReloadNeeded || this.isChangedByOthers()) {
+            this.isReloadNeeded = true;
+            this.isRewriteRefused = true;
+            return false;
+        }
+
+        // opening the file without appending clears the old content
+        this.writeTasks(this.file, false, "rewrite", tasks);
+        return true;
+    }
+
+    /**
+     * Returns whether the storage file is no longer as this storage last read or wrote it.
+     * @return <code>true</code> if another program changed the file, <code>false</code> otherwise
      */
-    public void relogAllTasks(List<Task> tasks) {
-        // delete all content from the old file to ensure a clear file before overwriting
-        try (FileWriter contentDeleter = new FileWriter(this.file)) {
-            contentDeleter.write("");
+    private boolean isChangedByOthers() {
+        if (this.synced == null) {
+            return false;
+        }
+
+        try {
+            return !this.synced.isSameAs(Files.readAttributes(this.file.toPath(), BasicFileAttributes.class));
+        } catch (NoSuchFileException e) {
+            // the file is being replaced, e.g. by a tool syncing it
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
+    }
 
-        // add content from the new list of tasks
-        try (FileWriter writer = new FileWriter(this.file, true)) {
-            for (Task task : tasks) {
-                writer.write(task.toNoteForm() + "\n");
+    /**
+     * Returns whether the list has to be loaded from the storage file again, because another program changed the
+     * file in a way that cannot be replayed on it, or because a rewrite was refused.
+     * @return <code>true</code> if the next <code>catchUp</code> loads the file again, <code>false</code> otherwise
+     */
+    public boolean isReloadNeeded() {
+        return this.isReloadNeeded;
+    }
+
+    /**
+     * Returns whether a rewrite was refused since the file was last loaded. The changes made to the list since it
+     * was last saved are then lost when it is loaded again.
+     * @return <code>true</code> if a rewrite was refused, <code>false</code> otherwise
+     */
+    public boolean isRewriteRefused() {
+        return this.isRewriteRefused;
+    }
+
+    /**
+     * Starts holding back writes to the storage file. Batches cannot be nested.
+     */
+    public void beginBatch() {
+        assert(this.pendingLines == null);
+        this.pendingLines = new StringBuilder();
+        this.isRewritePending = false;
+    }
+
+    public boolean isBatchOpen() {
+        return this.pendingLines != null;
+    }
+
+    /**
+     * Writes the combined effect of the open batch to the storage file in one operation: a single rewrite if any
+     * write in the batch needed one, otherwise a single append of all held-back lines.
+     * The batch is closed either way.
+     * @param tasks The list of tasks after the batch, only read if the file has to be rewritten
+     * @return <code>false</code> if the rewrite was refused because another program changed the file, as
+     *     <code>relogAllTasks</code> does, <code>true</code> otherwise
+     */
+    public boolean commitBatch(TaskList tasks) {
+        assert(this.pendingLines != null);
+        String lines = this.pendingLines.toString();
+        this.pendingLines = null;
+
+        if (this.isRewritePending) {
+            return this.relogAllTasks(tasks.getTaskList());
+        } else if (!lines.isEmpty()) {
+            this.writeFile(this.file, true, "append", writer -> writer.write(lines));
+        }
+        return true;
+    }
+
+    /**
+     * Discards all writes held back by the open batch.
+     */
+    public void rollbackBatch() {
+        assert(this.pendingLines != null);
+        this.pendingLines = null;
+        this.isRewritePending = false;
+    }
+
+    /**
+     * Appends tasks to the archive file. The archive file is not read for this. The tasks must only be removed from
+     * the storage file once they are archived.
+     * @param tasks The tasks to be archived
+     * @return <code>true</code> if the tasks were archived, <code>false</code> if the archive file could not be written
+     */
+    public synchronized boolean archiveTasks(List<Task> tasks) {
+        if (!this.writeTasks(this.archiveFile, true, "archive", tasks)) {
+            return false;
+        }
+
+        if (this.archivedTasks != null) {
+            this.archivedTasks.addAll(tasks);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the archived tasks. The archive file is read the first time this is called, and kept in memory
+     * afterwards.
+     * @return an unmodifiable list of the archived tasks
+     */
+    public synchronized List<Task> loadArchivedTasks() {
+        if (this.archivedTasks == null) {
+            long start = System.nanoTime();
+            this.archivedTasks = new ArrayList<>();
+
+            if (this.archiveFile.exists()) {
+                try (Scanner scanner = new Scanner(this.archiveFile)) {
+                    while (scanner.hasNextLine()) {
+                        Task task = this.parseTask(scanner.nextLine().split(" \\| "), 0);
+                        if (task != null) {
+                            this.archivedTasks.add(task);
+                        }
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+
+            this.metrics.recordStorage("load archive", System.nanoTime() - start);
         }
+
+        return Collections.unmodifiableList(this.archivedTasks);
     }
 }
@@ -0,0 +1,137 @@
+package mirai.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The StorageWatcher class watches storage files for changes made by other programs, and reports each changed file
+ * once a burst of changes to it has settled.<br><br>
+ *
+ * A program saving a file often writes it in several steps, and a single save can cause several change events.
+ * Events are therefore collected for a short debounce time after the first one, and every file changed in that time
+ * is reported once. The files are watched through their folders, so a file that is replaced by another one, as some
+ * editors and syncing tools do, keeps being watched.
+ */
+public class StorageWatcher implements Closeable {
+    private final WatchService service;
+    private final Duration debounce;
+    private final Consumer<Path> onChange;
+    /** The folder watched by each watch key */
+    private final Map<WatchKey, Path> folders;
+    private final Set<Path> files;
+
+    /**
+     * Initialises a watcher and starts waiting for changes in the background.
+     * @param debounce How long to keep collecting changes after the first one before reporting them
+     * @param onChange The action run for each changed file, on the thread of the watcher
+     * @throws IOException if the file system cannot be watched
+     */
+    public StorageWatcher(Duration debounce, Consumer<Path> onChange) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.debounce = debounce;
+        this.onChange = onChange;
+        this.folders = new HashMap<>();
+        this.files = ConcurrentHashMap.newKeySet();
+
+        Thread thread = new Thread(this::run, "mirai-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts watching a file. Its folder must exist.
+     * @param file The file
+     * @throws IOException if the folder cannot be watched
+     */
+    public void watch(Path file) throws IOException {
+        Path absoluteFile = file.toAbsolutePath().normalize();
+        Path folder = absoluteFile.getParent();
+
+        synchronized (this.folders) {
+            if (!this.folders.containsValue(folder)) {
+                WatchKey key = folder.register(this.service,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                this.folders.put(key, folder);
+            }
+        }
+        this.files.add(absoluteFile);
+    }
+
+    /**
+     * Waits for changes until the watcher is closed, reporting the changed files after each burst of changes.
+     */
+    private void run() {
+        try {
+            while (true) {
+                Set<Path> changedFiles = new LinkedHashSet<>();
+                this.collect(this.service.take(), changedFiles);
+
+                long remaining = this.debounce.toNanos();
+                long deadline = System.nanoTime() + remaining;
+                while (remaining > 0) {
+                    WatchKey key = this.service.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (key != null) {
+                        this.collect(key, changedFiles);
+                    }
+                    remaining = deadline - System.nanoTime();
+                }
+
+                for (Path file : changedFiles) {
+                    try {
+                        this.onChange.accept(file);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the watcher was closed
+        }
+    }
+
+    /**
+     * Adds the watched files that changed according to a watch key's events.
+     * @param key The watch key
+     * @param changedFiles The changed files so far
+     */
+    private void collect(WatchKey key, Set<Path> changedFiles) {
+        Path folder;
+        synchronized (this.folders) {
+            folder = this.folders.get(key);
+        }
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // some events were lost, so any file might have changed
+                changedFiles.addAll(this.files);
+            } else if (folder != null && this.files.contains(folder.resolve((Path) event.context()))) {
+                changedFiles.add(folder.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Stops watching all files.
+     * @throws IOException if the watcher cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.service.close();
+    }
+}
@@ -1,22 +1,56 @@
 package mirai.utility;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import mirai.tasks.Event;
+import mirai.tasks.Recurring;
 import mirai.tasks.Task;
 
 /**
- * The TaskList class encapsulates a list of tasks.
+ * The TaskList class encapsulates a list of tasks.<br><br>
+ *
+ * Changes can be grouped into a transaction, which is either kept as a whole with <code>commitTransaction</code> or
+ * reverted as a whole with <code>rollbackTransaction</code>. Searches run through <code>runCancellable</code> stop
+ * with a <code>CancellationException</code> once cancellation is requested. Only searches check for it, so a change
+ * to the list is never cut short halfway.<br><br>
+ *
+ * Listeners can be added to follow every change to the list, task by task.
  */
 public class TaskList {
+    /** The number of tasks searched between two checks for cancellation */
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+    /** Whether cancellation of the work running on each thread has been requested, null if it cannot be cancelled */
+    private static final ThreadLocal<BooleanSupplier> cancelRequest = new ThreadLocal<>();
+
     private final List<Task> taskList;
+    private History history;
+    /** The actions reverting each change of the open transaction, most recent first, null outside a transaction */
+    private Deque<Runnable> journal;
+    /** The history as it was when the open transaction began */
+    private History historyBeforeTransaction;
+    /** An index of the events in the list, null until the first conflict query */
+    private IntervalTree eventIndex;
+    private final List<TaskListListener> listeners = new ArrayList<>();
 
     /**
      * Initialises a new list of tasks.
      */
     public TaskList() {
         this.taskList = new ArrayList<>();
+        this.history = new History();
     }
 
     /**
@@ -25,6 +59,7 @@ public class TaskList {
      */
     public TaskList(List<Task> taskList) {
         this.taskList = new ArrayList<>(taskList);
+        this.history = new History();
     }
 
     /**
@@ -34,6 +69,24 @@ public class TaskList {
     public void addTask(Task task) {
         assert(task != null);
         this.taskList.add(task);
+        this.indexAdded(task);
+        this.notifyAdded(this.taskList.size() - 1, task);
+        this.recordEdit(new Edit(Edit.Kind.ADD, this.taskList.size() - 1, task));
+    }
+
+    /**
+     * Adds many tasks to the end of the list at once, e.g. when importing them. Adding tasks in bulk cannot be undone,
+     * and clears the undo history.
+     * @param tasks The tasks to be added, in order
+     */
+    public void addTasks(List<Task> tasks) {
+        assert(this.journal == null);
+        for (Task task : tasks) {
+            this.taskList.add(task);
+            this.indexAdded(task);
+            this.notifyAdded(this.taskList.size() - 1, task);
+        }
+        this.history.clear();
     }
 
     /**
@@ -42,7 +95,10 @@ public class TaskList {
      */
     public void deleteTask(int taskIndex) {
         assert(0 <= taskIndex && taskIndex < this.getSize());
-        this.taskList.remove(taskIndex);
+        Task task = this.taskList.remove(taskIndex);
+        this.indexRemoved(task);
+        this.notifyRemoved(taskIndex, task);
+        this.recordEdit(new Edit(Edit.Kind.DELETE, taskIndex, task));
     }
 
     /**
@@ -51,7 +107,12 @@ public class TaskList {
      */
     public void markTask(int taskIndex) {
         assert(0 <= taskIndex && taskIndex < this.getSize());
-        this.taskList.get(taskIndex).markAsDone();
+        Task task = this.taskList.get(taskIndex);
+        if (!task.isDone()) {
+            task.markAsDone();
+            this.notifyChanged(taskIndex, task);
+            this.recordEdit(new Edit(Edit.Kind.MARK, taskIndex, task, task.getDoneTime()));
+        }
     }
 
     /**
@@ -60,7 +121,376 @@ public class TaskList {
      */
     public void unmarkTask(int taskIndex) {
         assert(0 <= taskIndex && taskIndex < this.getSize());
-        this.taskList.get(taskIndex).markAsUndone();
+        Task task = this.taskList.get(taskIndex);
+        if (task.isDone()) {
+            LocalDateTime doneTime = task.getDoneTime();
+            task.markAsUndone();
+            this.notifyChanged(taskIndex, task);
+            this.recordEdit(new Edit(Edit.Kind.UNMARK, taskIndex, task, doneTime));
+        }
+    }
+
+    /**
+     * Cancels a single occurrence of a recurring task in the list.
+     * @param task The recurring task
+     * @param date The date of the occurrence
+     * @return <code>true</code> if an occurrence is scheduled on the date, <code>false</code> otherwise
+     */
+    public boolean cancelOccurrence(Recurring task, LocalDate date) {
+        Map<LocalDate, LocalDateTime> exceptions = this.journal == null ? null : task.getExceptions();
+        if (!task.cancelOccurrence(date)) {
+            return false;
+        }
+
+        this.notifyChanged(task);
+        this.addToJournal(() -> this.setExceptions(task, exceptions));
+        return true;
+    }
+
+    /**
+     * Moves a single occurrence of a recurring task in the list to another time.
+     * @param task The recurring task
+     * @param date The date of the occurrence
+     * @param newTime The new time of the occurrence
+     * @return <code>true</code> if an occurrence is scheduled on the date, <code>false</code> otherwise
+     */
+    public boolean rescheduleOccurrence(Recurring task, LocalDate date, LocalDateTime newTime) {
+        Map<LocalDate, LocalDateTime> exceptions = this.journal == null ? null : task.getExceptions();
+        if (!task.rescheduleOccurrence(date, newTime)) {
+            return false;
+        }
+
+        this.notifyChanged(task);
+        this.addToJournal(() -> this.setExceptions(task, exceptions));
+        return true;
+    }
+
+    private void setExceptions(Recurring task, Map<LocalDate, LocalDateTime> exceptions) {
+        task.setExceptions(exceptions);
+        this.notifyChanged(task);
+    }
+
+    /**
+     * Removes all tasks that were marked as done before a given time, e.g. so that they can be archived. This
+     * cannot be undone, and clears the undo history.
+     * @param cutoff The time before which done tasks are removed
+     * @return the removed tasks, in their original order
+     */
+    public List<Task> removeTasksDoneBefore(LocalDateTime cutoff) {
+        List<Task> removedTasks = new ArrayList<>();
+        List<Task> remainingTasks = new ArrayList<>();
+
+        for (Task task : this.taskList) {
+            if (task.isDone() && task.getDoneTime().isBefore(cutoff)) {
+                this.indexRemoved(task);
+                removedTasks.add(task);
+            } else {
+                remainingTasks.add(task);
+            }
+        }
+
+        if (!removedTasks.isEmpty()) {
+            // removed from the end, so the index of every removal is still correct when it is notified
+            for (int i = this.taskList.size() - 1; i >= 0 && !this.listeners.isEmpty(); i--) {
+                Task task = this.taskList.get(i);
+                if (task.isDone() && task.getDoneTime().isBefore(cutoff)) {
+                    this.notifyRemoved(i, task);
+                }
+            }
+
+            this.taskList.clear();
+            this.taskList.addAll(remainingTasks);
+            this.history.clear();
+        }
+
+        return removedTasks;
+    }
+
+    /**
+     * Inserts a task that another program added to the storage file. Changes made outside Mirai cannot be undone,
+     * and clear the undo history, whose indexes may no longer be right.
+     * @param index The index of the new task
+     * @param task The new task
+     */
+    void insertStored(int index, Task task) {
+        assert(0 <= index && index <= this.getSize());
+        this.taskList.add(index, task);
+        this.indexAdded(task);
+        this.notifyAdded(index, task);
+        this.history.clear();
+    }
+
+    /**
+     * Removes a task that another program deleted from the storage file, clearing the undo history.
+     * @param index The index of the task
+     */
+    void removeStored(int index) {
+        assert(0 <= index && index < this.getSize());
+        Task task = this.taskList.remove(index);
+        this.indexRemoved(task);
+        this.notifyRemoved(index, task);
+        this.history.clear();
+    }
+
+    /**
+     * Marks a task as done or undone as another program did in the storage file, clearing the undo history.
+     * @param index The index of the task
+     * @param doneTime The time the task was done, or null if it is not done
+     */
+    void setStoredDoneTime(int index, LocalDateTime doneTime) {
+        assert(0 <= index && index < this.getSize());
+        Task task = this.taskList.get(index);
+        if (doneTime == null) {
+            task.markAsUndone();
+        } else {
+            task.markAsDone(doneTime);
+        }
+        this.notifyChanged(index, task);
+        this.history.clear();
+    }
+
+    /**
+     * Replaces every task in the list with the tasks loaded again from a rewritten storage file, clearing the undo
+     * history. Listeners are shown the new tasks as a whole.
+     * @param tasks The new tasks
+     */
+    void replaceAll(List<Task> tasks) {
+        assert(this.journal == null);
+        this.taskList.clear();
+        this.taskList.addAll(tasks);
+        this.eventIndex = null;
+        this.history.clear();
+
+        for (TaskListListener listener : this.listeners) {
+            listener.tasksReset(this.getTaskList());
+        }
+    }
+
+    /**
+     * Reverts the most recent edit made to the task list.
+     * @return the edit that was applied to revert the change, or null if there is nothing to undo
+     */
+    public Edit undo() {
+        Edit edit = this.history.popUndo();
+        if (edit != null) {
+            this.apply(edit);
+            this.addToJournal(() -> this.apply(edit.inverse()));
+        }
+        return edit;
+    }
+
+    /**
+     * Re-applies the most recently undone edit.
+     * @return the edit that was re-applied, or null if there is nothing to redo
+     */
+    public Edit redo() {
+        Edit edit = this.history.popRedo();
+        if (edit != null) {
+            this.apply(edit);
+            this.addToJournal(() -> this.apply(edit.inverse()));
+        }
+        return edit;
+    }
+
+    /**
+     * Starts grouping changes into a transaction. Transactions cannot be nested.
+     */
+    public void beginTransaction() {
+        assert(this.journal == null);
+        this.journal = new ArrayDeque<>();
+        this.historyBeforeTransaction = this.history.copy();
+    }
+
+    /**
+     * Keeps all changes made since the transaction began.
+     */
+    public void commitTransaction() {
+        assert(this.journal != null);
+        this.journal = null;
+        this.historyBeforeTransaction = null;
+    }
+
+    /**
+     * Reverts all changes made since the transaction began, most recent first, and restores the undo history.
+     */
+    public void rollbackTransaction() {
+        assert(this.journal != null);
+        Deque<Runnable> changes = this.journal;
+        this.journal = null;
+
+        while (!changes.isEmpty()) {
+            changes.pop().run();
+        }
+
+        this.history = this.historyBeforeTransaction;
+        this.historyBeforeTransaction = null;
+    }
+
+    /**
+     * Records an edit that has just been made, both in the undo history and in the open transaction, if any.
+     * @param edit The edit
+     */
+    private void recordEdit(Edit edit) {
+        this.history.record(edit);
+        this.addToJournal(() -> this.apply(edit.inverse()));
+    }
+
+    /**
+     * Remembers how to revert a change if a transaction is open.
+     * @param revert The action reverting the change
+     */
+    private void addToJournal(Runnable revert) {
+        if (this.journal != null) {
+            this.journal.push(revert);
+        }
+    }
+
+    /**
+     * Applies an edit to the task list without recording it in the history.
+     * @param edit The edit to apply
+     */
+    private void apply(Edit edit) {
+        Task task = edit.getTask();
+        int index = edit.getIndex();
+
+        // unlike a switch statement, a switch expression does not compile unless it handles every kind of edit
+        Runnable notification = switch (edit.getKind()) {
+        case ADD -> {
+            this.taskList.add(index, task);
+            this.indexAdded(task);
+            yield () -> this.notifyAdded(index, task);
+        }
+        case DELETE -> {
+            this.taskList.remove(index);
+            this.indexRemoved(task);
+            yield () -> this.notifyRemoved(index, task);
+        }
+        case MARK -> {
+            // undoing an unmark restores the time the task was first done
+            if (edit.getDoneTime() != null) {
+                task.markAsDone(edit.getDoneTime());
+            } else {
+                task.markAsDone();
+            }
+            yield () -> this.notifyChanged(index, task);
+        }
+        case UNMARK -> {
+            task.markAsUndone();
+            yield () -> this.notifyChanged(index, task);
+        }
+        };
+        notification.run();
+    }
+
+    /**
+     * Adds a listener to be notified of every change to the list from now on.
+     * @param listener The listener
+     */
+    public void addListener(TaskListListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Stops notifying a listener.
+     * @param listener The listener
+     */
+    public void removeListener(TaskListListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    private void notifyAdded(int index, Task task) {
+        for (TaskListListener listener : this.listeners) {
+            listener.taskAdded(index, task);
+        }
+    }
+
+    private void notifyRemoved(int index, Task task) {
+        for (TaskListListener listener : this.listeners) {
+            listener.taskRemoved(index, task);
+        }
+    }
+
+    private void notifyChanged(int index, Task task) {
+        for (TaskListListener listener : this.listeners) {
+            listener.taskChanged(index, task);
+        }
+    }
+
+    /**
+     * Notifies the listeners of a change to a task whose index is not known. The task is only looked up if anyone
+     * is listening.
+     * @param task The task, which must be in the list
+     */
+    private void notifyChanged(Task task) {
+        if (!this.listeners.isEmpty()) {
+            this.notifyChanged(this.taskList.indexOf(task), task);
+        }
+    }
+
+    /**
+     * Keeps the event index up to date after a task is added.
+     * @param task The added task
+     */
+    private void indexAdded(Task task) {
+        if (this.eventIndex != null && task instanceof Event event) {
+            this.eventIndex.insert(event);
+        }
+    }
+
+    /**
+     * Keeps the event index up to date after a task is removed.
+     * @param task The removed task
+     */
+    private void indexRemoved(Task task) {
+        if (this.eventIndex != null && task instanceof Event event) {
+            this.eventIndex.remove(event);
+        }
+    }
+
+    /**
+     * Returns the event index, building it on first use. The index is kept up to date from then on, so lists that
+     * are never queried for conflicts (such as search results) never pay for it.
+     * @return the event index
+     */
+    private IntervalTree getEventIndex() {
+        if (this.eventIndex == null) {
+            this.eventIndex = new IntervalTree();
+            for (Task task : this.taskList) {
+                if (task instanceof Event event) {
+                    this.eventIndex.insert(event);
+                }
+            }
+        }
+        return this.eventIndex;
+    }
+
+    /**
+     * Returns the events in the list that overlap with a given event, ordered by start time.
+     * @param event The event to check, which may or may not be in the list
+     * @return the overlapping events, excluding the given event itself
+     */
+    public List<Event> findConflicts(Event event) {
+        List<Event> conflicts = this.getEventIndex().findOverlapping(event.getStartTime(), event.getEndTime());
+        conflicts.removeIf(conflict -> conflict == event);
+        return conflicts;
+    }
+
+    /**
+     * Returns the events in the list that overlap with a time window, ordered by start time.
+     * @param from The start of the window
+     * @param to The end of the window
+     * @return the overlapping events
+     */
+    public List<Event> findEventsBetween(LocalDateTime from, LocalDateTime to) {
+        return this.getEventIndex().findOverlapping(from, to);
+    }
+
+    /**
+     * Returns every pair of overlapping events in the list.
+     * @return the overlapping pairs, each as a two-element array ordered by start time
+     */
+    public List<Event[]> findAllConflicts() {
+        return this.getEventIndex().findAllOverlaps();
     }
 
     /**
@@ -97,15 +527,142 @@ public class TaskList {
     public TaskList filterBasedOnKeyword(String keyword) {
         TaskList results = new TaskList();
 
-        for (Task task : this.taskList) {
+        for (int i = 0; i < this.taskList.size(); i++) {
+            checkCancelled(i);
+            Task task = this.taskList.get(i);
             if (task.contains(keyword)) {
-                results.addTask(task);
+                results.taskList.add(task);
             }
         }
 
         return results;
     }
 
+    /**
+     * Writes one page of the tasks matching a filter, one per line, numbered by their position among the matching
+     * tasks. Tasks are written as they are found, without copying the list, so the memory used only depends on the
+     * size of the page.
+     * @param out Where the tasks are written
+     * @param filter The tasks to write, or null to write all tasks
+     * @param offset The number of matching tasks before the page
+     * @param limit The maximum number of tasks to write
+     * @return the total number of matching tasks
+     * @throws IOException if the tasks cannot be written
+     */
+    public int appendPage(Appendable out, Predicate<Task> filter, int offset, int limit) throws IOException {
+        if (filter == null) {
+            int end = (int) Math.min((long) offset + limit, this.taskList.size());
+            for (int i = offset; i < end; i++) {
+                appendNumbered(out, i + 1, this.taskList.get(i));
+            }
+            return this.taskList.size();
+        }
+
+        int matches = 0;
+        for (int i = 0; i < this.taskList.size(); i++) {
+            checkCancelled(i);
+            Task task = this.taskList.get(i);
+            if (filter.test(task)) {
+                if (matches >= offset && matches - offset < limit) {
+                    appendNumbered(out, matches + 1, task);
+                }
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Runs work whose searches through any list stop once cancellation is requested, e.g. because the user cancelled
+     * the command. The work runs on the calling thread.
+     * @param isCancelRequested Whether cancellation has been requested
+     * @param work The work
+     * @param <T> The type of the result
+     * @return the result of the work
+     * @throws CancellationException if a search was cancelled
+     */
+    public static <T> T runCancellable(BooleanSupplier isCancelRequested, Supplier<T> work) {
+        BooleanSupplier outerRequest = cancelRequest.get();
+        cancelRequest.set(isCancelRequested);
+        try {
+            return work.get();
+        } finally {
+            cancelRequest.set(outerRequest);
+        }
+    }
+
+    /**
+     * Stops a search through the list if cancellation of the work running it has been requested. The request is only
+     * checked every <code>CANCEL_CHECK_INTERVAL</code> tasks, so the check costs next to nothing.
+     * @param index The index of the task being searched
+     * @throws CancellationException if cancellation has been requested
+     */
+    private static void checkCancelled(int index) {
+        if (index % CANCEL_CHECK_INTERVAL != 0) {
+            return;
+        }
+
+        BooleanSupplier isCancelRequested = cancelRequest.get();
+        if (isCancelRequested != null && isCancelRequested.getAsBoolean()) {
+            throw new CancellationException("The search was cancelled");
+        }
+    }
+
+    private static void appendNumbered(Appendable out, int number, Task task) throws IOException {
+        if (out instanceof StringBuilder message) {
+            message.append(number).append('.');
+            task.writeDisplay(message);
+            message.append('\n');
+        } else {
+            out.append(Integer.toString(number)).append('.').append(task.toString()).append('\n');
+        }
+    }
+
+    /**
+     * Returns the tasks closest to a keyword, in order of closeness. Tasks that are equally close keep their order in
+     * the list. Only the requested number of tasks are kept while the list is ranked, so the whole list is never
+     * sorted.
+     * @param keyword The user's keyword
+     * @param count The maximum number of tasks to return
+     * @return the closest tasks, closest first
+     */
+    public List<Task> findClosest(String keyword, int count) {
+        // the root of the heap is the worst task kept so far, so it is the one replaced by a closer task
+        Comparator<Ranked> byCloseness = Comparator.<Ranked>comparingDouble(ranked -> ranked.closeness)
+                .thenComparingInt(ranked -> ranked.index);
+        PriorityQueue<Ranked> closest = new PriorityQueue<>(byCloseness.reversed());
+
+        for (int i = 0; i < this.taskList.size(); i++) {
+            checkCancelled(i);
+            Ranked ranked = new Ranked(i, this.taskList.get(i).computeCloseness(keyword));
+            if (closest.size() < count) {
+                closest.add(ranked);
+            } else if (count > 0 && byCloseness.compare(ranked, closest.peek()) < 0) {
+                closest.poll();
+                closest.add(ranked);
+            }
+        }
+
+        Task[] results = new Task[closest.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = this.taskList.get(closest.poll().index);
+        }
+        return List.of(results);
+    }
+
+    /**
+     * The Ranked class pairs the index of a task with its closeness to a keyword.
+     */
+    private static class Ranked {
+        private final int index;
+        private final double closeness;
+
+        private Ranked(int index, double closeness) {
+            this.index = index;
+            this.closeness = closeness;
+        }
+    }
+
     /**
      * Returns a TaskList where search results are ordered based on its closeness to a given keyword.
      *
@@ -0,0 +1,42 @@
+package mirai.utility;
+
+import java.util.List;
+
+import mirai.tasks.Task;
+
+/**
+ * The TaskListListener interface is notified of every change to a <code>TaskList</code>, one task at a time, so that
+ * a view of the list can update only what changed. Reverting a change, e.g. with <code>undo</code>, is notified as
+ * the opposite change.<br><br>
+ *
+ * Listeners are called on the thread changing the list, right after each change.
+ */
+public interface TaskListListener {
+    /**
+     * Called when the listener starts following a list, such as when the user switches to another list. Any view
+     * of the previous list should be replaced.
+     * @param tasks The tasks of the list, which the changes notified next apply to
+     */
+    void tasksReset(List<Task> tasks);
+
+    /**
+     * Called after a task is inserted into the list.
+     * @param index The index of the new task
+     * @param task The new task
+     */
+    void taskAdded(int index, Task task);
+
+    /**
+     * Called after a task is removed from the list.
+     * @param index The index the task had
+     * @param task The removed task
+     */
+    void taskRemoved(int index, Task task);
+
+    /**
+     * Called after a task in the list changes, e.g. when it is marked as done.
+     * @param index The index of the task
+     * @param task The task
+     */
+    void taskChanged(int index, Task task);
+}
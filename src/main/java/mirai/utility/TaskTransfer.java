@@ -0,0 +1,663 @@
+package mirai.utility;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import mirai.tasks.Deadline;
+import mirai.tasks.Event;
+import mirai.tasks.Recurring;
+import mirai.tasks.Task;
+import mirai.tasks.ToDo;
+
+/**
+ * The TaskTransfer class moves tasks in and out of Mirai as CSV or JSON Lines files, to be used with other
+ * programs.<br><br>
+ *
+ * Both formats hold one task per row, with the fields in <code>COLUMNS</code>. A CSV file starts with a header row
+ * naming its columns, in any order, and a JSON Lines file holds one object per line, whose missing fields are
+ * empty. Date-times are written as in the storage file, such as <code>2025-01-31T15:59</code>.<br><br>
+ *
+ * Files are streamed through a buffer one task at a time, so an export never holds the file in memory, and an import
+ * only holds one batch of tasks before adding it to the list and saving it with a single write.
+ */
+public class TaskTransfer {
+    /** The number of imported tasks added to the list and saved at a time */
+    public static final int IMPORT_BATCH_SIZE = 10_000;
+    /** The fields of every task, in the order they are exported */
+    public static final List<String> COLUMNS =
+            List.of("type", "done", "description", "time", "end", "every", "until", "exceptions", "done_time");
+
+    private static final int TYPE = 0;
+    private static final int DONE = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int TIME = 3;
+    private static final int END = 4;
+    private static final int EVERY = 5;
+    private static final int UNTIL = 6;
+    private static final int EXCEPTIONS = 7;
+    private static final int DONE_TIME = 8;
+
+    /** An enumeration-type describing the formats of the files tasks are moved in */
+    public enum Format {
+        CSV, JSON_LINES;
+
+        /**
+         * Returns the format of a file, judging by its extension.
+         * @param fileName The name of the file
+         * @return the format
+         * @throws MiraiException if the extension is not <code>.csv</code>, <code>.jsonl</code> or
+         *     <code>.ndjson</code>
+         */
+        public static Format of(String fileName) throws MiraiException {
+            String lowerCaseName = fileName.toLowerCase();
+            if (lowerCaseName.endsWith(".csv")) {
+                return CSV;
+            } else if (lowerCaseName.endsWith(".jsonl") || lowerCaseName.endsWith(".ndjson")) {
+                return JSON_LINES;
+            }
+
+            throw new MiraiException(Message.ERROR + "Mirai does not know the format of '" + fileName + "'...\n"
+                    + "Please use a .csv or .jsonl file, such as tasks.csv");
+        }
+    }
+
+    /**
+     * Writes tasks to a file, replacing its content, in the format given by the file's extension.
+     * @param file The file
+     * @param tasks The tasks in the list, written first
+     * @param archivedTasks Archived tasks to write after them, if any
+     * @return the number of tasks written
+     * @throws IOException if the file cannot be written
+     * @throws MiraiException if the format of the file is not supported
+     */
+    public static int export(Path file, TaskList tasks, List<Task> archivedTasks) throws IOException, MiraiException {
+        Format format = Format.of(file.getFileName().toString());
+        String[] values = new String[COLUMNS.size()];
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (format == Format.CSV) {
+                writeCsvRow(writer, COLUMNS.toArray(String[]::new));
+            }
+
+            for (int i = 0; i < tasks.getSize(); i++) {
+                writeRow(writer, format, toValues(tasks.getTask(i), values));
+            }
+            for (Task task : archivedTasks) {
+                writeRow(writer, format, toValues(task, values));
+            }
+        }
+
+        return tasks.getSize() + archivedTasks.size();
+    }
+
+    /**
+     * Adds the tasks in a file to the end of a list and saves them, one batch at a time. If a row cannot be read,
+     * the import stops there, and the tasks before it are kept.
+     * @param file The file, in the format given by its extension
+     * @param tasks The list
+     * @param storage The storage of the list
+     * @return the number of tasks imported
+     * @throws IOException if the file cannot be read
+     * @throws MiraiException if the format of the file is not supported, or a row cannot be read
+     */
+    public static int importTasks(Path file, TaskList tasks, Storage storage) throws IOException, MiraiException {
+        Format format = Format.of(file.getFileName().toString());
+        List<Task> batch = new ArrayList<>();
+        int count = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            RowReader rows = format == Format.CSV ? new CsvReader(reader) : new JsonLinesReader(reader);
+            for (String[] values = rows.next(); values != null; values = rows.next()) {
+                batch.add(toTask(values, rows.getLineNumber()));
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    count += addBatch(batch, tasks, storage);
+                }
+            }
+        } catch (MiraiException e) {
+            count += addBatch(batch, tasks, storage);
+            throw new MiraiException(e.getMessage() + "\n"
+                    + "The " + count + " tasks before it were imported.");
+        }
+
+        return count + addBatch(batch, tasks, storage);
+    }
+
+    /**
+     * Adds a batch of tasks to a list, saves them with a single write, and empties the batch.
+     * @param batch The batch
+     * @param tasks The list
+     * @param storage The storage of the list
+     * @return the number of tasks added
+     */
+    private static int addBatch(List<Task> batch, TaskList tasks, Storage storage) {
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+
+        tasks.addTasks(batch);
+        storage.beginBatch();
+        for (Task task : batch) {
+            storage.logNewTask(task);
+        }
+        storage.commitBatch(tasks);
+
+        batch.clear();
+        return size;
+    }
+
+    /**
+     * Fills an array with the fields of a task, as listed in <code>COLUMNS</code>.
+     * @param task The task
+     * @param values The array, whose fields the task does not have are set to null
+     * @return the array
+     */
+    private static String[] toValues(Task task, String[] values) {
+        Arrays.fill(values, null);
+        values[DONE] = String.valueOf(task.isDone());
+        values[DESCRIPTION] = task.getDescription();
+        if (task.getDoneTime() != null) {
+            values[DONE_TIME] = task.getDoneTime().toString();
+        }
+
+        if (task instanceof Deadline deadline) {
+            values[TYPE] = "deadline";
+            values[TIME] = deadline.getDeadline().toString();
+        } else if (task instanceof Event event) {
+            values[TYPE] = "event";
+            values[TIME] = event.getStartTime().toString();
+            values[END] = event.getEndTime().toString();
+        } else if (task instanceof Recurring recurring) {
+            values[TYPE] = "recurring";
+            values[TIME] = recurring.getStart().toString();
+            values[EVERY] = recurring.getFrequency().getUnit();
+            values[UNTIL] = recurring.getUntil() == null ? null : recurring.getUntil().toString();
+            values[EXCEPTIONS] = toExceptionsValue(recurring.getExceptions());
+        } else {
+            values[TYPE] = "todo";
+        }
+
+        return values;
+    }
+
+    private static String toExceptionsValue(Map<LocalDate, LocalDateTime> exceptions) {
+        if (exceptions.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder value = new StringBuilder();
+        for (Map.Entry<LocalDate, LocalDateTime> exception : exceptions.entrySet()) {
+            if (value.length() > 0) {
+                value.append(',');
+            }
+            value.append(exception.getKey()).append('=');
+            if (exception.getValue() != null) {
+                value.append(exception.getValue());
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * Creates a task from its fields, as listed in <code>COLUMNS</code>.
+     * @param values The fields, null for empty fields
+     * @param lineNumber The line the fields were read from, for error messages
+     * @return the task
+     * @throws MiraiException if the fields do not describe a valid task
+     */
+    private static Task toTask(String[] values, int lineNumber) throws MiraiException {
+        String description = values[DESCRIPTION];
+        if (description == null || description.isBlank()) {
+            throw invalidRow(lineNumber, "Every task needs a description.");
+        }
+        if (description.contains(" | ") || description.indexOf('\n') != -1 || description.indexOf('\r') != -1) {
+            throw invalidRow(lineNumber, "Descriptions cannot contain ' | ' or line breaks.");
+        }
+
+        String type = values[TYPE] == null ? "" : values[TYPE].toLowerCase();
+        Task task;
+        try {
+            task = switch (type) {
+            case "todo" -> new ToDo(description);
+            case "deadline" -> new Deadline(description, parseRequired(values, TIME, lineNumber));
+            case "event" -> {
+                LocalDateTime start = parseRequired(values, TIME, lineNumber);
+                LocalDateTime end = parseRequired(values, END, lineNumber);
+                if (end.isBefore(start)) {
+                    throw invalidRow(lineNumber, "An event cannot end before it starts.");
+                }
+                yield new Event(description, start, end);
+            }
+            case "recurring" -> {
+                Recurring.Frequency frequency = Recurring.Frequency.fromUnit(values[EVERY]);
+                if (frequency == null) {
+                    throw invalidRow(lineNumber, "A recurring task has to repeat every 'day' or 'week'.");
+                }
+
+                Recurring recurring = new Recurring(description, parseRequired(values, TIME, lineNumber), frequency,
+                        values[UNTIL] == null ? null : DateTime.parseStored(values[UNTIL]));
+                if (values[EXCEPTIONS] != null) {
+                    Storage.parseExceptions(recurring, values[EXCEPTIONS]);
+                }
+                yield recurring;
+            }
+            default -> throw invalidRow(lineNumber, "The type has to be todo, deadline, event or recurring.");
+            };
+
+            if ("true".equalsIgnoreCase(values[DONE])) {
+                task.markAsDone(values[DONE_TIME] == null
+                        ? LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)
+                        : DateTime.parseStored(values[DONE_TIME]));
+            }
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw invalidRow(lineNumber, e.getMessage());
+        }
+
+        return task;
+    }
+
+    private static LocalDateTime parseRequired(String[] values, int column, int lineNumber) throws MiraiException {
+        if (values[column] == null) {
+            throw invalidRow(lineNumber, "This type of task needs a '" + COLUMNS.get(column) + "'.");
+        }
+        return DateTime.parseStored(values[column]);
+    }
+
+    private static MiraiException invalidRow(int lineNumber, String reason) {
+        return new MiraiException(Message.ERROR + "Mirai cannot read line " + lineNumber + " of the file...\n"
+                + reason);
+    }
+
+    private static void writeRow(Writer writer, Format format, String[] values) throws IOException {
+        if (format == Format.CSV) {
+            writeCsvRow(writer, values);
+        } else {
+            writeJsonLine(writer, values);
+        }
+    }
+
+    /**
+     * Writes a row of a CSV file, quoting the values that contain commas, quotes or line breaks.
+     * @param writer Where the row is written
+     * @param values The values, null for empty values
+     * @throws IOException if the row cannot be written
+     */
+    private static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+
+            boolean isQuoted = value.indexOf(',') != -1 || value.indexOf('"') != -1
+                    || value.indexOf('\n') != -1 || value.indexOf('\r') != -1;
+            if (!isQuoted) {
+                writer.write(value);
+                continue;
+            }
+
+            writer.write('"');
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Writes a line of a JSON Lines file, leaving out empty values.
+     * @param writer Where the line is written
+     * @param values The values, null for empty values
+     * @throws IOException if the line cannot be written
+     */
+    private static void writeJsonLine(Writer writer, String[] values) throws IOException {
+        writer.write('{');
+        boolean isFirst = true;
+
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            if (!isFirst) {
+                writer.write(',');
+            }
+            isFirst = false;
+
+            writeJsonString(writer, COLUMNS.get(i));
+            writer.write(':');
+            if (i == DONE) {
+                writer.write(values[i]);
+            } else {
+                writeJsonString(writer, values[i]);
+            }
+        }
+
+        writer.write("}\n");
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"' -> writer.write("\\\"");
+            case '\\' -> writer.write("\\\\");
+            case '\n' -> writer.write("\\n");
+            case '\r' -> writer.write("\\r");
+            case '\t' -> writer.write("\\t");
+            default -> {
+                if (c < 0x20) {
+                    writer.write(String.format("\\u%04x", (int) c));
+                } else {
+                    writer.write(c);
+                }
+            }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * The RowReader interface encapsulates reading the rows of a file one at a time.
+     */
+    private interface RowReader {
+        /**
+         * Reads the next row, skipping blank lines.
+         * @return the fields of the row, as listed in <code>COLUMNS</code>, or null at the end of the file
+         * @throws IOException if the file cannot be read
+         * @throws MiraiException if the row is not valid
+         */
+        String[] next() throws IOException, MiraiException;
+
+        /**
+         * Returns the line the last row ended on, counting from 1.
+         * @return the line number
+         */
+        int getLineNumber();
+    }
+
+    /**
+     * The CsvReader class reads the rows of a CSV file, whose quoted values may span several lines.
+     */
+    private static class CsvReader implements RowReader {
+        private final BufferedReader reader;
+        /** The position of each of <code>COLUMNS</code> in the file, -1 if the file does not have the column */
+        private final int[] positions;
+        private int lineNumber;
+
+        private CsvReader(BufferedReader reader) throws IOException, MiraiException {
+            this.reader = reader;
+            this.positions = new int[COLUMNS.size()];
+            Arrays.fill(this.positions, -1);
+
+            List<String> header = this.readRecord();
+            for (int i = 0; header != null && i < header.size(); i++) {
+                int column = COLUMNS.indexOf(header.get(i).trim().toLowerCase());
+                if (column != -1) {
+                    this.positions[column] = i;
+                }
+            }
+
+            if (this.positions[TYPE] == -1 || this.positions[DESCRIPTION] == -1) {
+                throw new MiraiException(Message.ERROR + "Mirai cannot find the columns of the file...\n"
+                        + "The first row has to name the columns, such as " + String.join(",", COLUMNS));
+            }
+        }
+
+        @Override
+        public String[] next() throws IOException, MiraiException {
+            List<String> record = this.readRecord();
+            while (record != null && record.size() == 1 && record.get(0).isBlank()) {
+                record = this.readRecord();
+            }
+            if (record == null) {
+                return null;
+            }
+
+            String[] values = new String[COLUMNS.size()];
+            for (int column = 0; column < values.length; column++) {
+                int position = this.positions[column];
+                if (position != -1 && position < record.size() && !record.get(position).isEmpty()) {
+                    values[column] = record.get(position);
+                }
+            }
+            return values;
+        }
+
+        /**
+         * Reads the values of the next record, which spans several lines if a quoted value contains line breaks.
+         * @return the values, or null at the end of the file
+         * @throws IOException if the file cannot be read
+         * @throws MiraiException if a quoted value is never closed
+         */
+        private List<String> readRecord() throws IOException, MiraiException {
+            String line = this.reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            this.lineNumber++;
+
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean isQuoted = false;
+            int i = 0;
+
+            while (true) {
+                if (i == line.length()) {
+                    if (!isQuoted) {
+                        break;
+                    }
+
+                    line = this.reader.readLine();
+                    if (line == null) {
+                        throw invalidRow(this.lineNumber, "A quoted value is never closed.");
+                    }
+                    this.lineNumber++;
+                    value.append('\n');
+                    i = 0;
+                    continue;
+                }
+
+                char c = line.charAt(i++);
+                if (isQuoted && c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        isQuoted = false;
+                    }
+                } else if (!isQuoted && c == '"') {
+                    isQuoted = true;
+                } else if (!isQuoted && c == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else {
+                    value.append(c);
+                }
+            }
+
+            values.add(value.toString());
+            return values;
+        }
+
+        @Override
+        public int getLineNumber() {
+            return this.lineNumber;
+        }
+    }
+
+    /**
+     * The JsonLinesReader class reads a JSON Lines file, each line of which is an object with string, boolean,
+     * number or null fields.
+     */
+    private static class JsonLinesReader implements RowReader {
+        private final BufferedReader reader;
+        private int lineNumber;
+        private String line;
+        private int position;
+
+        private JsonLinesReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String[] next() throws IOException, MiraiException {
+            do {
+                this.line = this.reader.readLine();
+                if (this.line == null) {
+                    return null;
+                }
+                this.lineNumber++;
+            } while (this.line.isBlank());
+
+            this.position = 0;
+            String[] values = new String[COLUMNS.size()];
+
+            this.expect('{');
+            if (this.peek() == '}') {
+                this.position++;
+            } else {
+                do {
+                    this.skipWhitespace();
+                    String key = this.readString();
+                    this.expect(':');
+                    String value = this.readValue();
+
+                    int column = COLUMNS.indexOf(key);
+                    if (column != -1) {
+                        values[column] = value;
+                    }
+                } while (this.accept(','));
+                this.expect('}');
+            }
+
+            if (this.peek() != 0) {
+                throw invalidRow(this.lineNumber, "Each line has to hold exactly one object.");
+            }
+            return values;
+        }
+
+        @Override
+        public int getLineNumber() {
+            return this.lineNumber;
+        }
+
+        private void skipWhitespace() {
+            while (this.position < this.line.length() && Character.isWhitespace(this.line.charAt(this.position))) {
+                this.position++;
+            }
+        }
+
+        /**
+         * Returns the next character that is not whitespace, without reading it.
+         * @return the character, or 0 at the end of the line
+         */
+        private char peek() {
+            this.skipWhitespace();
+            return this.position < this.line.length() ? this.line.charAt(this.position) : 0;
+        }
+
+        private boolean accept(char c) {
+            if (this.peek() != c) {
+                return false;
+            }
+            this.position++;
+            return true;
+        }
+
+        private void expect(char c) throws MiraiException {
+            if (!this.accept(c)) {
+                throw invalidRow(this.lineNumber, "Mirai expected '" + c + "' at column " + (this.position + 1) + ".");
+            }
+        }
+
+        /**
+         * Reads a field's value, such as <code>"read book"</code>, <code>true</code> or <code>null</code>.
+         * @return the value as a string, or null for <code>null</code>
+         * @throws MiraiException if the value is not a string, boolean, number or null
+         */
+        private String readValue() throws MiraiException {
+            char c = this.peek();
+            if (c == '"') {
+                return this.readString();
+            }
+
+            int start = this.position;
+            while (this.position < this.line.length()
+                    && (Character.isLetterOrDigit(this.line.charAt(this.position))
+                    || "+-.".indexOf(this.line.charAt(this.position)) != -1)) {
+                this.position++;
+            }
+
+            String literal = this.line.substring(start, this.position);
+            if (literal.isEmpty()) {
+                throw invalidRow(this.lineNumber, "Fields can only hold text, true, false, numbers or null.");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String readString() throws MiraiException {
+            this.expect('"');
+            StringBuilder value = new StringBuilder();
+
+            while (this.position < this.line.length()) {
+                char c = this.line.charAt(this.position++);
+                if (c == '"') {
+                    return value.toString();
+                } else if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+
+                if (this.position == this.line.length()) {
+                    break;
+                }
+                char escaped = this.line.charAt(this.position++);
+                switch (escaped) {
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'u' -> {
+                    if (this.position + 4 > this.line.length()) {
+                        throw invalidRow(this.lineNumber, "A \\u escape needs 4 hexadecimal digits.");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(
+                                this.line.substring(this.position, this.position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw invalidRow(this.lineNumber, "A \\u escape needs 4 hexadecimal digits.");
+                    }
+                    this.position += 4;
+                }
+                default -> value.append(escaped);
+                }
+            }
+
+            throw invalidRow(this.lineNumber, "A text value is never closed.");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package mirai.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mirai.ui.Mirai;
+import mirai.utility.TaskList;
+
+public class MiraiServerTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    public void command_concurrentAdds_allTasksListed() throws Exception {
+        Mirai mirai = new Mirai(folder.resolve("mirai.txt").toString());
+        MiraiServer server = new MiraiServer(mirai, 0);
+        server.start();
+
+        try {
+            String url = "http://127.0.0.1:" + server.getPort();
+            HttpRequest add = HttpRequest.newBuilder(URI.create(url + "/command"))
+                    .POST(HttpRequest.BodyPublishers.ofString("todo read book"))
+                    .build();
+            new LoadTestClient(add).run(200, 8);
+
+            HttpResponse<String> list = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create(url + "/list")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, list.statusCode());
+            assertEquals(200, list.body().split("\"type\":\"todo\"", -1).length - 1);
+            assertTrue(list.body().endsWith("\"description\":\"read book\"}]"));
+
+            HttpResponse<String> find = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create(url + "/find?q=return")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals("[]", find.body());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void command_fromWebPageOrFileCommand_refused() throws Exception {
+        Mirai mirai = new Mirai(folder.resolve("mirai.txt").toString());
+        MiraiServer server = new MiraiServer(mirai, 0);
+        server.start();
+
+        try {
+            URI command = URI.create("http://127.0.0.1:" + server.getPort() + "/command");
+            HttpResponse<String> fromPage = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(command).header("Origin", "http://example.com")
+                            .POST(HttpRequest.BodyPublishers.ofString("todo read book")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(403, fromPage.statusCode());
+
+            HttpResponse<String> export = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(command)
+                            .POST(HttpRequest.BodyPublishers.ofString("export " + folder.resolve("out.csv"))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(403, export.statusCode());
+
+            Path pipelinedFile = folder.resolve("pipelined.csv");
+            HttpResponse<String> pipelined = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(command)
+                            .POST(HttpRequest.BodyPublishers.ofString("list; export " + pipelinedFile)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(403, pipelined.statusCode());
+            assertFalse(Files.exists(pipelinedFile));
+            assertEquals(0, (int) mirai.query(TaskList::getSize));
+        } finally {
+            server.stop();
+        }
+    }
+}
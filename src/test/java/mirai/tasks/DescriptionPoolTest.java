@@ -0,0 +1,33 @@
+package mirai.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class DescriptionPoolTest {
+    @Test
+    public void construct_sameDescription_sharesInstance() {
+        Task first = new ToDo(new String("weekly standup"));
+        Task second = new ToDo(new String("weekly standup"));
+        assertSame(first.description, second.description);
+    }
+
+    @Test
+    public void acquire_noTaskLeft_droppedFromPool() throws InterruptedException {
+        // a description no other test uses, so that nothing else keeps it pooled
+        String description = "pay rent " + UUID.randomUUID();
+        Task task = new ToDo(new String(description));
+        assertTrue(DescriptionPool.contains(description));
+
+        task = null;
+        for (int i = 0; i < 50 && DescriptionPool.contains(description); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertFalse(DescriptionPool.contains(description));
+    }
+}
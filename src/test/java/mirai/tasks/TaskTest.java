@@ -2,7 +2,10 @@ package mirai.tasks;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
@@ -70,4 +73,39 @@ public class TaskTest {
         event.markAsDone();
         assertEquals("E | 1 | meeting | 2025-01-31T16:00 | 2025-01-31T18:00", event.toNoteForm());
     }
+
+    @Test
+    public void recurringToNoteForm_standupWithExceptions_success() {
+        Recurring recurring = new Recurring("standup", LocalDateTime.parse("2025-01-06T09:00"),
+                Recurring.Frequency.WEEKLY, null);
+        recurring.cancelOccurrence(LocalDate.parse("2025-01-13"));
+        recurring.rescheduleOccurrence(LocalDate.parse("2025-01-20"), LocalDateTime.parse("2025-01-21T10:00"));
+        assertEquals("R | 0 | standup | 2025-01-06T09:00 | WEEKLY | - | 2025-01-13=,2025-01-20=2025-01-21T10:00",
+                recurring.toNoteForm());
+    }
+
+    @Test
+    public void recurringGetOccurrences_weeklyWithExceptions_skipsAndMoves() {
+        Recurring recurring = new Recurring("standup", LocalDateTime.parse("2025-01-06T09:00"),
+                Recurring.Frequency.WEEKLY, LocalDateTime.parse("2025-02-03T09:00"));
+        recurring.cancelOccurrence(LocalDate.parse("2025-01-13"));
+        recurring.rescheduleOccurrence(LocalDate.parse("2025-01-20"), LocalDateTime.parse("2025-01-21T10:00"));
+
+        List<LocalDateTime> occurrences = new ArrayList<>();
+        recurring.getOccurrences(LocalDateTime.parse("2025-01-01T00:00"), LocalDateTime.MAX)
+                .forEachRemaining(occurrences::add);
+
+        assertEquals(List.of(LocalDateTime.parse("2025-01-06T09:00"),
+                LocalDateTime.parse("2025-01-21T10:00"),
+                LocalDateTime.parse("2025-01-27T09:00"),
+                LocalDateTime.parse("2025-02-03T09:00")), occurrences);
+    }
+
+    @Test
+    public void recurringGetNextOccurrence_dailyForever_nextDay() {
+        Recurring recurring = new Recurring("gym", LocalDateTime.parse("2025-01-06T18:00"),
+                Recurring.Frequency.DAILY, null);
+        assertEquals(LocalDateTime.parse("2030-05-02T18:00"),
+                recurring.getNextOccurrence(LocalDateTime.parse("2030-05-01T18:01")));
+    }
 }
@@ -0,0 +1,81 @@
+package mirai.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+public class DateTimeTest {
+    /** The formatter Parser used before the fast paths, kept here as the reference behaviour */
+    private static final DateTimeFormatter REFERENCE = new DateTimeFormatterBuilder()
+            .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yyyy HHmm"))
+            .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))
+            .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yy HHmm"))
+            .appendOptional(DateTimeFormatter.ofPattern("dd/MM/yy HH:mm"))
+            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"))
+            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
+            .toFormatter(Locale.ENGLISH);
+
+    @Test
+    public void parseUserInput_supportedFormats_success() {
+        LocalDateTime expected = LocalDateTime.parse("2025-01-31T15:59");
+        assertEquals(expected, DateTime.parseUserInput("31/01/2025 1559"));
+        assertEquals(expected, DateTime.parseUserInput("31/01/2025 15:59"));
+        assertEquals(expected, DateTime.parseUserInput("31/01/25 1559"));
+        assertEquals(expected, DateTime.parseUserInput("31/01/25 15:59"));
+        assertEquals(expected, DateTime.parseUserInput("2025-01-31 1559"));
+        assertEquals(expected, DateTime.parseUserInput("2025-01-31 15:59"));
+    }
+
+    @Test
+    public void parseUserInput_edgeCases_matchesReferenceFormatter() {
+        List<String> inputs = List.of("31/02/2025 1200", "30/02/24 12:00", "2025-04-31 0000", "32/01/2025 1200",
+                "00/01/2025 1200", "31/13/2025 1200", "31/01/2025 2400", "31/01/2025 1260", "0000-01-01 1200",
+                "31-01-2025 1200", "31/01/2025", "3a/01/2025 1200", "31/01/2025  1200", "");
+
+        for (String input : inputs) {
+            LocalDateTime expected;
+            try {
+                expected = LocalDateTime.parse(input, REFERENCE);
+            } catch (DateTimeParseException e) {
+                assertThrows(DateTimeParseException.class, () -> DateTime.parseUserInput(input), input);
+                continue;
+            }
+            assertEquals(expected, DateTime.parseUserInput(input), input);
+        }
+    }
+
+    @Test
+    public void parseStored_isoFormats_success() {
+        assertEquals(LocalDateTime.parse("2025-01-31T15:59"), DateTime.parseStored("2025-01-31T15:59"));
+        assertEquals(LocalDateTime.parse("2025-01-31T15:59:30"), DateTime.parseStored("2025-01-31T15:59:30"));
+        assertEquals(LocalDateTime.parse("2025-01-31T15:59:30.5"), DateTime.parseStored("2025-01-31T15:59:30.5"));
+        assertThrows(DateTimeParseException.class, () -> DateTime.parseStored("2025-02-30T15:59"));
+    }
+
+    @Test
+    public void format_dateTime_success() {
+        assertEquals("Jan 31 2025, 1559", DateTime.format(LocalDateTime.parse("2025-01-31T15:59")));
+    }
+
+    @Test
+    public void writeStored_variousDateTimes_matchesToString() throws IOException {
+        List<String> dateTimes = List.of("2025-01-31T15:59", "2025-01-31T15:59:07", "0999-12-01T00:00",
+                "2025-01-31T15:59:07.5", "+10000-01-01T00:00");
+
+        for (String dateTime : dateTimes) {
+            LocalDateTime expected = LocalDateTime.parse(dateTime);
+            StringBuilder out = new StringBuilder();
+            DateTime.writeStored(out, expected);
+            assertEquals(expected.toString(), out.toString(), dateTime);
+        }
+    }
+}
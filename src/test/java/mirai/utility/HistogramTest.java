@@ -0,0 +1,37 @@
+package mirai.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class HistogramTest {
+    @Test
+    public void getValueAtPercentile_smallValues_exact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(50, histogram.getCount());
+        assertEquals(25, histogram.getValueAtPercentile(0.5));
+        assertEquals(50, histogram.getValueAtPercentile(0.99));
+        assertEquals(50, histogram.getMax());
+        assertEquals(0, new Histogram().getValueAtPercentile(0.5));
+    }
+
+    @Test
+    public void getValueAtPercentile_largeValues_withinPrecision() {
+        Histogram histogram = new Histogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        for (double fraction : new double[] {0.5, 0.9, 0.99}) {
+            double expected = fraction * 10000 * 1000;
+            double actual = histogram.getValueAtPercentile(fraction);
+            assertTrue(Math.abs(actual - expected) <= expected / 32, fraction + ": " + actual);
+        }
+        assertEquals(10000 * 1000, histogram.getMax());
+    }
+}
@@ -0,0 +1,66 @@
+package mirai.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import mirai.tasks.Event;
+
+public class IntervalTreeTest {
+    private static final LocalDateTime BASE = LocalDateTime.parse("2025-01-31T00:00");
+
+    private static Event createEvent(int startHour, int endHour) {
+        return new Event("meeting", BASE.plusHours(startHour), BASE.plusHours(endHour));
+    }
+
+    @Test
+    public void findOverlapping_backToBackEvents_noOverlap() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(createEvent(9, 10));
+        tree.insert(createEvent(11, 12));
+
+        assertTrue(tree.findOverlapping(BASE.plusHours(10), BASE.plusHours(11)).isEmpty());
+        assertEquals(1, tree.findOverlapping(BASE.plusHours(9), BASE.plusHours(11)).size());
+        assertTrue(tree.findAllOverlaps().isEmpty());
+    }
+
+    @Test
+    public void findAllOverlaps_randomEvents_matchesPairwiseCheck() {
+        Random random = new Random(2103);
+        IntervalTree tree = new IntervalTree();
+        List<Event> events = new ArrayList<>();
+
+        for (int i = 0; i < 300; i++) {
+            int start = random.nextInt(500);
+            Event event = createEvent(start, start + 1 + random.nextInt(10));
+            events.add(event);
+            tree.insert(event);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            tree.remove(events.remove(random.nextInt(events.size())));
+        }
+
+        int expectedOverlaps = 0;
+        for (int i = 0; i < events.size(); i++) {
+            for (int j = i + 1; j < events.size(); j++) {
+                if (events.get(i).overlapsWith(events.get(j))) {
+                    expectedOverlaps++;
+                }
+            }
+        }
+
+        assertEquals(events.size(), tree.getSize());
+        assertEquals(expectedOverlaps, tree.findAllOverlaps().size());
+
+        Event probe = createEvent(100, 120);
+        long expectedMatches = events.stream().filter(probe::overlapsWith).count();
+        assertEquals(expectedMatches, tree.findOverlapping(probe.getStartTime(), probe.getEndTime()).size());
+    }
+}
@@ -0,0 +1,86 @@
+package mirai.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mirai.tasks.ToDo;
+
+public class ListRegistryTest {
+    @TempDir
+    Path folder;
+
+    private ListRegistry createRegistry() {
+        return new ListRegistry(folder.resolve("mirai.txt").toString(), new Metrics(), Duration.ofDays(30));
+    }
+
+    private static void addTask(NamedList list, String description) {
+        ToDo task = new ToDo(description);
+        list.getTasks().addTask(task);
+        list.getStorage().logNewTask(task);
+    }
+
+    @Test
+    public void use_newList_storedInItsOwnFile() throws Exception {
+        ListRegistry registry = createRegistry();
+        addTask(registry.getCurrent(), "read book");
+        addTask(registry.use("work"), "write report");
+
+        assertEquals(List.of("T | 0 | read book"), Files.readAllLines(folder.resolve("mirai.txt")));
+        assertEquals(List.of("T | 0 | write report"), Files.readAllLines(folder.resolve("lists/work.txt")));
+        assertThrows(MiraiException.class, () -> registry.use("../work"));
+    }
+
+    @Test
+    public void use_nameInAnotherCase_sameList() throws Exception {
+        Files.createDirectories(folder.resolve("lists"));
+        Files.write(folder.resolve("lists/Home.txt"), List.of("T | 0 | return book"));
+
+        ListRegistry registry = createRegistry();
+        assertEquals(2, registry.getLists().size());
+        addTask(registry.use("WORK"), "write report");
+        assertSame(registry.use("work"), registry.use("Work"));
+        assertEquals(1, registry.use("HOME").getTasks().getSize());
+
+        assertEquals(List.of("T | 0 | write report"), Files.readAllLines(folder.resolve("lists/work.txt")));
+        assertTrue(Files.exists(folder.resolve("lists/home.txt")));
+    }
+
+    @Test
+    public void findAll_storedLists_searchedAfterRestart() throws MiraiException, IOException {
+        ListRegistry registry = createRegistry();
+        addTask(registry.getCurrent(), "read book");
+        addTask(registry.use("home"), "return book");
+        addTask(registry.use("work"), "write report");
+
+        ListRegistry restarted = createRegistry();
+        assertEquals(3, restarted.getLists().size());
+        assertEquals(ListRegistry.MAIN_LIST, restarted.getCurrent().getName());
+        assertEquals("Here are the matching tasks in all your lists:\n"
+                + "In home:\n1.[T][ ] return book\n"
+                + "In main:\n1.[T][ ] read book\n", restarted.findAll("book"));
+    }
+
+    @Test
+    public void getTasks_archiveNotWritable_doneTasksKept() throws IOException {
+        List<String> lines = List.of("T | 1 | old task | @2020-01-01T00:00", "T | 0 | new task");
+        Files.write(folder.resolve("mirai.txt"), lines);
+        Files.createDirectory(folder.resolve("mirai.archive.txt"));
+
+        NamedList list = new NamedList(ListRegistry.MAIN_LIST, folder.resolve("mirai.txt").toString(),
+                new Metrics(), Duration.ofDays(30), Runnable::run);
+
+        assertEquals(2, list.getTasks().getSize());
+        assertEquals(lines, Files.readAllLines(folder.resolve("mirai.txt")));
+    }
+}
@@ -0,0 +1,82 @@
+package mirai.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ParsedCommandTest {
+    @Test
+    public void of_eventWithFlags_success() {
+        ParsedCommand command = ParsedCommand.of("event project meeting /from 31/01/2025 1400 /to 31/01/2025 1600");
+
+        assertEquals("event", command.getKeyword());
+        assertEquals("project meeting", command.getArgument());
+        assertEquals("31/01/2025 1400", command.getValue(ParsedCommand.Flag.FROM));
+        assertEquals("31/01/2025 1600", command.getValue(ParsedCommand.Flag.TO));
+        assertNull(command.getValue(ParsedCommand.Flag.BY));
+    }
+
+    @Test
+    public void of_flagsOutOfOrderAndEmpty_success() {
+        ParsedCommand command = ParsedCommand.of("recur standup /every week /until /from 06/01/2025 0900");
+
+        assertEquals("standup", command.getArgument());
+        assertEquals("week", command.getValue(ParsedCommand.Flag.EVERY));
+        assertEquals("", command.getValue(ParsedCommand.Flag.UNTIL));
+        assertEquals("06/01/2025 0900", command.getValue(ParsedCommand.Flag.FROM));
+    }
+
+    @Test
+    public void of_irregularSpacingAndOption_normalised() {
+        ParsedCommand command = ParsedCommand.of("find --all  read\tbook   now ");
+
+        assertTrue(command.isAllRequested());
+        assertEquals("read book now", command.getArgument());
+        assertEquals(ParsedCommand.NO_INDEX, command.getIndex());
+    }
+
+    @Test
+    public void getIndex_variousArguments_success() {
+        assertEquals(2, ParsedCommand.of("mark 2").getIndex());
+        assertEquals(-1, ParsedCommand.of("mark -1").getIndex());
+        assertEquals(Integer.MAX_VALUE, ParsedCommand.of("mark 99999999999").getIndex());
+        assertEquals(3, ParsedCommand.of("skip 3 /on 31/01/2025 0000").getIndex());
+        assertEquals(ParsedCommand.NO_INDEX, ParsedCommand.of("mark").getIndex());
+        assertEquals(ParsedCommand.NO_INDEX, ParsedCommand.of("mark two").getIndex());
+        assertFalse(ParsedCommand.of("mark").hasArguments());
+    }
+
+    @Test
+    public void of_pageOptions_valuesSkippedInArgument() {
+        ParsedCommand command = ParsedCommand.of("find --page 3 --size 50 read  book");
+
+        assertEquals("read book", command.getArgument());
+        assertEquals(3, command.getPage());
+        assertEquals(50, command.getPageSize());
+        assertEquals(0, ParsedCommand.of("list --page").getPage());
+        assertEquals(ParsedCommand.NO_INDEX, ParsedCommand.of("list").getPageSize());
+    }
+
+    @Test
+    public void getArgument_flagLikeWordsInDescription_kept() {
+        assertEquals("reply /on slack", ParsedCommand.of("todo reply /on slack").getArgument());
+        assertEquals("buy --size 10 shoes", ParsedCommand.of("todo buy --size 10 shoes").getArgument());
+        assertEquals("walk --all dog", ParsedCommand.of("todo walk --all dog").getArgument());
+
+        ParsedCommand deadline = ParsedCommand.of("deadline reply /on slack /by 31/01/2025 1559");
+        assertEquals("reply /on slack", deadline.getArgument());
+        assertEquals("31/01/2025 1559", deadline.getValue(ParsedCommand.Flag.BY));
+    }
+
+    @Test
+    public void getArgument_optionsAfterKeyword_keptInKeyword() {
+        ParsedCommand command = ParsedCommand.of("find walk --all dog --page 2");
+
+        assertEquals("walk --all dog --page 2", command.getArgument());
+        assertFalse(command.isAllRequested());
+        assertEquals(ParsedCommand.NO_INDEX, command.getPage());
+    }
+}
@@ -0,0 +1,66 @@
+package mirai.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import mirai.tasks.Deadline;
+import mirai.tasks.Event;
+import mirai.tasks.ToDo;
+
+public class ReminderSchedulerTest {
+    private static final LocalDateTime NOW = LocalDateTime.parse("2025-02-20T12:00");
+
+    private static ReminderScheduler createScheduler() {
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        return new ReminderScheduler(List.of(Duration.ofHours(1), Duration.ZERO), clock, reminder -> { });
+    }
+
+    @Test
+    public void takeDue_listChanges_remindersFollow() {
+        ReminderScheduler scheduler = createScheduler();
+        TaskList tasks = new TaskList();
+        tasks.addListener(scheduler);
+
+        tasks.addTask(new ToDo("sleep"));
+        tasks.addTask(new Deadline("submit report", NOW.plusHours(3)));
+        tasks.addTask(new Event("meeting", NOW.plusHours(2), NOW.plusHours(4)));
+        assertEquals(NOW.plusHours(1), scheduler.getNextReminderTime());
+
+        tasks.markTask(2);
+        assertEquals(NOW.plusHours(2), scheduler.getNextReminderTime());
+        tasks.unmarkTask(2);
+        assertEquals(List.of("Reminder: this starts in 1 hour:\n  [E][ ] meeting (from: Feb 20 2025, 1400, to: "
+                + "Feb 20 2025, 1600)"), scheduler.takeDue(NOW.plusHours(1)));
+
+        tasks.deleteTask(2);
+        assertEquals(List.of("Reminder: this is due in 1 hour:\n  [D][ ] submit report (by: Feb 20 2025, 1500)",
+                "Reminder: this is due now:\n  [D][ ] submit report (by: Feb 20 2025, 1500)"),
+                scheduler.takeDue(NOW.plusHours(3)));
+        assertNull(scheduler.getNextReminderTime());
+    }
+
+    @Test
+    public void tasksReset_remindersAlreadyDue_skipped() {
+        ReminderScheduler scheduler = createScheduler();
+        scheduler.tasksReset(List.of(new Deadline("submit report", NOW.plusMinutes(30)),
+                new Deadline("pay bills", NOW.minusDays(1))));
+
+        assertEquals(NOW.plusMinutes(30), scheduler.getNextReminderTime());
+        assertEquals(List.of("Reminder: this is due now:\n  [D][ ] submit report (by: Feb 20 2025, 1230)"),
+                scheduler.takeDue(NOW.plusMinutes(30)));
+    }
+
+    @Test
+    public void parseLeadTimes_minutes_parsed() {
+        assertEquals(List.of(Duration.ofHours(1), Duration.ofMinutes(10)), ReminderScheduler.parseLeadTimes("60, 10"));
+        assertEquals(List.of(), ReminderScheduler.parseLeadTimes("soon"));
+    }
+}
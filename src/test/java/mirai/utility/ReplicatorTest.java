@@ -0,0 +1,295 @@
+package mirai.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mirai.tasks.Task;
+import mirai.ui.Mirai;
+
+public class ReplicatorTest {
+    @TempDir
+    Path folder;
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "replicas did not converge in time");
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<String> describeSorted(Mirai mirai) {
+        return mirai.query(tasks -> tasks.getTaskList().stream().map(Task::toString).sorted().toList());
+    }
+
+    @Test
+    public void replicateTo_changesOnBothReplicas_converge() throws Exception {
+        Files.createDirectories(folder.resolve("a"));
+        Files.createDirectories(folder.resolve("b"));
+        Mirai first = new Mirai(folder.resolve("a/mirai.txt").toString());
+        Mirai second = new Mirai(folder.resolve("b/mirai.txt").toString());
+
+        try {
+            first.replicateTo("127.0.0.1", second.listenForReplicas(0));
+            second.replicateTo("127.0.0.1", first.listenForReplicas(0));
+
+            first.getResponse("todo read book");
+            first.getResponse("todo return book");
+            awaitTrue(() -> second.query(TaskList::getSize) == 2);
+            second.getResponse("todo buy milk");
+            awaitTrue(() -> first.query(TaskList::getSize) == 3);
+
+            first.getResponse("mark 1");
+            second.getResponse("delete 2");
+            List<String> expected = List.of("[T][ ] buy milk", "[T][X] read book");
+            awaitTrue(() -> describeSorted(first).equals(expected) && describeSorted(second).equals(expected));
+        } finally {
+            first.stopReplication();
+            second.stopReplication();
+        }
+
+        // identifiers are saved with the tasks, so changes keep finding them after a restart
+        assertTrue(new Storage(folder.resolve("b/mirai.txt").toString()).load().stream()
+                .allMatch(task -> task.getId() != null));
+    }
+
+    @Test
+    public void replicateTo_peerAppliedEarlierRecords_resumesAfterThem() throws Exception {
+        Mirai mirai = new Mirai(folder.resolve("mirai.txt").toString());
+
+        try (ServerSocket peer = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            mirai.replicateTo("127.0.0.1", peer.getLocalPort());
+            mirai.getResponse("todo read book");
+            mirai.getResponse("todo return book");
+            mirai.getResponse("mark 2");
+
+            try (Socket socket = peer.accept()) {
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                assertTrue(in.readLine().startsWith("HELLO "));
+                out.write("RESUME 1\n");
+                out.flush();
+
+                List<String> records = new ArrayList<>();
+                String line;
+                while (!(line = in.readLine()).startsWith("COMMIT ")) {
+                    records.add(line);
+                }
+
+                assertEquals("COMMIT 3", line);
+                assertEquals(2, records.size());
+                assertTrue(records.get(0).matches("2 \\| 2 \\| ADD \\| \\w+-2 \\| T \\| 0 \\| return book \\| #\\w+-2"),
+                        records.get(0));
+                assertTrue(records.get(1).matches("3 \\| 3 \\| MARK \\| \\w+-2 \\| \\S+"), records.get(1));
+            }
+        } finally {
+            mirai.stopReplication();
+        }
+    }
+
+    @Test
+    public void replicateTo_occurrenceSkipped_notSentAsUnmark() throws Exception {
+        Mirai mirai = new Mirai(folder.resolve("mirai.txt").toString());
+
+        try (ServerSocket peer = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            mirai.replicateTo("127.0.0.1", peer.getLocalPort());
+            mirai.getResponse("recur standup /from 2025-01-06 0900 /every week");
+            String skipped = mirai.getResponse("skip 1 /on 2025-01-13 0900");
+            assertTrue(skipped.startsWith("OK, I've skipped"), skipped);
+            mirai.getResponse("todo read book");
+
+            try (Socket socket = peer.accept()) {
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                assertTrue(in.readLine().startsWith("HELLO "));
+                out.write("RESUME 0\n");
+                out.flush();
+
+                List<String> records = new ArrayList<>();
+                String line;
+                while (!(line = in.readLine()).startsWith("COMMIT ")) {
+                    records.add(line);
+                }
+
+                assertEquals("COMMIT 2", line);
+                assertTrue(records.stream().allMatch(record -> record.contains(" | ADD | ")), records.toString());
+            }
+        } finally {
+            mirai.stopReplication();
+        }
+    }
+
+    @Test
+    public void replicateTo_rewriteRefused_changeNotSent() throws Exception {
+        Path file = folder.resolve("mirai.txt");
+        Mirai mirai = new Mirai(file.toString());
+
+        try (ServerSocket peer = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            mirai.replicateTo("127.0.0.1", peer.getLocalPort());
+            mirai.getResponse("todo read book");
+
+            // another program changes the file while the next command is being carried out
+            mirai.addListener(new TaskListListener() {
+                @Override
+                public void tasksReset(List<Task> tasks) {
+                }
+
+                @Override
+                public void taskAdded(int index, Task task) {
+                }
+
+                @Override
+                public void taskRemoved(int index, Task task) {
+                }
+
+                @Override
+                public void taskChanged(int index, Task task) {
+                    try {
+                        Files.writeString(file, "T | 0 | sleep\n", StandardOpenOption.APPEND);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            assertEquals(Message.FILE_CHANGED, mirai.getResponse("mark 1"));
+            mirai.getResponse("todo return book");
+            assertEquals(List.of("[T][ ] read book", "[T][ ] return book", "[T][ ] sleep"), describeSorted(mirai));
+
+            try (Socket socket = peer.accept()) {
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                assertTrue(in.readLine().startsWith("HELLO "));
+                out.write("RESUME 0\n");
+                out.flush();
+
+                List<String> records = new ArrayList<>();
+                String line;
+                while (!(line = in.readLine()).startsWith("COMMIT ")) {
+                    records.add(line);
+                }
+
+                assertEquals("COMMIT 2", line);
+                assertTrue(records.get(0).startsWith("1 | 1 | ADD | "), records.get(0));
+                assertTrue(records.get(1).startsWith("2 | "), records.get(1));
+                assertTrue(records.get(1).contains(" | ADD | ") && records.get(1).contains("return book"),
+                        records.get(1));
+            }
+        } finally {
+            mirai.stopReplication();
+        }
+    }
+
+    /**
+     * Sends a batch of records as another replica would, and waits for it to be acknowledged.
+     */
+    private static void sendBatch(int port, String peerId, long expectedResume, String... records) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            out.write("HELLO " + peerId + "\n");
+            out.flush();
+            assertEquals("RESUME " + expectedResume, in.readLine());
+
+            for (String record : records) {
+                out.write(record + "\n");
+            }
+            out.write("COMMIT " + (expectedResume + records.length) + "\n");
+            out.flush();
+            assertEquals("ACK " + (expectedResume + records.length), in.readLine());
+        }
+    }
+
+    @Test
+    public void listen_olderUnmarkAfterRestart_ignored() throws Exception {
+        String filePath = folder.resolve("mirai.txt").toString();
+        Mirai mirai = new Mirai(filePath);
+        int port = mirai.listenForReplicas(0);
+        mirai.getResponse("todo read book");
+        String id = new Storage(filePath).load().get(0).getId();
+
+        // a recent done time, so that the task is not archived on restart
+        String doneTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString();
+        sendBatch(port, "peer", 0, "1 | 5 | MARK | " + id + " | " + doneTime);
+        mirai.stopReplication();
+
+        // the version of the peer's mark has to survive the restart to settle the peer's older unmark
+        Mirai restarted = new Mirai(filePath);
+        try {
+            sendBatch(restarted.listenForReplicas(0), "peer", 1, "2 | 4 | UNMARK | " + id);
+            assertEquals(List.of("[T][X] read book"), describeSorted(restarted));
+        } finally {
+            restarted.stopReplication();
+        }
+    }
+
+    @Test
+    public void compactLog_acknowledgedRecords_droppedAndNumbersKept() throws Exception {
+        String filePath = folder.resolve("mirai.txt").toString();
+        Mirai mirai = new Mirai(filePath);
+        mirai.listenForReplicas(0);
+        mirai.getResponse("todo read book");
+        mirai.getResponse("todo return book");
+        mirai.getResponse("mark 2");
+        mirai.stopReplication();
+
+        NamedList list = new NamedList(ListRegistry.MAIN_LIST, filePath, new Metrics(), Duration.ofDays(30),
+                Runnable::run);
+        ReentrantLock lock = new ReentrantLock();
+        Replicator replicator = new Replicator(list, lock);
+        replicator.compactLog(2);
+        replicator.close();
+
+        List<String> log = Files.readAllLines(folder.resolve("mirai.replication.log"));
+        assertEquals(4, log.size());
+        assertTrue(log.get(0).startsWith("= | 2 | "), log.get(0));
+        assertTrue(log.get(3).startsWith("3 | 3 | MARK | "), log.get(3));
+        assertFalse(log.stream().anyMatch(line -> line.startsWith("1 | ") || line.startsWith("2 | ")));
+
+        Replicator restarted = new Replicator(list, lock);
+        restarted.compactLog(3);
+        restarted.close();
+        assertEquals(3, new Replicator(list, lock).getLastSequence());
+    }
+
+    @Test
+    public void constructor_idsNotSaved_throws() throws Exception {
+        Path file = folder.resolve("mirai.txt");
+        Files.writeString(file, "T | 0 | read book\n");
+        NamedList list = new NamedList(ListRegistry.MAIN_LIST, file.toString(), new Metrics(), Duration.ofDays(30),
+                Runnable::run);
+        Files.writeString(file, "T | 0 | return book\n", StandardOpenOption.APPEND);
+
+        assertThrows(IOException.class, () -> new Replicator(list, new ReentrantLock()));
+        assertEquals(List.of("T | 0 | read book", "T | 0 | return book"), Files.readAllLines(file));
+    }
+}
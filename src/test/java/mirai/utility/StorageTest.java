@@ -0,0 +1,159 @@
+package mirai.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mirai.tasks.Task;
+import mirai.tasks.ToDo;
+
+public class StorageTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    public void load_doneTaskRelogged_doneTimeKept() throws IOException {
+        Storage storage = new Storage(folder.resolve("mirai.txt").toString());
+        Task task = new ToDo("read book");
+        task.markAsDone(LocalDateTime.parse("2025-01-31T15:59"));
+        storage.relogAllTasks(List.of(task));
+
+        List<Task> tasks = storage.load();
+        assertEquals(1, tasks.size());
+        assertEquals(LocalDateTime.parse("2025-01-31T15:59"), tasks.get(0).getDoneTime());
+        assertFalse(storage.isCompactionNeeded());
+    }
+
+    @Test
+    public void load_editRecords_replayed() throws IOException {
+        Storage storage = new Storage(folder.resolve("mirai.txt").toString());
+        Task first = new ToDo("read book");
+        Task second = new ToDo("return book");
+        storage.logNewTask(first);
+        storage.logNewTask(second);
+        storage.logEdit(new Edit(Edit.Kind.DELETE, 0, first));
+
+        List<Task> tasks = storage.load();
+        assertEquals(1, tasks.size());
+        assertEquals("[T][ ] return book", tasks.get(0).toString());
+        assertTrue(storage.isCompactionNeeded());
+    }
+
+    @Test
+    public void loadArchivedTasks_archivedTwice_allReturned() {
+        Storage storage = new Storage(folder.resolve("mirai.txt").toString());
+        storage.archiveTasks(List.of(new ToDo("old task")));
+        assertEquals(1, storage.loadArchivedTasks().size());
+
+        storage.archiveTasks(List.of(new ToDo("older task")));
+        assertEquals(2, storage.loadArchivedTasks().size());
+        assertEquals(2, new Storage(folder.resolve("mirai.txt").toString()).loadArchivedTasks().size());
+    }
+
+    @Test
+    public void commitBatch_appendsAndRewrite_combinedEffectSaved() throws IOException {
+        Storage storage = new Storage(folder.resolve("mirai.txt").toString());
+        Task first = new ToDo("read book");
+        Task second = new ToDo("return book");
+
+        storage.beginBatch();
+        storage.logNewTask(first);
+        storage.logNewTask(second);
+        storage.rollbackBatch();
+        assertTrue(storage.load().isEmpty());
+
+        storage.beginBatch();
+        storage.logNewTask(first);
+        storage.logNewTask(second);
+        assertTrue(storage.load().isEmpty());
+        storage.relogAllTasks(List.of(first));
+        storage.commitBatch(new TaskList(List.of(second)));
+
+        List<Task> tasks = storage.load();
+        assertEquals(1, tasks.size());
+        assertEquals("[T][ ] return book", tasks.get(0).toString());
+    }
+
+    @Test
+    public void catchUp_linesAppendedByOthers_replayedInPlace() throws IOException {
+        Path file = folder.resolve("mirai.txt");
+        Storage storage = new Storage(file.toString());
+        storage.logNewTask(new ToDo("read book"));
+        TaskList tasks = new TaskList(storage.load());
+        Task loadedTask = tasks.getTask(0);
+
+        tasks.addTask(new ToDo("sleep"));
+        storage.logNewTask(tasks.getTask(1));
+        assertFalse(storage.catchUp(tasks));
+
+        Files.writeString(file, "T | 0 | return book\n~ | 0 | 1 | @2025-01-31T15:59\nT | 0 | wri",
+                StandardOpenOption.APPEND);
+        assertTrue(storage.catchUp(tasks));
+        assertEquals(3, tasks.getSize());
+        assertTrue(tasks.getTask(0) == loadedTask && loadedTask.isDone());
+        assertEquals("[T][ ] return book", tasks.getTask(2).toString());
+
+        // the unfinished line is only read once its line break is written
+        Files.writeString(file, "te report\n", StandardOpenOption.APPEND);
+        assertTrue(storage.catchUp(tasks));
+        assertEquals("[T][ ] write report", tasks.getTask(3).toString());
+        assertFalse(storage.catchUp(tasks));
+    }
+
+    @Test
+    public void catchUp_fileRewrittenByOthers_loadedAgain() throws IOException {
+        Path file = folder.resolve("mirai.txt");
+        Storage storage = new Storage(file.toString());
+        storage.logNewTask(new ToDo("read book"));
+        TaskList tasks = new TaskList(storage.load());
+
+        Files.writeString(file, "T | 0 | sleep\nT | 0 | eat\nT | 0 | read a longer book\n");
+        assertTrue(storage.catchUp(tasks));
+        assertEquals(3, tasks.getSize());
+        assertEquals("[T][ ] sleep", tasks.getTask(0).toString());
+    }
+
+    @Test
+    public void catchUp_appendedWhileSaving_loadedAgain() throws IOException {
+        Path file = folder.resolve("mirai.txt");
+        Storage storage = new Storage(file.toString());
+        storage.logNewTask(new ToDo("read book"));
+        TaskList tasks = new TaskList(storage.load());
+
+        Files.writeString(file, "T | 0 | sleep\n", StandardOpenOption.APPEND);
+        tasks.addTask(new ToDo("eat"));
+        storage.logNewTask(tasks.getTask(1));
+
+        assertTrue(storage.catchUp(tasks));
+        assertEquals(List.of("[T][ ] read book", "[T][ ] sleep", "[T][ ] eat"),
+                tasks.getTaskList().stream().map(Task::toString).toList());
+    }
+
+    @Test
+    public void relogAllTasks_fileChangedByOthers_refusedAndLoadedAgain() throws IOException {
+        Path file = folder.resolve("mirai.txt");
+        Storage storage = new Storage(file.toString());
+        storage.logNewTask(new ToDo("read book"));
+        TaskList tasks = new TaskList(storage.load());
+
+        Files.writeString(file, "T | 0 | sleep\n", StandardOpenOption.APPEND);
+        tasks.deleteTask(0);
+        assertFalse(storage.relogAllTasks(tasks.getTaskList()));
+        assertEquals(List.of("T | 0 | read book", "T | 0 | sleep"), Files.readAllLines(file));
+
+        assertTrue(storage.catchUp(tasks));
+        assertEquals(List.of("[T][ ] read book", "[T][ ] sleep"),
+                tasks.getTaskList().stream().map(Task::toString).toList());
+        assertTrue(storage.relogAllTasks(tasks.getTaskList()));
+    }
+}
@@ -1,6 +1,15 @@
 package mirai.utility;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.MethodOrderer;
@@ -9,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 
 import mirai.tasks.Task;
+import mirai.tasks.ToDo;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class TaskListTest {
@@ -33,8 +43,8 @@ public class TaskListTest {
         }
 
         @Override
-        public String toNoteForm() {
-            return "[DUMMY]" + this.description;
+        public void writeNoteForm(Appendable out) throws IOException {
+            out.append("[DUMMY]").append(this.description);
         }
     }
 
@@ -79,4 +89,140 @@ public class TaskListTest {
         assertEquals("[DUMMY][ ] Dummy task 1", taskList.getTask(0).toString());
         assertEquals("[DUMMY][ ] Dummy task 2", taskList.getTask(1).toString());
     }
+
+    @Test
+    @Order(5)
+    public void undo_deleteTask1_taskRestored() {
+        taskList.deleteTask(0);
+        taskList.undo();
+        assertEquals(2, taskList.getSize());
+        assertEquals("[DUMMY][ ] Dummy task 1", taskList.getTask(0).toString());
+    }
+
+    @Test
+    @Order(6)
+    public void redo_undoneMark_markedAgain() {
+        taskList.markTask(1);
+        taskList.undo();
+        assertEquals("[DUMMY][ ] Dummy task 2", taskList.getTask(1).toString());
+        taskList.redo();
+        assertEquals("[DUMMY][X] Dummy task 2", taskList.getTask(1).toString());
+        assertNull(taskList.redo());
+    }
+
+    @Test
+    @Order(7)
+    public void rollbackTransaction_mixedEdits_allReverted() {
+        taskList.beginTransaction();
+        taskList.addTask(new DummyTask());
+        taskList.unmarkTask(1);
+        taskList.deleteTask(0);
+        taskList.undo();
+        taskList.deleteTask(2);
+        taskList.rollbackTransaction();
+
+        assertEquals(2, taskList.getSize());
+        assertEquals("[DUMMY][ ] Dummy task 1", taskList.getTask(0).toString());
+        assertEquals("[DUMMY][X] Dummy task 2", taskList.getTask(1).toString());
+
+        // the history is back to before the transaction, so undo reverts the redone mark
+        taskList.undo();
+        assertEquals("[DUMMY][ ] Dummy task 2", taskList.getTask(1).toString());
+    }
+
+    @Test
+    @Order(8)
+    public void rollbackTransaction_unmarkedTask_doneTimeRestored() {
+        LocalDateTime doneTime = LocalDateTime.parse("2025-01-31T15:59");
+        Task task = new ToDo("read book");
+        task.markAsDone(doneTime);
+        TaskList tasks = new TaskList(List.of(task));
+
+        tasks.beginTransaction();
+        tasks.unmarkTask(0);
+        tasks.rollbackTransaction();
+        assertEquals(doneTime, task.getDoneTime());
+
+        tasks.unmarkTask(0);
+        tasks.undo();
+        assertEquals(doneTime, task.getDoneTime());
+    }
+
+    @Test
+    @Order(9)
+    public void appendPage_secondPageOfMatches_numberedAmongMatches() throws IOException {
+        TaskList tasks = new TaskList();
+        for (int i = 1; i <= 10; i++) {
+            tasks.addTask(new ToDo((i % 2 == 0 ? "read book " : "sleep ") + i));
+        }
+
+        StringBuilder page = new StringBuilder();
+        assertEquals(5, tasks.appendPage(page, task -> task.contains("book"), 2, 2));
+        assertEquals("3.[T][ ] read book 6\n4.[T][ ] read book 8\n", page.toString());
+    }
+
+    @Test
+    @Order(10)
+    public void findClosest_equallyClose_keptInListOrder() {
+        TaskList tasks = new TaskList();
+        for (int i = 1; i <= 10; i++) {
+            tasks.addTask(new ToDo((i % 2 == 0 ? "read book " : "sleep ") + i));
+        }
+
+        List<Task> closest = tasks.findClosest("sleep", 3);
+        assertEquals(List.of(tasks.getTask(0), tasks.getTask(2), tasks.getTask(4)), closest);
+    }
+
+    @Test
+    @Order(11)
+    public void findClosest_cancelRequested_cancelled() {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new ToDo("read book"));
+
+        Supplier<List<Task>> search = () -> tasks.findClosest("book", 1);
+        assertThrows(CancellationException.class, () -> TaskList.runCancellable(() -> true, search));
+
+        // the request only applies to the work it was given with
+        assertEquals(1, TaskList.runCancellable(() -> false, search).size());
+        assertEquals(1, search.get().size());
+    }
+
+    @Test
+    @Order(12)
+    public void addListener_editsUndoneAndRolledBack_notifiedInOrder() {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new ToDo("read book"));
+        List<String> events = new ArrayList<>();
+        tasks.addListener(new TaskListListener() {
+            @Override
+            public void tasksReset(List<Task> tasks) {
+                events.add("reset " + tasks.size());
+            }
+
+            @Override
+            public void taskAdded(int index, Task task) {
+                events.add("added " + index + " " + task.getDescription());
+            }
+
+            @Override
+            public void taskRemoved(int index, Task task) {
+                events.add("removed " + index + " " + task.getDescription());
+            }
+
+            @Override
+            public void taskChanged(int index, Task task) {
+                events.add("changed " + index + " " + task.isDone());
+            }
+        });
+
+        tasks.addTask(new ToDo("sleep"));
+        tasks.markTask(0);
+        tasks.undo();
+        tasks.beginTransaction();
+        tasks.deleteTask(0);
+        tasks.rollbackTransaction();
+
+        assertEquals(List.of("added 1 sleep", "changed 0 true", "changed 0 false", "removed 0 read book",
+                "added 0 read book"), events);
+    }
 }
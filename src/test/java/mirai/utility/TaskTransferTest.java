@@ -0,0 +1,97 @@
+package mirai.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mirai.tasks.Deadline;
+import mirai.tasks.Event;
+import mirai.tasks.Recurring;
+import mirai.tasks.Task;
+import mirai.tasks.ToDo;
+
+public class TaskTransferTest {
+    @TempDir
+    Path folder;
+
+    private static TaskList createTasks() {
+        Task toDo = new ToDo("buy milk, eggs and \"good\" bread");
+        toDo.markAsDone(LocalDateTime.parse("2025-01-31T15:59"));
+        Recurring standup = new Recurring("standup", LocalDateTime.parse("2025-01-06T09:00"),
+                Recurring.Frequency.WEEKLY, null);
+        standup.cancelOccurrence(LocalDate.parse("2025-01-13"));
+
+        return new TaskList(List.of(toDo,
+                new Deadline("submit report", LocalDateTime.parse("2025-02-20T23:59")),
+                new Event("meeting", LocalDateTime.parse("2025-02-21T16:00"), LocalDateTime.parse("2025-02-21T18:00")),
+                standup));
+    }
+
+    private void assertRoundTrip(String fileName) throws IOException, MiraiException {
+        TaskList tasks = createTasks();
+        Path file = folder.resolve(fileName);
+        assertEquals(4, TaskTransfer.export(file, tasks, List.of()));
+
+        Storage storage = new Storage(folder.resolve("mirai.txt").toString());
+        TaskList importedTasks = new TaskList(storage.load());
+        assertEquals(4, TaskTransfer.importTasks(file, importedTasks, storage));
+
+        List<String> expectedLines = tasks.getTaskList().stream().map(Task::toNoteForm).toList();
+        assertEquals(expectedLines, importedTasks.getTaskList().stream().map(Task::toNoteForm).toList());
+        assertEquals(4, new Storage(folder.resolve("mirai.txt").toString()).load().size());
+    }
+
+    @Test
+    public void importTasks_exportedCsv_sameTasks() throws IOException, MiraiException {
+        assertRoundTrip("tasks.csv");
+        assertTrue(Files.readString(folder.resolve("tasks.csv"))
+                .contains("todo,true,\"buy milk, eggs and \"\"good\"\" bread\",,,,,,2025-01-31T15:59\n"));
+    }
+
+    @Test
+    public void importTasks_exportedJsonLines_sameTasks() throws IOException, MiraiException {
+        assertRoundTrip("tasks.jsonl");
+        assertTrue(Files.readString(folder.resolve("tasks.jsonl")).startsWith("{\"type\":\"todo\",\"done\":true,"
+                + "\"description\":\"buy milk, eggs and \\\"good\\\" bread\",\"done_time\":\"2025-01-31T15:59\"}\n"));
+    }
+
+    @Test
+    public void importTasks_invalidRow_earlierTasksKept() throws IOException {
+        Path file = folder.resolve("tasks.csv");
+        Files.writeString(file, "description,type,time\nread book,todo,\n\nreturn book,deadline,soon\n");
+
+        Storage storage = new Storage(folder.resolve("mirai.txt").toString());
+        TaskList tasks = new TaskList(storage.load());
+        MiraiException exception = assertThrows(MiraiException.class, () ->
+                TaskTransfer.importTasks(file, tasks, storage));
+
+        assertTrue(exception.getMessage().contains("line 4"));
+        assertEquals(1, tasks.getSize());
+        assertEquals(List.of("T | 0 | read book"), Files.readAllLines(folder.resolve("mirai.txt")));
+    }
+
+    @Test
+    public void importTasks_exceptionWithoutSeparator_invalidRow() throws IOException {
+        Path file = folder.resolve("tasks.csv");
+        Files.writeString(file, "type,description,time,every,exceptions\n"
+                + "recurring,standup,2025-01-06T09:00,week,2025-01-13\n");
+
+        Storage storage = new Storage(folder.resolve("mirai.txt").toString());
+        TaskList tasks = new TaskList(storage.load());
+        MiraiException exception = assertThrows(MiraiException.class, () ->
+                TaskTransfer.importTasks(file, tasks, storage));
+
+        assertTrue(exception.getMessage().contains("line 2"));
+        assertEquals(0, tasks.getSize());
+    }
+}
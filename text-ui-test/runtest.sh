@@ -6,21 +6,23 @@ then
     mkdir ../bin
 fi
 
-# delete output from previous run
+# delete output and data from previous run
 if [ -e "./ACTUAL.TXT" ]
 then
     rm ACTUAL.TXT
 fi
+rm -rf ./data
 
-# compile the code into the bin folder, terminates if error occurred
-if ! javac -cp ../src/main/java -Xlint:none -d ../bin ../src/main/java/*.java
+# compile the code without the GUI into the bin folder, terminates if error occurred
+if ! javac -Xlint:none -d ../bin $(find ../src/main/java/mirai/tasks ../src/main/java/mirai/utility -name "*.java") \
+        ../src/main/java/mirai/ui/Mirai.java ../src/main/java/mirai/ui/Headless.java
 then
     echo "********** BUILD FAILURE **********"
     exit 1
 fi
 
 # run the program, feed commands from input.txt file and redirect the output to the ACTUAL.TXT
-java -classpath ../bin Duke < input.txt > ACTUAL.TXT
+java -classpath ../bin mirai.ui.Headless --data ./data/mirai.txt < input.txt > ACTUAL.TXT
 
 # convert to UNIX format
 cp EXPECTED.TXT EXPECTED-UNIX.TXT